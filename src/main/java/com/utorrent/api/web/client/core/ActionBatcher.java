@@ -0,0 +1,222 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.core.entities.RequestResult;
+import com.utorrent.api.web.client.utils.ExecutionBackend;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import static com.utorrent.api.web.client.core.Action.*;
+
+/**
+ * Collects the torrent actions requested within a short window and sends them as one request
+ * per {@link Action}, carrying all the hashes of the action. Requests longer than the maximum
+ * URL length are split.
+ * <p>
+ * Actions pending on the same hash are coalesced when the last one makes the previous ones
+ * pointless, a start followed by a stop only sends the stop, and the callers of the dropped
+ * action get the result of the action that replaced it. An action that cannot be coalesced
+ * with the one pending on its hash closes the window: the pending actions are sent and the
+ * new one waits for the next window. Windows are sent one after the other, each once the
+ * requests of the previous one are completed, so the actions on a hash keep their order.
+ */
+@Slf4j
+class ActionBatcher implements Closeable {
+
+    private static final Map<Action, Set<Action>> SUPERSEDED_ACTIONS = new EnumMap<>(Action.class);
+    private static final Set<Action> REPEATABLE_ACTIONS = EnumSet.of(QUEUE_UP, QUEUE_DOWN);
+
+    static {
+        SUPERSEDED_ACTIONS.put(START, EnumSet.of(STOP, FORCE_START));
+        SUPERSEDED_ACTIONS.put(FORCE_START, EnumSet.of(STOP, START));
+        SUPERSEDED_ACTIONS.put(STOP, EnumSet.of(START, FORCE_START, PAUSE, UN_PAUSE));
+        SUPERSEDED_ACTIONS.put(PAUSE, EnumSet.of(UN_PAUSE));
+        SUPERSEDED_ACTIONS.put(UN_PAUSE, EnumSet.of(PAUSE));
+        SUPERSEDED_ACTIONS.put(QUEUE_TOP, EnumSet.of(QUEUE_BOTTOM, QUEUE_UP, QUEUE_DOWN));
+        SUPERSEDED_ACTIONS.put(QUEUE_BOTTOM, EnumSet.of(QUEUE_TOP, QUEUE_UP, QUEUE_DOWN));
+        SUPERSEDED_ACTIONS.put(REMOVE, EnumSet.of(START, STOP, PAUSE, FORCE_START, UN_PAUSE, RECHECK,
+                QUEUE_BOTTOM, QUEUE_DOWN, QUEUE_TOP, QUEUE_UP));
+        SUPERSEDED_ACTIONS.put(REMOVE_DATA, EnumSet.of(START, STOP, PAUSE, FORCE_START, UN_PAUSE, RECHECK, REMOVE,
+                QUEUE_BOTTOM, QUEUE_DOWN, QUEUE_TOP, QUEUE_UP));
+    }
+
+    private final BiFunction<Action, List<String>, CompletableFuture<RequestResult>> sender;
+    private final long window;
+    private final HashChunker chunker;
+    private final ScheduledExecutorService scheduler;
+
+    private Map<Action, Map<String, CompletableFuture<RequestResult>>> pending;
+    private Map<String, Action> pendingActions;
+    private ScheduledFuture<?> scheduledFlush;
+    private CompletableFuture<Void> inFlight;
+    private boolean closed;
+
+    /**
+     * @param sender       sends an action for the hashes given, the result is the one of each hash
+     * @param window       how long actions are collected before they are sent, in milliseconds
+     * @param maxUrlLength the maximum length of the URL of a request
+     * @param serverURI    the URI the requests are sent to
+     */
+    ActionBatcher(
+        final BiFunction<Action, List<String>, CompletableFuture<RequestResult>> sender,
+        final long window,
+        final int maxUrlLength,
+        final URI serverURI
+    ) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("The batching window must be positive");
+        }
+        this.sender = sender;
+        this.window = window;
+        this.chunker = new HashChunker(serverURI, maxUrlLength);
+        this.scheduler = ExecutionBackend.newScheduler("utorrent-action-batcher");
+        this.pending = new EnumMap<>(Action.class);
+        this.pendingActions = new HashMap<>();
+        this.inFlight = CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Adds the action on the hashes to the current window.
+     *
+     * @return the result of the action, {@link RequestResult#SUCCESS} only when the requests of all the hashes succeeded
+     */
+    CompletableFuture<RequestResult> submit(final Action action, final List<String> hashes) {
+        final List<CompletableFuture<RequestResult>> results = new ArrayList<>(hashes.size());
+        synchronized (this) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new IllegalStateException("The action batcher is closed"));
+            }
+            for (String hash : hashes) {
+                results.add(add(action, hash).copy());
+            }
+            if (scheduledFlush == null && !pending.isEmpty()) {
+                scheduledFlush = scheduler.schedule(this::flush, window, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (results.size() == 1) {
+            return results.get(0);
+        }
+        return CompletableFuture.allOf(results.toArray(CompletableFuture<?>[]::new)).thenApply(ignored -> results
+                .stream()
+                .allMatch(result -> result.join() == RequestResult.SUCCESS) ? RequestResult.SUCCESS : RequestResult.FAIL);
+    }
+
+    private CompletableFuture<RequestResult> add(final Action action, final String hash) {
+        final Action pendingAction = pendingActions.get(hash);
+        if (pendingAction == null) {
+            return enqueue(action, hash);
+        }
+        if (pendingAction == action && !REPEATABLE_ACTIONS.contains(action)) {
+            return pending.get(action).get(hash);
+        }
+        if (SUPERSEDED_ACTIONS.getOrDefault(action, Set.of()).contains(pendingAction)) {
+            final Map<String, CompletableFuture<RequestResult>> supersededEntries = pending.get(pendingAction);
+            final CompletableFuture<RequestResult> superseded = supersededEntries.remove(hash);
+            if (supersededEntries.isEmpty()) {
+                pending.remove(pendingAction);
+            }
+            final CompletableFuture<RequestResult> result = enqueue(action, hash);
+            result.whenComplete((value, error) -> {
+                if (error == null) {
+                    superseded.complete(value);
+                } else {
+                    superseded.completeExceptionally(error);
+                }
+            });
+            return result;
+        }
+        flushPending();
+        return enqueue(action, hash);
+    }
+
+    private CompletableFuture<RequestResult> enqueue(final Action action, final String hash) {
+        final CompletableFuture<RequestResult> result = new CompletableFuture<>();
+        pending.computeIfAbsent(action, ignored -> new LinkedHashMap<>()).put(hash, result);
+        pendingActions.put(hash, action);
+        return result;
+    }
+
+    /**
+     * Sends the actions of the current window without waiting for its end.
+     */
+    synchronized void flush() {
+        flushPending();
+    }
+
+    private void flushPending() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        final Map<Action, Map<String, CompletableFuture<RequestResult>>> batch = pending;
+        pending = new EnumMap<>(Action.class);
+        pendingActions = new HashMap<>();
+
+        final CompletableFuture<Void> sent = inFlight.thenComposeAsync(ignored -> send(batch), scheduler);
+        sent.whenComplete((ignored, error) -> {
+            if (error != null) {
+                batch.values().forEach(entries -> entries.values().forEach(result -> result.completeExceptionally(error)));
+            }
+        });
+        inFlight = sent.exceptionally(error -> null);
+    }
+
+    private CompletableFuture<Void> send(final Map<Action, Map<String, CompletableFuture<RequestResult>>> batch) {
+        final List<CompletableFuture<RequestResult>> requests = new ArrayList<>();
+        batch.forEach((action, entries) -> {
+            for (List<String> hashes : chunker.split(action, entries.keySet())) {
+                log.debug("Sending action {} for {} torrents", action.getName(), hashes.size());
+                CompletableFuture<RequestResult> request;
+                try {
+                    request = sender.apply(action, hashes);
+                } catch (final RuntimeException e) {
+                    request = CompletableFuture.failedFuture(e);
+                }
+                requests.add(request.whenComplete((result, error) -> hashes.forEach(hash -> {
+                    if (error == null) {
+                        entries.get(hash).complete(result);
+                    } else {
+                        entries.get(hash).completeExceptionally(error);
+                    }
+                })));
+            }
+        });
+        return CompletableFuture.allOf(requests.toArray(CompletableFuture<?>[]::new)).handle((ignored, error) -> null);
+    }
+
+    /**
+     * Sends the pending actions, waits for the requests sent and stops accepting new actions.
+     */
+    @Override
+    public void close() {
+        final CompletableFuture<Void> last;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flushPending();
+            last = inFlight;
+        }
+        last.join();
+        scheduler.shutdown();
+    }
+}
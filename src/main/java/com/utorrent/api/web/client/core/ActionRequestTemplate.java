@@ -0,0 +1,107 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.restclient.Request.QueryParam;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.utorrent.api.web.client.core.UTorrentWebAPIClientImpl.ACTION_QUERY_PARAM_NAME;
+import static com.utorrent.api.web.client.core.UTorrentWebAPIClientImpl.HASH_QUERY_PARAM_NAME;
+import static com.utorrent.api.web.client.core.UTorrentWebAPIClientImpl.TOKEN_PARAM_NAME;
+
+/**
+ * The URL of an action with the server URI and the action parameter encoded once, the parameters
+ * of each request being appended to it in a buffer reused by the thread.
+ * <p>
+ * Values made of unreserved characters, such as hex hashes and tokens, are appended as they are,
+ * the other characters are percent-encoded as UTF-8.
+ */
+final class ActionRequestTemplate {
+
+    private static final int MAX_RETAINED_BUFFER = 16 * 1024;
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(512));
+
+    private final String prefix;
+
+    ActionRequestTemplate(final URI serverURI, final Action action) {
+        final StringBuilder prefix = new StringBuilder(serverURI.toString()).append('?');
+        appendEncoded(prefix, ACTION_QUERY_PARAM_NAME);
+        prefix.append('=');
+        appendEncoded(prefix, action.getName());
+        this.prefix = prefix.toString();
+    }
+
+    /**
+     * @return the template of each action for the server
+     */
+    static Map<Action, ActionRequestTemplate> forActions(final URI serverURI) {
+        final Map<Action, ActionRequestTemplate> templates = new EnumMap<>(Action.class);
+        for (Action action : Action.values()) {
+            templates.put(action, new ActionRequestTemplate(serverURI, action));
+        }
+        return Collections.unmodifiableMap(templates);
+    }
+
+    /**
+     * @return the URL of the action followed by the parameters, the hashes and the token, in that order
+     */
+    URI toURI(final String token, final List<String> hashes, final List<QueryParam> params) {
+        final StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        buffer.append(prefix);
+        for (QueryParam param : params) {
+            appendParam(buffer, param.getName(), param.getValue());
+        }
+        for (String hash : hashes) {
+            appendParam(buffer, HASH_QUERY_PARAM_NAME, hash);
+        }
+        appendParam(buffer, TOKEN_PARAM_NAME, token);
+        final String uri = buffer.toString();
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
+        }
+        return URI.create(uri);
+    }
+
+    private static void appendParam(final StringBuilder buffer, final String name, final String value) {
+        buffer.append('&');
+        appendEncoded(buffer, name);
+        buffer.append('=');
+        appendEncoded(buffer, value);
+    }
+
+    private static void appendEncoded(final StringBuilder buffer, final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (isUnreserved(c)) {
+                buffer.append(c);
+            } else if (c < 0x80) {
+                appendPercentEncoded(buffer, c);
+            } else {
+                for (byte b : value.substring(i).getBytes(StandardCharsets.UTF_8)) {
+                    final int octet = b & 0xFF;
+                    if (isUnreserved((char) octet)) {
+                        buffer.append((char) octet);
+                    } else {
+                        appendPercentEncoded(buffer, octet);
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    private static boolean isUnreserved(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+            || c == '-' || c == '_' || c == '.' || c == '~';
+    }
+
+    private static void appendPercentEncoded(final StringBuilder buffer, final int octet) {
+        buffer.append('%').append(HEX_DIGITS[octet >> 4]).append(HEX_DIGITS[octet & 0x0F]);
+    }
+}
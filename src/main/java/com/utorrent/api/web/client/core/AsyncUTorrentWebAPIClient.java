@@ -0,0 +1,242 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.core.entities.ClientSettings;
+import com.utorrent.api.web.client.core.entities.MagnetLink;
+import com.utorrent.api.web.client.core.entities.Priority;
+import com.utorrent.api.web.client.core.entities.RequestResult;
+import com.utorrent.api.web.client.core.entities.Torrent;
+import com.utorrent.api.web.client.core.entities.TorrentFileList;
+import com.utorrent.api.web.client.core.entities.TorrentProperties;
+import com.utorrent.api.web.client.restclient.CompressionStats;
+import com.utorrent.api.web.client.restclient.ConnectionParams;
+import com.utorrent.api.web.client.restclient.ConnectionPoolStats;
+import com.utorrent.api.web.client.restclient.Request;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking uTorrent WebUI API interface.
+ * Each operation is the counterpart of the {@link UTorrentWebAPIClient} operation of the same name:
+ * it returns as soon as the request is sent and the returned future is completed with the result,
+ * or completed exceptionally with the exception the blocking operation would have thrown.
+ * Authentication is performed asynchronously too, the requests issued while the client
+ * authenticates wait for that single authentication.
+ */
+public interface AsyncUTorrentWebAPIClient extends Closeable {
+
+    /**
+     * @see UTorrentWebAPIClient#addTorrent(MagnetLink)
+     */
+    CompletableFuture<RequestResult> addTorrent(MagnetLink magnetLink);
+
+    /**
+     * @see UTorrentWebAPIClient#addTorrent(File)
+     */
+    CompletableFuture<RequestResult> addTorrent(File torrentFile);
+
+    /**
+     * @see UTorrentWebAPIClient#addTorrent(byte[])
+     */
+    CompletableFuture<RequestResult> addTorrent(byte[] torrent);
+
+    /**
+     * @see UTorrentWebAPIClient#addTorrent(ByteBuffer)
+     */
+    CompletableFuture<RequestResult> addTorrent(ByteBuffer torrent);
+
+    /**
+     * @see UTorrentWebAPIClient#addTorrent(InputStream, long)
+     */
+    CompletableFuture<RequestResult> addTorrent(InputStream torrent, long length);
+
+    /**
+     * @see UTorrentWebAPIClient#getTorrent(String)
+     */
+    CompletableFuture<Torrent> getTorrent(String torrentHash);
+
+    /**
+     * It refreshes the torrents until the torrent is found or the retries are exhausted,
+     * waiting between the attempts without holding a thread.
+     *
+     * @see UTorrentWebAPIClient#getTorrent(String, long, int)
+     */
+    CompletableFuture<Torrent> getTorrent(String torrentHash, long delay, int retries);
+
+    /**
+     * @see UTorrentWebAPIClient#getTorrentFiles(List)
+     */
+    CompletableFuture<Set<TorrentFileList>> getTorrentFiles(List<String> torrentHashes);
+
+    /**
+     * @see UTorrentWebAPIClient#getTorrentFiles(String)
+     */
+    CompletableFuture<Optional<TorrentFileList>> getTorrentFiles(String torrentHash);
+
+    /**
+     * The returned future is completed once the result of every chunk was consumed.
+     *
+     * @see UTorrentWebAPIClient#streamTorrentFiles(List, Consumer)
+     */
+    CompletableFuture<Void> streamTorrentFiles(List<String> torrentHashes, Consumer<ChunkResult<Set<TorrentFileList>>> consumer);
+
+    /**
+     * @see UTorrentWebAPIClient#getTorrentProperties(List)
+     */
+    CompletableFuture<Set<TorrentProperties>> getTorrentProperties(List<String> torrentHashes);
+
+    /**
+     * @see UTorrentWebAPIClient#getTorrentProperties(String)
+     */
+    CompletableFuture<Optional<TorrentProperties>> getTorrentProperties(String torrentHash);
+
+    /**
+     * The returned future is completed once the result of every chunk was consumed.
+     *
+     * @see UTorrentWebAPIClient#streamTorrentProperties(List, Consumer)
+     */
+    CompletableFuture<Void> streamTorrentProperties(List<String> torrentHashes, Consumer<ChunkResult<Set<TorrentProperties>>> consumer);
+
+    /**
+     * @see UTorrentWebAPIClient#getTorrentHashesByTracker(String)
+     */
+    CompletableFuture<Set<String>> getTorrentHashesByTracker(String tracker);
+
+    /**
+     * @see UTorrentWebAPIClient#getTrackers()
+     */
+    CompletableFuture<Set<String>> getTrackers();
+
+    CompletableFuture<RequestResult> startTorrent(List<String> torrentHashes);
+
+    CompletableFuture<RequestResult> startTorrent(String hash);
+
+    CompletableFuture<RequestResult> stopTorrent(List<String> torrentHashes);
+
+    CompletableFuture<RequestResult> stopTorrent(String hash);
+
+    CompletableFuture<RequestResult> pauseTorrent(List<String> torrentHashes);
+
+    CompletableFuture<RequestResult> pauseTorrent(String hash);
+
+    CompletableFuture<RequestResult> forceStartTorrent(List<String> torrentHashes);
+
+    CompletableFuture<RequestResult> forceStartTorrent(String hash);
+
+    CompletableFuture<RequestResult> unpauseTorrent(List<String> torrentHashes);
+
+    CompletableFuture<RequestResult> unpauseTorrent(String hash);
+
+    CompletableFuture<RequestResult> recheckTorrent(List<String> torrentHashes);
+
+    CompletableFuture<RequestResult> recheckTorrent(String hash);
+
+    CompletableFuture<RequestResult> removeTorrent(List<String> torrentHashes);
+
+    CompletableFuture<RequestResult> removeTorrent(String hash);
+
+    CompletableFuture<RequestResult> removeDataTorrent(List<String> torrentHashes);
+
+    CompletableFuture<RequestResult> removeDataTorrent(String hash);
+
+    CompletableFuture<RequestResult> queueBottomTorrent(List<String> hash);
+
+    CompletableFuture<RequestResult> queueBottomTorrent(String hash);
+
+    CompletableFuture<RequestResult> queueUpTorrent(List<String> hash);
+
+    CompletableFuture<RequestResult> queueUpTorrent(String hash);
+
+    CompletableFuture<RequestResult> queueDownTorrent(List<String> hash);
+
+    CompletableFuture<RequestResult> queueDownTorrent(String hash);
+
+    CompletableFuture<RequestResult> queueTopTorrent(List<String> hash);
+
+    CompletableFuture<RequestResult> queueTopTorrent(String hash);
+
+    /**
+     * @see UTorrentWebAPIClient#setTorrentFilePriority(String, Priority, List)
+     */
+    CompletableFuture<RequestResult> setTorrentFilePriority(String hash, Priority priority, List<Integer> fileIndices);
+
+    /**
+     * @see UTorrentWebAPIClient#setClientSetting(String, String)
+     */
+    CompletableFuture<RequestResult> setClientSetting(String settingName, String settingValue);
+
+    /**
+     * @see UTorrentWebAPIClient#setClientSetting(List)
+     */
+    CompletableFuture<RequestResult> setClientSetting(List<Request.QueryParam> settings);
+
+    /**
+     * @see UTorrentWebAPIClient#setClientSetting(SettingsKey, String)
+     */
+    CompletableFuture<RequestResult> setClientSetting(SettingsKey settingKey, String settingValue);
+
+    /**
+     * @see UTorrentWebAPIClient#getAllTorrents()
+     */
+    CompletableFuture<Set<Torrent>> getAllTorrents();
+
+    /**
+     * @see UTorrentWebAPIClient#getTorrentsCache()
+     */
+    TorrentsCache getTorrentsCache();
+
+    /**
+     * @see UTorrentWebAPIClient#getTorrentChangesSince(long)
+     */
+    CompletableFuture<TorrentChanges> getTorrentChangesSince(long version);
+
+    /**
+     * @see UTorrentWebAPIClient#getTorrents(TorrentQuery)
+     */
+    CompletableFuture<List<Torrent>> getTorrents(TorrentQuery query);
+
+    /**
+     * @see UTorrentWebAPIClient#getClientSettings()
+     */
+    CompletableFuture<ClientSettings> getClientSettings();
+
+    /**
+     * @see UTorrentWebAPIClient#getConnectionPoolStats()
+     */
+    Optional<ConnectionPoolStats> getConnectionPoolStats();
+
+    /**
+     * @see UTorrentWebAPIClient#getCompressionStats()
+     */
+    CompressionStats getCompressionStats();
+
+    /**
+     * Create an instance of an AsyncUTorrentWebAPIClient implementation passing the
+     * connection parameters
+     *
+     * @param connectionParams parameters to pass to the client
+     * @return the AsyncUTorrentWebAPIClient implementation
+     */
+    static AsyncUTorrentWebAPIClient getClient(ConnectionParams connectionParams) {
+        return new AsyncUTorrentWebAPIClientImpl(connectionParams, new MessageParser(), new TorrentsCache());
+    }
+
+    /**
+     * Create an instance of an AsyncUTorrentWebAPIClient implementation passing the
+     * connection parameters and the cache to keep the torrents in
+     *
+     * @param connectionParams parameters to pass to the client
+     * @param torrentsCache the cache the client keeps the torrents in
+     * @return the AsyncUTorrentWebAPIClient implementation
+     */
+    static AsyncUTorrentWebAPIClient getClient(ConnectionParams connectionParams, TorrentsCache torrentsCache) {
+        return new AsyncUTorrentWebAPIClientImpl(connectionParams, new MessageParser(), torrentsCache);
+    }
+}
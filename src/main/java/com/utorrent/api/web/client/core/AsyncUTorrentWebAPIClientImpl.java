@@ -0,0 +1,582 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.core.entities.ClientSettings;
+import com.utorrent.api.web.client.core.entities.MagnetLink;
+import com.utorrent.api.web.client.core.entities.Priority;
+import com.utorrent.api.web.client.core.entities.RequestResult;
+import com.utorrent.api.web.client.core.entities.Torrent;
+import com.utorrent.api.web.client.core.entities.TorrentFileList;
+import com.utorrent.api.web.client.core.entities.TorrentProperties;
+import com.utorrent.api.web.client.restclient.AsyncRESTClient;
+import com.utorrent.api.web.client.restclient.AuthorizationData;
+import com.utorrent.api.web.client.restclient.CompressionStats;
+import com.utorrent.api.web.client.restclient.ConnectionParams;
+import com.utorrent.api.web.client.restclient.ConnectionPoolStats;
+import com.utorrent.api.web.client.restclient.Request;
+import com.utorrent.api.web.client.restclient.Request.FilePart;
+import com.utorrent.api.web.client.restclient.Request.QueryParam;
+import com.utorrent.api.web.client.restclient.Request.RequestBuilder;
+import com.utorrent.api.web.client.restclient.exceptions.BadRequestException;
+import com.utorrent.api.web.client.restclient.exceptions.UnauthorizedException;
+import com.utorrent.api.web.client.utils.ExecutionBackend;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static com.utorrent.api.web.client.core.Action.*;
+import static com.utorrent.api.web.client.core.UTorrentWebAPIClientImpl.ACTION_QUERY_PARAM_NAME;
+import static com.utorrent.api.web.client.core.UTorrentWebAPIClientImpl.CACHE_ID_QUERY_PARAM;
+import static com.utorrent.api.web.client.core.UTorrentWebAPIClientImpl.FILE_INDEX_QUERY_PARAM_NAME;
+import static com.utorrent.api.web.client.core.UTorrentWebAPIClientImpl.HASH_QUERY_PARAM_NAME;
+import static com.utorrent.api.web.client.core.UTorrentWebAPIClientImpl.LIST_QUERY_PARAM_NAME;
+import static com.utorrent.api.web.client.core.UTorrentWebAPIClientImpl.PRIORITY_QUERY_PARAM_NAME;
+import static com.utorrent.api.web.client.core.UTorrentWebAPIClientImpl.TOKEN_PARAM_NAME;
+import static com.utorrent.api.web.client.core.UTorrentWebAPIClientImpl.TORRENT_FILE_NAME;
+import static com.utorrent.api.web.client.core.UTorrentWebAPIClientImpl.TORRENT_FILE_PART_NAME;
+import static com.utorrent.api.web.client.core.UTorrentWebAPIClientImpl.URL_PARAM_NAME;
+import static com.utorrent.api.web.client.core.UTorrentWebAPIClient.APPLICATION_X_BIT_TORRENT_CONTENT_TYPE;
+import static java.lang.String.format;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link AsyncUTorrentWebAPIClient} sending its requests through an {@link AsyncRESTClient}.
+ * The authorization data is held as a future shared by all the requests: the first request
+ * triggers the authentication, the requests issued meanwhile wait for the same future, and a
+ * request rejected because of an expired token drops that future so that the next request
+ * authenticates again. Responses are parsed on the thread completing the request, except the torrent
+ * list: the updates of the cache run one after the other, each request sent with the cache id the
+ * previous one left, and the list is parsed and applied on a thread of the client rather than on
+ * an I/O thread of the HTTP client.
+ */
+@Slf4j
+class AsyncUTorrentWebAPIClientImpl implements AsyncUTorrentWebAPIClient {
+
+    private final TorrentsCache torrentsCache;
+    private final TrackerIndex trackerIndex;
+    private final MessageParser messageParser;
+    private final AsyncRESTClient client;
+    private final URI serverURI;
+    private final Map<Action, ActionRequestTemplate> requestTemplates;
+    private final AtomicReference<CompletableFuture<AuthorizationData>> authorizationData;
+    private final ActionBatcher actionBatcher;
+    private final ExecutorService cacheUpdateExecutor;
+    private final Lock cacheUpdateLock;
+    private CompletableFuture<Void> lastCacheUpdate;
+
+    AsyncUTorrentWebAPIClientImpl(
+        final ConnectionParams connectionParams,
+        final MessageParser messageParser,
+        final TorrentsCache torrentsCache
+    ) {
+        this(messageParser, createRestClient(connectionParams), torrentsCache);
+        log.info("Initialization of async Torrent WebAPIClient for server {} was successful", serverURI);
+    }
+
+    AsyncUTorrentWebAPIClientImpl(
+        final MessageParser messageParser,
+        final AsyncRESTClient client,
+        final TorrentsCache torrentsCache
+    ) {
+        this.client = client;
+        this.serverURI = client.getServerURI();
+        this.requestTemplates = ActionRequestTemplate.forActions(serverURI);
+        this.messageParser = messageParser;
+        this.torrentsCache = requireNonNull(torrentsCache, "Torrents cache cannot be null");
+        this.trackerIndex = new TrackerIndex();
+        this.torrentsCache.addListener(trackerIndex);
+        this.authorizationData = new AtomicReference<>();
+        this.actionBatcher = createActionBatcher();
+        this.cacheUpdateExecutor = ExecutionBackend.newTaskExecutor("utorrent-cache-update", 1);
+        this.cacheUpdateLock = new ReentrantLock();
+        this.lastCacheUpdate = CompletableFuture.completedFuture(null);
+    }
+
+    private ActionBatcher createActionBatcher() {
+        final ConnectionParams connectionParams = client.getConnectionParams();
+        if (connectionParams == null || !connectionParams.isActionBatchingEnabled()) {
+            return null;
+        }
+        return new ActionBatcher(
+            (action, hashes) -> executeAction(action, hashes, List.of()).thenApply(UTorrentWebAPIClientImpl::getResult),
+            connectionParams.getActionBatchWindow(),
+            connectionParams.getMaxUrlLength(),
+            serverURI
+        );
+    }
+
+    @SneakyThrows
+    private static AsyncRESTClient createRestClient(final ConnectionParams connectionParams) {
+        return new AsyncRESTClient(connectionParams);
+    }
+
+    private CompletableFuture<AuthorizationData> getAuthorizationData() {
+        final CompletableFuture<AuthorizationData> current = authorizationData.get();
+        if (current != null) {
+            return current;
+        }
+        final CompletableFuture<AuthorizationData> authentication = new CompletableFuture<>();
+        if (!authorizationData.compareAndSet(null, authentication)) {
+            return getAuthorizationData();
+        }
+        client.authenticate().whenComplete((data, error) -> {
+            if (error == null && data.getStatus() == AuthorizationData.Status.OK) {
+                log.info("AuthorizationData: {} ", data);
+                authentication.complete(data);
+            } else {
+                authorizationData.compareAndSet(authentication, null);
+                authentication.completeExceptionally(error != null
+                        ? unwrap(error)
+                        : new UnauthorizedException(401, "Failed to process the Set-Cookie header part of GUID"));
+            }
+        });
+        return authentication;
+    }
+
+    private <T> CompletableFuture<T> invokeWithAuthentication(
+        final RequestBuilder requestBuilder,
+        final Function<Request, CompletableFuture<T>> responseSupplier,
+        final boolean retryIfAuthFailed
+    ) {
+        final Request baseRequest = requestBuilder.build();
+        return invokeWithAuthentication(authData -> baseRequest.toBuilder()
+            .param(new QueryParam(TOKEN_PARAM_NAME, authData.getToken()))
+            .header("Cookie", authData.getGuidCookie())
+            .build(), responseSupplier, retryIfAuthFailed);
+    }
+
+    private <T> CompletableFuture<T> invokeWithAuthentication(
+        final Function<AuthorizationData, Request> requestFactory,
+        final Function<Request, CompletableFuture<T>> responseSupplier,
+        final boolean retryIfAuthFailed
+    ) {
+        final CompletableFuture<AuthorizationData> authentication = getAuthorizationData();
+        return authentication
+            .thenCompose(authData -> {
+                final Request request = requestFactory.apply(authData);
+                return responseSupplier.apply(request)
+                    .thenApply(response -> requireNonNull(response, format("Received null response from server, request %s", request)));
+            })
+            .handle((response, error) -> {
+                if (error == null) {
+                    return CompletableFuture.completedFuture(response);
+                }
+                final Throwable cause = unwrap(error);
+                if (cause instanceof BadRequestException) {
+                    authorizationData.compareAndSet(authentication, null);
+                    if (retryIfAuthFailed) {
+                        return invokeWithAuthentication(requestFactory, responseSupplier, false);
+                    }
+                    return CompletableFuture.<T>failedFuture(
+                        new UTorrentAuthException("Impossible to connect to uTorrents, wrong username or password", cause));
+                }
+                return CompletableFuture.<T>failedFuture(cause);
+            })
+            .thenCompose(Function.identity());
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> addTorrent(final MagnetLink magnetLink) {
+        return executeAction(ADD_URL, List.of(), List.of(new QueryParam(URL_PARAM_NAME, magnetLink.asUrlDecodedString())))
+            .thenApply(UTorrentWebAPIClientImpl::getResult);
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> addTorrent(final File torrentFile) {
+        return addTorrent(new FilePart(TORRENT_FILE_PART_NAME, torrentFile, APPLICATION_X_BIT_TORRENT_CONTENT_TYPE));
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> addTorrent(final byte[] torrent) {
+        return addTorrent(FilePart.ofBytes(TORRENT_FILE_PART_NAME, TORRENT_FILE_NAME, torrent, APPLICATION_X_BIT_TORRENT_CONTENT_TYPE));
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> addTorrent(final ByteBuffer torrent) {
+        return addTorrent(FilePart.ofBuffer(TORRENT_FILE_PART_NAME, TORRENT_FILE_NAME, torrent, APPLICATION_X_BIT_TORRENT_CONTENT_TYPE));
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> addTorrent(final InputStream torrent, final long length) {
+        return addTorrent(FilePart.ofStream(TORRENT_FILE_PART_NAME, TORRENT_FILE_NAME, torrent, length, APPLICATION_X_BIT_TORRENT_CONTENT_TYPE));
+    }
+
+    private CompletableFuture<RequestResult> addTorrent(final FilePart torrent) {
+        final RequestBuilder requestBuilder = Request.builder()
+                .uri(serverURI)
+                .name(ADD_FILE.getName())
+                .param(new QueryParam(ACTION_QUERY_PARAM_NAME, ADD_FILE.getName()))
+                .file(torrent);
+
+        return invokeWithAuthentication(requestBuilder, client::post, torrent.isRepeatable()).thenApply(UTorrentWebAPIClientImpl::getResult);
+    }
+
+    @Override
+    public CompletableFuture<Set<Torrent>> getAllTorrents() {
+        return updateTorrentCache().thenApply(ignored -> torrentsCache.getTorrentList());
+    }
+
+    @Override
+    public CompletableFuture<TorrentChanges> getTorrentChangesSince(final long version) {
+        return updateTorrentCache().thenApply(ignored -> torrentsCache.changesSince(version));
+    }
+
+    @Override
+    public CompletableFuture<List<Torrent>> getTorrents(final TorrentQuery query) {
+        return updateTorrentCache().thenApply(ignored -> torrentsCache.query(query));
+    }
+
+    /**
+     * Chains the update after the previous one, so that the deltas of the cache id are applied in
+     * the order they were sent.
+     */
+    private CompletableFuture<Void> updateTorrentCache() {
+        cacheUpdateLock.lock();
+        try {
+            final CompletableFuture<Void> update = lastCacheUpdate
+                .handle((ignored, error) -> null)
+                .thenCompose(ignored -> fetchTorrentList());
+            lastCacheUpdate = update;
+            return update;
+        } finally {
+            cacheUpdateLock.unlock();
+        }
+    }
+
+    private CompletableFuture<Void> fetchTorrentList() {
+        final RequestBuilder requestBuilder = Request.builder()
+                .uri(serverURI)
+                .name(LIST_QUERY_PARAM_NAME)
+                .param(new QueryParam(LIST_QUERY_PARAM_NAME, "1"));
+
+        if (nonNull(torrentsCache.getCachedID())) {
+            requestBuilder.param(new QueryParam(CACHE_ID_QUERY_PARAM, torrentsCache.getCachedID()));
+        }
+
+        return invokeWithAuthentication(requestBuilder, client::get, true).thenAcceptAsync(jsonTorrentSnapshotMessage -> {
+            if (torrentsCache.getUpdateMode() == TorrentsCache.UpdateMode.IN_PLACE) {
+                torrentsCache.updateCache(messageParser.parseAsRawTorrentListSnapshot(jsonTorrentSnapshotMessage), messageParser);
+            } else {
+                torrentsCache.updateCache(messageParser.parseAsTorrentListSnapshot(jsonTorrentSnapshotMessage));
+            }
+        }, cacheUpdateExecutor);
+    }
+
+    @Override
+    public TorrentsCache getTorrentsCache() {
+        return torrentsCache;
+    }
+
+    @Override
+    public CompletableFuture<Torrent> getTorrent(final String torrentHash) {
+        return updateTorrentCache().thenApply(ignored -> torrentsCache.getTorrent(torrentHash));
+    }
+
+    @Override
+    public CompletableFuture<Torrent> getTorrent(final String torrentHash, final long delay, final int retries) {
+        return getAllTorrents().thenCompose(torrents -> {
+            final Optional<Torrent> torrentMatched = torrents
+                .stream()
+                .filter(torrent -> torrent.getHash().equals(torrentHash))
+                .findFirst();
+            if (torrentMatched.isPresent()) {
+                return CompletableFuture.completedFuture(torrentMatched.get());
+            }
+            if (retries <= 0) {
+                return CompletableFuture.<Torrent>failedFuture(new RuntimeException("Condition not met within time window"));
+            }
+            return CompletableFuture
+                .runAsync(() -> { }, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                .thenCompose(ignored -> getTorrent(torrentHash, delay, retries - 1));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Set<TorrentFileList>> getTorrentFiles(final List<String> torrentHashes) {
+        return executeAction(GET_FILES, torrentHashes, List.of()).thenApply(messageParser::parseAsTorrentFileList);
+    }
+
+    @Override
+    public CompletableFuture<Optional<TorrentFileList>> getTorrentFiles(final String torrentHash) {
+        return getTorrentFiles(List.of(torrentHash)).thenApply(files -> files.stream().findFirst());
+    }
+
+    @Override
+    public CompletableFuture<Void> streamTorrentFiles(final List<String> torrentHashes,
+                                                      final Consumer<ChunkResult<Set<TorrentFileList>>> consumer) {
+        return streamChunks(GET_FILES, torrentHashes, this::getTorrentFiles, consumer);
+    }
+
+    @Override
+    public CompletableFuture<Set<TorrentProperties>> getTorrentProperties(final List<String> torrentHashes) {
+        return executeAction(GET_PROP, torrentHashes, List.of()).thenApply(jsonTorrentPropertiesMessage -> {
+            final Set<TorrentProperties> properties = messageParser.parseAsTorrentProperties(jsonTorrentPropertiesMessage);
+            trackerIndex.update(torrentHashes, properties);
+            return properties;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Optional<TorrentProperties>> getTorrentProperties(final String torrentHash) {
+        return getTorrentProperties(List.of(torrentHash)).thenApply(properties -> properties.stream().findFirst());
+    }
+
+    @Override
+    public CompletableFuture<Void> streamTorrentProperties(final List<String> torrentHashes,
+                                                           final Consumer<ChunkResult<Set<TorrentProperties>>> consumer) {
+        return streamChunks(GET_PROP, torrentHashes, this::getTorrentProperties, consumer);
+    }
+
+    /**
+     * The chunks wait for a single authentication, started before the first chunk.
+     */
+    private <T> CompletableFuture<Void> streamChunks(
+        final Action action,
+        final List<String> torrentHashes,
+        final Function<List<String>, CompletableFuture<T>> fetch,
+        final Consumer<ChunkResult<T>> consumer
+    ) {
+        final ConnectionParams connectionParams = client.getConnectionParams();
+        final List<List<String>> chunks = new HashChunker(serverURI, connectionParams.getMaxUrlLength()).split(action, torrentHashes);
+        return getAuthorizationData()
+            .handle((authData, error) -> ChunkedFetch.run(chunks, connectionParams.getFetchParallelism(), fetch, consumer))
+            .thenCompose(Function.identity());
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> getTorrentHashesByTracker(final String tracker) {
+        return refreshTrackerIndex().thenApply(ignored -> trackerIndex.getHashes(tracker));
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> getTrackers() {
+        return refreshTrackerIndex().thenApply(ignored -> trackerIndex.getTrackers());
+    }
+
+    /**
+     * The properties of the stale torrents are fetched one chunk after the other.
+     */
+    private CompletableFuture<Void> refreshTrackerIndex() {
+        return updateTorrentCache().thenCompose(ignored -> {
+            final HashChunker chunker = new HashChunker(serverURI, client.getConnectionParams().getMaxUrlLength());
+            CompletableFuture<Void> refresh = CompletableFuture.completedFuture(null);
+            for (List<String> chunk : chunker.split(GET_PROP, trackerIndex.getStaleHashes())) {
+                refresh = refresh.thenCompose(previous -> getTorrentProperties(chunk).thenAccept(properties -> { }));
+            }
+            return refresh;
+        });
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> startTorrent(final List<String> hashes) {
+        return executeBaseTorrentAction(START, hashes);
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> startTorrent(final String hash) {
+        return startTorrent(List.of(hash));
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> stopTorrent(final List<String> hashes) {
+        return executeBaseTorrentAction(STOP, hashes);
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> stopTorrent(final String hash) {
+        return stopTorrent(List.of(hash));
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> pauseTorrent(final List<String> hashes) {
+        return executeBaseTorrentAction(PAUSE, hashes);
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> pauseTorrent(final String hash) {
+        return pauseTorrent(List.of(hash));
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> forceStartTorrent(final List<String> hashes) {
+        return executeBaseTorrentAction(FORCE_START, hashes);
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> forceStartTorrent(final String hash) {
+        return forceStartTorrent(List.of(hash));
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> unpauseTorrent(final List<String> hashes) {
+        return executeBaseTorrentAction(UN_PAUSE, hashes);
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> unpauseTorrent(final String hash) {
+        return unpauseTorrent(List.of(hash));
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> recheckTorrent(final List<String> hashes) {
+        return executeBaseTorrentAction(RECHECK, hashes);
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> recheckTorrent(final String hash) {
+        return recheckTorrent(List.of(hash));
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> removeTorrent(final List<String> hashes) {
+        return executeBaseTorrentAction(REMOVE, hashes);
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> removeTorrent(final String hash) {
+        return removeTorrent(List.of(hash));
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> removeDataTorrent(final List<String> hashes) {
+        return executeBaseTorrentAction(REMOVE_DATA, hashes);
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> removeDataTorrent(final String hash) {
+        return removeDataTorrent(List.of(hash));
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> queueBottomTorrent(final List<String> hashes) {
+        return executeBaseTorrentAction(QUEUE_BOTTOM, hashes);
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> queueBottomTorrent(final String hash) {
+        return queueBottomTorrent(List.of(hash));
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> queueUpTorrent(final List<String> hashes) {
+        return executeBaseTorrentAction(QUEUE_UP, hashes);
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> queueUpTorrent(final String hash) {
+        return queueUpTorrent(List.of(hash));
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> queueDownTorrent(final List<String> hashes) {
+        return executeBaseTorrentAction(QUEUE_DOWN, hashes);
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> queueDownTorrent(final String hash) {
+        return queueDownTorrent(List.of(hash));
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> queueTopTorrent(final List<String> hashes) {
+        return executeBaseTorrentAction(QUEUE_TOP, hashes);
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> queueTopTorrent(final String hash) {
+        return queueTopTorrent(List.of(hash));
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> setTorrentFilePriority(final String hash, final Priority priority,
+                                                                   final List<Integer> fileIndices) {
+        final List<QueryParam> params = new ArrayList<>();
+        params.add(new QueryParam(PRIORITY_QUERY_PARAM_NAME, String.valueOf(priority.getValue())));
+        fileIndices.forEach(index -> params.add(new QueryParam(FILE_INDEX_QUERY_PARAM_NAME, String.valueOf(index))));
+        return executeAction(SET_PRIORITY, List.of(hash), params).thenApply(UTorrentWebAPIClientImpl::getResult);
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> setClientSetting(final SettingsKey settingKey, final String settingValue) {
+        return setClientSetting(settingKey.getKeyValue(), settingValue);
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> setClientSetting(final String settingName, final String settingValue) {
+        return setClientSetting(List.of(new QueryParam(settingName, settingValue)));
+    }
+
+    @Override
+    public CompletableFuture<RequestResult> setClientSetting(final List<QueryParam> settings) {
+        return executeAction(SET_SETTING, List.of(), settings).thenApply(UTorrentWebAPIClientImpl::getResult);
+    }
+
+    @Override
+    public CompletableFuture<ClientSettings> getClientSettings() {
+        return executeAction(GET_SETTINGS, List.of(), List.of()).thenApply(messageParser::parseAsClientSettings);
+    }
+
+    private CompletableFuture<RequestResult> executeBaseTorrentAction(final Action action, final List<String> hashes) {
+        if (actionBatcher != null) {
+            return actionBatcher.submit(action, hashes);
+        }
+        return executeAction(action, hashes, List.of()).thenApply(UTorrentWebAPIClientImpl::getResult);
+    }
+
+    private CompletableFuture<String> executeAction(final Action action, final List<String> torrentHashes, final List<QueryParam> queryParams) {
+        final ActionRequestTemplate template = requestTemplates.get(action);
+        return invokeWithAuthentication(authData -> Request
+            .builder()
+            .uri(template.toURI(authData.getToken(), torrentHashes, queryParams))
+            .name(action.getName())
+            .header("Cookie", authData.getGuidCookie())
+            .build(), client::get, true);
+    }
+
+    private static Throwable unwrap(final Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    @Override
+    public Optional<ConnectionPoolStats> getConnectionPoolStats() {
+        return client.getConnectionPoolStats();
+    }
+
+    @Override
+    public CompressionStats getCompressionStats() {
+        return client.getCompressionStats();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (actionBatcher != null) {
+            actionBatcher.close();
+        }
+        cacheUpdateExecutor.shutdown();
+        client.close();
+    }
+}
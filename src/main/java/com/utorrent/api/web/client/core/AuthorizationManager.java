@@ -0,0 +1,198 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.restclient.AuthorizationData;
+import com.utorrent.api.web.client.restclient.CallContext;
+import com.utorrent.api.web.client.restclient.exceptions.CallCancelledException;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Holds the authorization data of a blocking client, shared by the threads using the client.
+ * <p>
+ * Only one thread authenticates at a time, the threads needing the data meanwhile wait for that
+ * authentication rather than starting their own. Each authentication makes a new {@link Session}
+ * and a request rejected because of its token only drops the session it was sent with, so that
+ * requests failing with an old token do not drop the session another thread just opened.
+ * <p>
+ * When a refresh interval is set, a session older than the interval is renewed before it is
+ * expected to expire by the first thread noticing it, the other threads keep using the old
+ * session until the new one is ready. A failed renewal is not tried again before a fraction of
+ * the interval has passed, so that the requests made meanwhile do not each try it again.
+ */
+@Slf4j
+class AuthorizationManager {
+
+    /**
+     * The authorization data of one authentication.
+     */
+    static final class Session {
+        private final AuthorizationData authorizationData;
+        private final long version;
+        private final Instant openedAt;
+
+        private Session(AuthorizationData authorizationData, long version, Instant openedAt) {
+            this.authorizationData = authorizationData;
+            this.version = version;
+            this.openedAt = openedAt;
+        }
+
+        AuthorizationData getAuthorizationData() {
+            return authorizationData;
+        }
+
+        long getVersion() {
+            return version;
+        }
+    }
+
+    private static final long CANCELLATION_CHECK_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int RENEWAL_RETRY_FRACTION = 10;
+
+    private final Supplier<AuthorizationData> authenticator;
+    private final Duration refreshInterval;
+    private final Clock clock;
+    private final Lock lock;
+    private final AtomicLong rejectedSessions;
+    private volatile Session session;
+    private volatile Instant nextRenewalAttempt;
+    private long version;
+
+    /**
+     * @param authenticator   authenticates against the server, blocking
+     * @param refreshInterval the age at which a session is renewed, zero to renew sessions only when rejected
+     */
+    AuthorizationManager(Supplier<AuthorizationData> authenticator, Duration refreshInterval) {
+        this(authenticator, refreshInterval, Clock.systemUTC());
+    }
+
+    AuthorizationManager(@NonNull Supplier<AuthorizationData> authenticator, @NonNull Duration refreshInterval, @NonNull Clock clock) {
+        this.authenticator = authenticator;
+        this.refreshInterval = refreshInterval;
+        this.clock = clock;
+        this.lock = new ReentrantLock();
+        this.rejectedSessions = new AtomicLong();
+    }
+
+    /**
+     * @return the current session, opened by this thread or by another one when there was none
+     */
+    Session acquire() {
+        final Session current = session;
+        if (current != null) {
+            if (isDueForRefresh(current) && lock.tryLock()) {
+                try {
+                    if (session == current) {
+                        return renew(current);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return session != null ? session : acquire();
+        }
+
+        lockWithinCall();
+        try {
+            if (session == null) {
+                session = open();
+                nextRenewalAttempt = null;
+            }
+            return session;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the session when it is still the current one, a newer session is kept.
+     */
+    void invalidate(Session rejected) {
+        lock.lock();
+        try {
+            if (session == rejected) {
+                log.info("Authorization session {} was rejected", rejected.version);
+                rejectedSessions.incrementAndGet();
+                session = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the sessions dropped because the server rejected them
+     */
+    long getRejectedSessions() {
+        return rejectedSessions.get();
+    }
+
+    /**
+     * Waits for the thread authenticating no longer than the time left to the call of this thread,
+     * checking every so often whether the call was cancelled.
+     */
+    private void lockWithinCall() {
+        final Optional<CallContext> context = CallContext.current();
+        if (context.isEmpty()) {
+            lock.lock();
+            return;
+        }
+        try {
+            do {
+                context.get().check();
+            } while (!lock.tryLock(nextWait(context.get()), TimeUnit.NANOSECONDS));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CallCancelledException("The call was interrupted while waiting for authentication");
+        }
+    }
+
+    private static long nextWait(final CallContext context) {
+        return context.getRemaining().map(remaining -> Math.min(remaining.toNanos(), CANCELLATION_CHECK_INTERVAL))
+            .orElse(CANCELLATION_CHECK_INTERVAL);
+    }
+
+    private boolean isDueForRefresh(Session current) {
+        if (refreshInterval.isZero()) {
+            return false;
+        }
+        final Instant now = clock.instant();
+        final Instant retryAt = nextRenewalAttempt;
+        return !now.isBefore(current.openedAt.plus(refreshInterval)) && (retryAt == null || !now.isBefore(retryAt));
+    }
+
+    /**
+     * A failed renewal keeps the current session, it is renewed again once a tenth of the refresh
+     * interval has passed.
+     */
+    private Session renew(Session current) {
+        try {
+            final Session renewed = open();
+            if (renewed.authorizationData.getStatus() == AuthorizationData.Status.OK) {
+                session = renewed;
+                nextRenewalAttempt = null;
+                log.debug("Authorization session {} renewed by session {}", current.version, renewed.version);
+                return session;
+            }
+            log.warn("Impossible to renew authorization session {}: {}", current.version, renewed.authorizationData);
+        } catch (final RuntimeException e) {
+            log.warn("Impossible to renew authorization session {}: {}", current.version, e.getMessage());
+        }
+        nextRenewalAttempt = clock.instant().plus(refreshInterval.dividedBy(RENEWAL_RETRY_FRACTION));
+        return session;
+    }
+
+    private Session open() {
+        final AuthorizationData authorizationData = authenticator.get();
+        return new Session(authorizationData, ++version, clock.instant());
+    }
+}
@@ -0,0 +1,63 @@
+package com.utorrent.api.web.client.core;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The result of one chunk of hashes fetched by {@link UTorrentWebAPIClient#streamTorrentFiles}
+ * or {@link UTorrentWebAPIClient#streamTorrentProperties}: either the value parsed out of the
+ * response or the error the chunk failed with, the other chunks are not affected by the failure.
+ *
+ * @param <T> the type of the value of a chunk
+ */
+public final class ChunkResult<T> {
+
+    private final List<String> hashes;
+    private final T value;
+    private final Throwable error;
+
+    private ChunkResult(List<String> hashes, T value, Throwable error) {
+        this.hashes = Collections.unmodifiableList(hashes);
+        this.value = value;
+        this.error = error;
+    }
+
+    static <T> ChunkResult<T> success(List<String> hashes, T value) {
+        return new ChunkResult<>(hashes, value, null);
+    }
+
+    static <T> ChunkResult<T> failure(List<String> hashes, Throwable error) {
+        return new ChunkResult<>(hashes, null, error);
+    }
+
+    /**
+     * @return the hashes requested by the chunk
+     */
+    public List<String> getHashes() {
+        return hashes;
+    }
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+
+    /**
+     * @return the value of the chunk, empty when the chunk failed
+     */
+    public Optional<T> getValue() {
+        return Optional.ofNullable(value);
+    }
+
+    /**
+     * @return the error the chunk failed with, empty when the chunk succeeded
+     */
+    public Optional<Throwable> getError() {
+        return Optional.ofNullable(error);
+    }
+
+    @Override
+    public String toString() {
+        return "ChunkResult{hashes=" + hashes.size() + ", successful=" + isSuccessful() + '}';
+    }
+}
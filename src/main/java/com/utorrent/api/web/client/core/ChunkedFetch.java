@@ -0,0 +1,103 @@
+package com.utorrent.api.web.client.core;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Fetches chunks of hashes with at most a given number of chunks in flight, a chunk is started
+ * as soon as another one completes. The result of each chunk is given to the consumer as soon as
+ * the chunk completes, one at a time, and the failure of a chunk is given as its result.
+ * The consumer is guarded by a lock rather than a monitor, so a consumer blocking on a
+ * virtual thread does not pin its carrier.
+ *
+ * @param <T> the type of the value of a chunk
+ */
+final class ChunkedFetch<T> {
+
+    private final List<List<String>> chunks;
+    private final Function<List<String>, CompletableFuture<T>> fetch;
+    private final Consumer<ChunkResult<T>> consumer;
+    private final AtomicInteger nextChunk;
+    private final AtomicInteger remainingChunks;
+    private final CompletableFuture<Void> completion;
+    private final Lock consumerLock;
+
+    private ChunkedFetch(
+        final List<List<String>> chunks,
+        final Function<List<String>, CompletableFuture<T>> fetch,
+        final Consumer<ChunkResult<T>> consumer
+    ) {
+        this.chunks = chunks;
+        this.fetch = fetch;
+        this.consumer = consumer;
+        this.nextChunk = new AtomicInteger();
+        this.remainingChunks = new AtomicInteger(chunks.size());
+        this.completion = new CompletableFuture<>();
+        this.consumerLock = new ReentrantLock();
+    }
+
+    /**
+     * @return a future completed once the result of every chunk was consumed, completed
+     * exceptionally only when the consumer fails
+     */
+    static <T> CompletableFuture<Void> run(
+        final List<List<String>> chunks,
+        final int parallelism,
+        final Function<List<String>, CompletableFuture<T>> fetch,
+        final Consumer<ChunkResult<T>> consumer
+    ) {
+        if (chunks.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final ChunkedFetch<T> chunkedFetch = new ChunkedFetch<>(chunks, fetch, consumer);
+        for (int i = 0; i < Math.min(parallelism, chunks.size()); i++) {
+            chunkedFetch.startNextChunk();
+        }
+        return chunkedFetch.completion;
+    }
+
+    private void startNextChunk() {
+        final int index = nextChunk.getAndIncrement();
+        if (index >= chunks.size() || completion.isDone()) {
+            return;
+        }
+        final List<String> hashes = chunks.get(index);
+        CompletableFuture<T> chunk;
+        try {
+            chunk = fetch.apply(hashes);
+        } catch (final RuntimeException e) {
+            chunk = CompletableFuture.failedFuture(e);
+        }
+        chunk.whenComplete((value, error) -> {
+            consumerLock.lock();
+            try {
+                consumer.accept(error == null ? ChunkResult.success(hashes, value) : ChunkResult.failure(hashes, unwrap(error)));
+            } catch (final RuntimeException e) {
+                completion.completeExceptionally(e);
+                return;
+            } finally {
+                consumerLock.unlock();
+            }
+            if (remainingChunks.decrementAndGet() == 0) {
+                completion.complete(null);
+            } else {
+                startNextChunk();
+            }
+        });
+    }
+
+    private static Throwable unwrap(final Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
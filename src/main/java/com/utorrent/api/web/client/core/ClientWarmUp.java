@@ -0,0 +1,122 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.core.WarmUpReport.Phase;
+import com.utorrent.api.web.client.utils.ExecutionBackend;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs the phases of the warm-up of a client on threads of its own, each phase as soon as the
+ * phase it waits for, if any, is done, and times each of them.
+ */
+@Slf4j
+final class ClientWarmUp {
+
+    static final int MAX_THREADS = 4;
+
+    private static final int SAMPLE_TORRENTS = 64;
+    private static final int SAMPLE_BUILD = 40633;
+
+    private final ExecutorService executor;
+    private final LongSupplier nanoClock;
+    private final long startedAt;
+    private final Map<Phase, Duration> phaseDurations;
+    private final Map<Phase, Throwable> failures;
+    private final List<CompletableFuture<Void>> phases;
+
+    ClientWarmUp() {
+        this(ExecutionBackend.newTaskExecutor("utorrent-warm-up", MAX_THREADS), System::nanoTime);
+    }
+
+    ClientWarmUp(ExecutorService executor, LongSupplier nanoClock) {
+        this.executor = executor;
+        this.nanoClock = nanoClock;
+        this.startedAt = nanoClock.getAsLong();
+        this.phaseDurations = Collections.synchronizedMap(new EnumMap<>(Phase.class));
+        this.failures = Collections.synchronizedMap(new EnumMap<>(Phase.class));
+        this.phases = new ArrayList<>();
+    }
+
+    CompletableFuture<Void> phase(Phase phase, Runnable task) {
+        return track(CompletableFuture.runAsync(() -> run(phase, task), executor));
+    }
+
+    /**
+     * @return the phase, run once the phase it waits for is done and skipped when that phase failed
+     */
+    CompletableFuture<Void> phase(Phase phase, CompletableFuture<Void> waitedFor, Runnable task) {
+        return track(waitedFor.thenRunAsync(() -> run(phase, task), executor));
+    }
+
+    private CompletableFuture<Void> track(CompletableFuture<Void> phase) {
+        phases.add(phase);
+        return phase;
+    }
+
+    private void run(Phase phase, Runnable task) {
+        final long phaseStartedAt = nanoClock.getAsLong();
+        try {
+            task.run();
+            phaseDurations.put(phase, Duration.ofNanos(nanoClock.getAsLong() - phaseStartedAt));
+        } catch (final RuntimeException e) {
+            failures.put(phase, e);
+            log.warn("Warm-up phase {} failed: {}", phase, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * @return the report, once every phase is done or skipped, the threads of the warm-up being released
+     */
+    CompletableFuture<WarmUpReport> report() {
+        return CompletableFuture
+            .allOf(phases.toArray(CompletableFuture[]::new))
+            .handle((ignored, error) -> {
+                executor.shutdown();
+                final WarmUpReport report = new WarmUpReport(
+                    Map.copyOf(phaseDurations),
+                    Map.copyOf(failures),
+                    Duration.ofNanos(nanoClock.getAsLong() - startedAt)
+                );
+                log.info("Warm-up done in {}: {}", report.getTotal(), report.getPhaseDurations());
+                return report;
+            });
+    }
+
+    /**
+     * Parses a list of sample torrents, both as new torrents and as rows updated in place,
+     * and sample settings, the given number of times.
+     */
+    static void warmUpParser(MessageParser messageParser, int iterations) {
+        final String torrentList = sampleTorrentList();
+        final String settings = "{\"build\":" + SAMPLE_BUILD + ",\"settings\":[[\"int_setting\",0,\"6\"],"
+            + "[\"boolean_setting\",1,\"true\"],[\"string_setting\",2,\"string\"]]}";
+        for (int i = 0; i < iterations; i++) {
+            messageParser.parseAsTorrentListSnapshot(torrentList);
+            messageParser.parseAsRawTorrentListSnapshot(torrentList);
+            messageParser.parseAsClientSettings(settings);
+        }
+    }
+
+    private static String sampleTorrentList() {
+        final StringBuilder message = new StringBuilder("{\"build\":").append(SAMPLE_BUILD).append(",\"torrents\":[");
+        for (int i = 0; i < SAMPLE_TORRENTS; i++) {
+            if (i > 0) {
+                message.append(',');
+            }
+            message.append(String.format("[\"%040X\",201,\"warm-up-%d\",1574985390,1000,1574985390,126042112,80,30922,205,-1,\"\","
+                + "24,179,0,156,262078,%d,0,\"\",\"\",\"Seeding 100.0 %%\",\"%d\",1437174006,1437175006,\"\",\"downloads\",0,"
+                + "\"76346186\"]", i, i, i, i));
+        }
+        return message.append("],\"label\":[],\"torrentc\":\"1\"}").toString();
+    }
+}
@@ -0,0 +1,102 @@
+package com.utorrent.api.web.client.core;
+
+/**
+ * Downloaded and uploaded byte sums over fixed-size time buckets, kept in ring arrays
+ * of running totals: the sum over a range of buckets is the difference of two totals.
+ * Buckets without traffic carry the previous total forward so that any retained bucket
+ * can be read directly.
+ */
+final class CumulativeSeries {
+
+    private final long bucketMillis;
+    private final long[] downloadedTotals;
+    private final long[] uploadedTotals;
+
+    private long firstBucket;
+    private long latestBucket;
+    private long downloadedTotal;
+    private long uploadedTotal;
+
+    CumulativeSeries(long bucketMillis, int retainedBuckets) {
+        this.bucketMillis = bucketMillis;
+        this.downloadedTotals = new long[retainedBuckets];
+        this.uploadedTotals = new long[retainedBuckets];
+        this.firstBucket = Long.MIN_VALUE;
+    }
+
+    /**
+     * Adds bytes to the bucket of the time provided. Times earlier than the latest
+     * bucket written are counted in the latest bucket.
+     */
+    void add(long timeMillis, long downloaded, long uploaded) {
+        advanceTo(bucketOf(timeMillis));
+        downloadedTotal += downloaded;
+        uploadedTotal += uploaded;
+        int slot = slot(latestBucket);
+        downloadedTotals[slot] = downloadedTotal;
+        uploadedTotals[slot] = uploadedTotal;
+    }
+
+    long bucketOf(long timeMillis) {
+        return Math.floorDiv(timeMillis, bucketMillis);
+    }
+
+    long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    /**
+     * @return the earliest bucket sums can still be computed from, older totals having been overwritten
+     */
+    long earliestBucket() {
+        if (firstBucket == Long.MIN_VALUE || firstBucket > latestBucket - downloadedTotals.length) {
+            return Long.MIN_VALUE;
+        }
+        return latestBucket - downloadedTotals.length + 2;
+    }
+
+    /**
+     * @param fromBucket the first bucket, inclusive
+     * @param toBucket the last bucket, exclusive
+     * @return the bytes downloaded over the buckets
+     */
+    long downloadedBetween(long fromBucket, long toBucket) {
+        return toBucket <= fromBucket ? 0 : totalAt(downloadedTotals, downloadedTotal, toBucket - 1) - totalAt(downloadedTotals, downloadedTotal, fromBucket - 1);
+    }
+
+    long uploadedBetween(long fromBucket, long toBucket) {
+        return toBucket <= fromBucket ? 0 : totalAt(uploadedTotals, uploadedTotal, toBucket - 1) - totalAt(uploadedTotals, uploadedTotal, fromBucket - 1);
+    }
+
+    private long totalAt(long[] totals, long total, long bucket) {
+        if (firstBucket == Long.MIN_VALUE || bucket < firstBucket) {
+            return 0;
+        }
+        if (bucket >= latestBucket) {
+            return total;
+        }
+        return totals[slot(bucket)];
+    }
+
+    private void advanceTo(long bucket) {
+        if (firstBucket == Long.MIN_VALUE) {
+            firstBucket = bucket;
+            latestBucket = bucket;
+            return;
+        }
+        if (bucket <= latestBucket) {
+            return;
+        }
+        long filled = Math.min(bucket - latestBucket, downloadedTotals.length);
+        for (long carried = bucket - filled + 1; carried <= bucket; carried++) {
+            int slot = slot(carried);
+            downloadedTotals[slot] = downloadedTotal;
+            uploadedTotals[slot] = uploadedTotal;
+        }
+        latestBucket = bucket;
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) downloadedTotals.length);
+    }
+}
@@ -0,0 +1,42 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.core.entities.Torrent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index from torrent hash to the instances of a fleet whose cache holds the torrent,
+ * fed by a listener registered on the cache of each instance.
+ */
+class FleetHashIndex {
+
+    private final Map<String, Set<String>> instancesByHash = new ConcurrentHashMap<>();
+
+    TorrentsCacheListener listenerFor(String instanceId) {
+        return new TorrentsCacheListener() {
+            @Override
+            public void onTorrentUpdated(Torrent torrent) {
+                instancesByHash.compute(torrent.getHash(), (ignored, instances) -> {
+                    Set<String> updated = instances == null ? ConcurrentHashMap.newKeySet() : instances;
+                    updated.add(instanceId);
+                    return updated;
+                });
+            }
+
+            @Override
+            public void onTorrentRemoved(String hash) {
+                instancesByHash.computeIfPresent(hash, (ignored, instances) -> {
+                    instances.remove(instanceId);
+                    return instances.isEmpty() ? null : instances;
+                });
+            }
+        };
+    }
+
+    Set<String> getInstances(String hash) {
+        Set<String> instances = instancesByHash.get(hash);
+        return instances == null ? Set.of() : Set.copyOf(instances);
+    }
+}
@@ -0,0 +1,20 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.core.entities.Torrent.TorrentStatus;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Totals over the torrents cached for all the instances of a {@link UTorrentFleetClient}.
+ * A torrent present on several instances is counted once per instance.
+ */
+@Data
+public class FleetStats {
+    private final int instances;
+    private final int failingInstances;
+    private final int torrents;
+    private final long downloadSpeed;
+    private final long uploadSpeed;
+    private final Map<TorrentStatus, Integer> torrentsByStatus;
+}
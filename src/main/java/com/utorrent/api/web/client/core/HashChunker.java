@@ -0,0 +1,53 @@
+package com.utorrent.api.web.client.core;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.utorrent.api.web.client.core.UTorrentWebAPIClientImpl.ACTION_QUERY_PARAM_NAME;
+import static com.utorrent.api.web.client.core.UTorrentWebAPIClientImpl.HASH_QUERY_PARAM_NAME;
+
+/**
+ * Splits the hashes of an action in chunks whose request URL fits in a maximum length.
+ */
+final class HashChunker {
+
+    /**
+     * URL length left for the token parameter, added when the request is sent.
+     */
+    static final int RESERVED_URL_LENGTH = 128;
+
+    private final int maxUrlLength;
+    private final int baseUrlLength;
+
+    HashChunker(final URI serverURI, final int maxUrlLength) {
+        this.maxUrlLength = maxUrlLength;
+        this.baseUrlLength = serverURI.toString().length() + ACTION_QUERY_PARAM_NAME.length() + 2 + RESERVED_URL_LENGTH;
+    }
+
+    /**
+     * @return the chunks of the hashes in their order, each chunk has at least one hash
+     */
+    List<List<String>> split(final Action action, final Iterable<String> hashes) {
+        final int available = maxUrlLength - baseUrlLength - action.getName().length();
+        final List<List<String>> chunks = new ArrayList<>();
+        List<String> chunk = new ArrayList<>();
+        int length = 0;
+        for (String hash : hashes) {
+            final int hashLength = HASH_QUERY_PARAM_NAME.length() + 2 + URLEncoder.encode(hash, StandardCharsets.UTF_8).length();
+            if (!chunk.isEmpty() && length + hashLength > available) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                length = 0;
+            }
+            chunk.add(hash);
+            length += hashLength;
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+}
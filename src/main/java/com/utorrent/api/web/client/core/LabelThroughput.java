@@ -0,0 +1,56 @@
+package com.utorrent.api.web.client.core;
+
+import java.time.Instant;
+
+/**
+ * The bytes downloaded and uploaded by the torrents of a label over a time window,
+ * as returned by {@link LabelThroughputRollup}. The window actually summed can be
+ * larger than the window asked for when it was answered from hourly buckets.
+ */
+public final class LabelThroughput {
+
+    private final String label;
+    private final Instant from;
+    private final Instant to;
+    private final long downloaded;
+    private final long uploaded;
+
+    LabelThroughput(String label, Instant from, Instant to, long downloaded, long uploaded) {
+        this.label = label;
+        this.from = from;
+        this.to = to;
+        this.downloaded = downloaded;
+        this.uploaded = uploaded;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return the start of the window summed, inclusive
+     */
+    public Instant getFrom() {
+        return from;
+    }
+
+    /**
+     * @return the end of the window summed, exclusive
+     */
+    public Instant getTo() {
+        return to;
+    }
+
+    public long getDownloaded() {
+        return downloaded;
+    }
+
+    public long getUploaded() {
+        return uploaded;
+    }
+
+    @Override
+    public String toString() {
+        return "LabelThroughput(label=" + label + ", from=" + from + ", to=" + to + ", downloaded=" + downloaded + ", uploaded=" + uploaded + ")";
+    }
+}
@@ -0,0 +1,188 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.core.entities.Torrent;
+import lombok.NonNull;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Sums the bytes downloaded and uploaded per label, fed by the updates of a {@link TorrentsCache}.
+ * <p>
+ * Each update of a torrent adds the increase of its downloaded and uploaded counters, since the
+ * previous update, to the label the torrent has at that time. A torrent seen for the first time
+ * only sets the counters the next increases are computed from, decreasing counters are ignored.
+ * Only the last counters of each torrent are kept, no history.
+ * <p>
+ * Increases are summed into minute buckets and into the hourly buckets they compact to, each
+ * kept as running totals so that the sum over any window is read in constant time. Windows
+ * within the retained minutes are answered to the minute, older windows are widened to whole
+ * hours and windows older than the retained hours are cut to the hours retained.
+ */
+public class LabelThroughputRollup implements TorrentsCacheListener {
+
+    public static final int DEFAULT_RETAINED_MINUTES = 180;
+    public static final int DEFAULT_RETAINED_HOURS = 24 * 31;
+
+    private static final long MINUTE_MILLIS = Duration.ofMinutes(1).toMillis();
+    private static final long HOUR_MILLIS = Duration.ofHours(1).toMillis();
+
+    private final int retainedMinutes;
+    private final int retainedHours;
+    private final Clock clock;
+    private final Map<String, Counters> countersByHash;
+    private final Map<String, LabelSeries> seriesByLabel;
+    private final ReadWriteLock lock;
+
+    public LabelThroughputRollup() {
+        this(DEFAULT_RETAINED_MINUTES, DEFAULT_RETAINED_HOURS);
+    }
+
+    public LabelThroughputRollup(int retainedMinutes, int retainedHours) {
+        this(retainedMinutes, retainedHours, Clock.systemUTC());
+    }
+
+    LabelThroughputRollup(int retainedMinutes, int retainedHours, @NonNull Clock clock) {
+        if (retainedMinutes <= 0 || retainedHours <= 0) {
+            throw new IllegalArgumentException("Retained minutes and hours must be positive");
+        }
+        this.retainedMinutes = retainedMinutes;
+        this.retainedHours = retainedHours;
+        this.clock = clock;
+        this.countersByHash = new HashMap<>();
+        this.seriesByLabel = new HashMap<>();
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    @Override
+    public void onTorrentUpdated(Torrent torrent) {
+        lock.writeLock().lock();
+        try {
+            Counters counters = countersByHash.get(torrent.getHash());
+            if (counters == null) {
+                countersByHash.put(torrent.getHash(), new Counters(torrent.getDownloaded(), torrent.getUploaded()));
+                return;
+            }
+            long downloaded = Math.max(0, torrent.getDownloaded() - counters.downloaded);
+            long uploaded = Math.max(0, torrent.getUploaded() - counters.uploaded);
+            counters.downloaded = torrent.getDownloaded();
+            counters.uploaded = torrent.getUploaded();
+            if (downloaded != 0 || uploaded != 0) {
+                seriesByLabel.computeIfAbsent(labelOf(torrent), key -> new LabelSeries(retainedMinutes, retainedHours))
+                        .add(clock.millis(), downloaded, uploaded);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onTorrentRemoved(String hash) {
+        lock.writeLock().lock();
+        try {
+            countersByHash.remove(hash);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the labels bytes were recorded for, torrents without label are under the empty label
+     */
+    public Set<String> getLabels() {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(seriesByLabel.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param label the label, empty for the torrents without label
+     * @param from the start of the window, inclusive
+     * @param to the end of the window, exclusive
+     * @return the bytes downloaded and uploaded by the torrents of the label over the window
+     */
+    public LabelThroughput getThroughput(@NonNull String label, @NonNull Instant from, @NonNull Instant to) {
+        lock.readLock().lock();
+        try {
+            return sum(label, seriesByLabel.get(label), from, to);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param from the start of the window, inclusive
+     * @param to the end of the window, exclusive
+     * @return the bytes downloaded and uploaded over the window, by label
+     */
+    public Map<String, LabelThroughput> getThroughputByLabel(@NonNull Instant from, @NonNull Instant to) {
+        lock.readLock().lock();
+        try {
+            Map<String, LabelThroughput> throughputs = new HashMap<>();
+            seriesByLabel.forEach((label, series) -> throughputs.put(label, sum(label, series, from, to)));
+            return throughputs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static LabelThroughput sum(String label, LabelSeries series, Instant from, Instant to) {
+        long fromMillis = from.toEpochMilli();
+        long toMillis = to.toEpochMilli();
+        if (series == null) {
+            return new LabelThroughput(label, from, to, 0, 0);
+        }
+        CumulativeSeries buckets = series.minutes;
+        if (buckets.bucketOf(fromMillis) < buckets.earliestBucket()) {
+            buckets = series.hours;
+        }
+        long fromBucket = Math.max(buckets.bucketOf(fromMillis), buckets.earliestBucket());
+        long toBucket = buckets.bucketOf(toMillis - 1) + 1;
+        return new LabelThroughput(
+                label,
+                Instant.ofEpochMilli(fromBucket * buckets.getBucketMillis()),
+                Instant.ofEpochMilli(toBucket * buckets.getBucketMillis()),
+                buckets.downloadedBetween(fromBucket, toBucket),
+                buckets.uploadedBetween(fromBucket, toBucket)
+        );
+    }
+
+    private static String labelOf(Torrent torrent) {
+        return torrent.getLabel() == null ? "" : torrent.getLabel();
+    }
+
+    private static final class Counters {
+        private long downloaded;
+        private long uploaded;
+
+        private Counters(long downloaded, long uploaded) {
+            this.downloaded = downloaded;
+            this.uploaded = uploaded;
+        }
+    }
+
+    private static final class LabelSeries {
+        private final CumulativeSeries minutes;
+        private final CumulativeSeries hours;
+
+        private LabelSeries(int retainedMinutes, int retainedHours) {
+            this.minutes = new CumulativeSeries(MINUTE_MILLIS, retainedMinutes);
+            this.hours = new CumulativeSeries(HOUR_MILLIS, retainedHours);
+        }
+
+        private void add(long timeMillis, long downloaded, long uploaded) {
+            minutes.add(timeMillis, downloaded, uploaded);
+            hours.add(timeMillis, downloaded, uploaded);
+        }
+    }
+}
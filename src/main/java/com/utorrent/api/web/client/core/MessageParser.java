@@ -18,7 +18,9 @@ import com.utorrent.api.web.client.core.entities.TorrentProperties.State;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static com.utorrent.api.web.client.core.TorrentSnapshotField.TORRENT_APP_UPDATE_URL;
@@ -88,7 +90,102 @@ public class MessageParser {
         return torrentListSnapshot;
     }
 
-    private Torrent parseAsTorrent(int build, JsonArray jsonTorrentMessage) {
+    RawTorrentListSnapshot parseAsRawTorrentListSnapshot(String jsonMessage) {
+        JsonObject jsonTorrentSnapshot = jsonParser.fromJson(jsonMessage, JsonObject.class);
+        RawTorrentListSnapshot snapshot = new RawTorrentListSnapshot(
+                jsonTorrentSnapshot.get("build").getAsInt(),
+                jsonTorrentSnapshot.get("torrentc").getAsString()
+        );
+
+        for (String rowsName : new String[]{"torrents", "torrentp"}) {
+            JsonArray array = jsonTorrentSnapshot.getAsJsonArray(rowsName);
+            if (nonNull(array)) {
+                for (JsonElement torrentJson : array) {
+                    snapshot.addTorrentRow(torrentJson.getAsJsonArray());
+                }
+            }
+        }
+
+        JsonArray array = jsonTorrentSnapshot.getAsJsonArray("torrentm");
+        if (nonNull(array)) {
+            for (JsonElement hash : array) {
+                snapshot.addTorrentToDelete(hash.getAsString());
+            }
+        }
+        return snapshot;
+    }
+
+    String getTorrentHash(JsonArray jsonTorrentMessage) {
+        return TORRENT_HASH.getAsString(jsonTorrentMessage);
+    }
+
+    /**
+     * Writes a torrent row into an existing torrent field by field. Values equal to
+     * the ones already held are left untouched so that no new object is retained.
+     *
+     * @return false when the torrent cannot be updated in place because one of its
+     * immutable dates has changed, in which case it was not modified
+     */
+    boolean updateTorrent(int build, JsonArray jsonTorrentMessage, Torrent torrent) {
+        if (isAtLeastBuild221(build)) {
+            long dateAdded = TORRENT_DATE_ADDED.getAsLong(jsonTorrentMessage);
+            long dateCompleted = TORRENT_DATE_COMPLETED.getAsLong(jsonTorrentMessage);
+            if (!isSameDate(torrent.getDateAdded(), dateAdded) || !isSameDate(torrent.getDateCompleted(), dateCompleted)) {
+                return false;
+            }
+        }
+
+        int status = TORRENT_STATUS.getAsInt(jsonTorrentMessage);
+        if (TorrentStatus.encodeStatus(torrent.getStatuses()) != TorrentStatus.encodeStatus(status)) {
+            torrent.setStatuses(TorrentStatus.decodeStatus(status));
+        }
+        torrent.setName(keep(torrent.getName(), TORRENT_NAME.getAsString(jsonTorrentMessage)));
+        torrent.setSize(TORRENT_SIZE.getAsLong(jsonTorrentMessage));
+        torrent.setProgress(TORRENT_PROGRESS.getAsLong(jsonTorrentMessage) / 10);
+        torrent.setDownloaded(TORRENT_DOWNLOADED.getAsLong(jsonTorrentMessage));
+        torrent.setUploaded(TORRENT_UPLOADED.getAsLong(jsonTorrentMessage));
+        torrent.setRatio(TORRENT_RATIO.getAsFloat(jsonTorrentMessage) / 1000);
+        torrent.setUploadSpeed(TORRENT_UPSPEED.getAsLong(jsonTorrentMessage));
+        torrent.setDownloadSpeed(TORRENT_DOWNSPEED.getAsLong(jsonTorrentMessage));
+        long eta = TORRENT_ETA.getAsLong(jsonTorrentMessage);
+        if (torrent.getEta() == null || torrent.getEta().getSeconds() != eta) {
+            torrent.setEta(Duration.ofSeconds(eta));
+        }
+        torrent.setLabel(keep(torrent.getLabel(), TORRENT_LABEL.getAsString(jsonTorrentMessage)));
+        torrent.setPeersConnected(TORRENT_PEERS_CONNECTED.getAsInt(jsonTorrentMessage));
+        torrent.setPeersInSwarm(TORRENT_PEERS_SWARM.getAsInt(jsonTorrentMessage));
+        torrent.setSeedsConnected(TORRENT_SEEDS_CONNECTED.getAsInt(jsonTorrentMessage));
+        torrent.setSeedsInSwarm(TORRENT_SEEDS_SWARM.getAsInt(jsonTorrentMessage));
+        torrent.setAvailability(TORRENT_AVAILABILITY.getAsLong(jsonTorrentMessage));
+        torrent.setTorrentQueueOrder(TORRENT_QUEUE_POSITION.getAsLong(jsonTorrentMessage));
+        torrent.setRemaining(TORRENT_REMAINING.getAsLong(jsonTorrentMessage));
+
+        if (isAtLeastBuild221(build)) {
+            torrent.setStatusMessage(keep(torrent.getStatusMessage(), TORRENT_STATUS_MESSAGE.getAsString(jsonTorrentMessage)));
+            torrent.setStreamId(keep(torrent.getStreamId(), TORRENT_STREAM_ID.getAsString(jsonTorrentMessage)));
+            torrent.setDownloadURL(keep(torrent.getDownloadURL(), TORRENT_DOWNLOAD_URL.getAsString(jsonTorrentMessage)));
+            torrent.setRssFeedURL(keep(torrent.getRssFeedURL(), TORRENT_RSS_FEED_URL.getAsString(jsonTorrentMessage)));
+            torrent.setAppUpdateURL(keep(torrent.getAppUpdateURL(), TORRENT_APP_UPDATE_URL.getAsString(jsonTorrentMessage)));
+            String path = TORRENT_SAVE_PATH.getAsString(jsonTorrentMessage);
+            if (torrent.getPath() == null || !torrent.getPath().toString().equals(path)) {
+                torrent.setPath(Paths.get(path));
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSameDate(Instant current, long epochSeconds) {
+        if (current == null) {
+            return epochSeconds <= 0;
+        }
+        return current.getEpochSecond() == epochSeconds;
+    }
+
+    private static String keep(String current, String value) {
+        return value.equals(current) ? current : value;
+    }
+
+    Torrent parseAsTorrent(int build, JsonArray jsonTorrentMessage) {
         TorrentBuilder torrentBuilder = Torrent.builder()
                 .hash(TORRENT_HASH.getAsString(jsonTorrentMessage))
                 .statuses(TorrentStatus.decodeStatus(TORRENT_STATUS.getAsInt(jsonTorrentMessage)))
@@ -199,7 +296,7 @@ public class MessageParser {
 
             TorrentProperties property = TorrentProperties.builder()
                     .hash(object.get("hash").getAsString())
-                    .trackers(object.get("trackers").getAsString().split("\\r\\n"))
+                    .trackers(splitLines(object.get("trackers").getAsString()))
                     .uploadRate(object.get("ulrate").getAsInt())
                     .downloadRate(object.get("dlrate").getAsInt())
                     .superSeed(State.getStateByValue(object.get("superseed").getAsInt()))
@@ -217,5 +314,32 @@ public class MessageParser {
         return properties;
     }
 
+    /**
+     * Splits the tracker list on CRLF without going through a regular expression.
+     * Like {@link String#split(String)}, empty lines between tiers are kept and
+     * trailing empty lines are dropped.
+     */
+    static String[] splitLines(String text) {
+        int end = text.indexOf("\r\n");
+        if (end < 0) {
+            return new String[]{text};
+        }
+
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        while (end >= 0) {
+            lines.add(text.substring(start, end));
+            start = end + 2;
+            end = text.indexOf("\r\n", start);
+        }
+        lines.add(text.substring(start));
+
+        int size = lines.size();
+        while (size > 0 && lines.get(size - 1).isEmpty()) {
+            size--;
+        }
+        return lines.subList(0, size).toArray(new String[0]);
+    }
+
 
 }
@@ -0,0 +1,187 @@
+package com.utorrent.api.web.client.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Sorted set backed by a treap whose nodes keep the size of their subtree, so that
+ * an element can be reached by its rank. Insertion, removal and rank lookups run in
+ * O(log n), reading k consecutive elements from a rank runs in O(log n + k).
+ * The tree is not thread safe.
+ */
+class OrderStatisticTree<E> {
+
+    private final Comparator<? super E> comparator;
+    private final SplittableRandom random;
+    private Node<E> root;
+
+    OrderStatisticTree(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+        this.random = new SplittableRandom();
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    boolean add(E element) {
+        int sizeBefore = size();
+        root = insert(root, new Node<>(element, random.nextInt()));
+        return size() != sizeBefore;
+    }
+
+    boolean remove(E element) {
+        int sizeBefore = size();
+        root = delete(root, element);
+        return size() != sizeBefore;
+    }
+
+    void clear() {
+        root = null;
+    }
+
+    /**
+     * @return the number of elements strictly lower than the one provided
+     */
+    int rank(E element) {
+        int rank = 0;
+        Node<E> node = root;
+        while (node != null) {
+            int comparison = comparator.compare(element, node.element);
+            if (comparison <= 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * @param from the rank of the first element to return
+     * @param count the maximum number of elements to return
+     * @return the elements with rank in [from, from + count), in order
+     */
+    List<E> range(int from, int count) {
+        List<E> result = new ArrayList<>(Math.max(0, Math.min(count, size() - from)));
+        if (from >= 0 && count > 0) {
+            collect(root, from, from + count, 0, result);
+        }
+        return result;
+    }
+
+    private void collect(Node<E> node, int from, int to, int offset, List<E> result) {
+        if (node == null || offset >= to) {
+            return;
+        }
+        int nodeRank = offset + size(node.left);
+        if (from < nodeRank) {
+            collect(node.left, from, to, offset, result);
+        }
+        if (nodeRank >= from && nodeRank < to) {
+            result.add(node.element);
+        }
+        if (nodeRank + 1 < to) {
+            collect(node.right, from, to, nodeRank + 1, result);
+        }
+    }
+
+    private Node<E> insert(Node<E> node, Node<E> newNode) {
+        if (node == null) {
+            return newNode;
+        }
+        int comparison = comparator.compare(newNode.element, node.element);
+        if (comparison == 0) {
+            return node;
+        }
+        if (comparison < 0) {
+            node.left = insert(node.left, newNode);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, newNode);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    private Node<E> delete(Node<E> node, E element) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = comparator.compare(element, node.element);
+        if (comparison < 0) {
+            node.left = delete(node.left, element);
+        } else if (comparison > 0) {
+            node.right = delete(node.right, element);
+        } else {
+            return merge(node.left, node.right);
+        }
+        node.update();
+        return node;
+    }
+
+    private Node<E> merge(Node<E> left, Node<E> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private Node<E> rotateRight(Node<E> node) {
+        Node<E> left = node.left;
+        node.left = left.right;
+        left.right = node;
+        node.update();
+        left.update();
+        return left;
+    }
+
+    private Node<E> rotateLeft(Node<E> node) {
+        Node<E> right = node.right;
+        node.right = right.left;
+        right.left = node;
+        node.update();
+        right.update();
+        return right;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static class Node<E> {
+        private final E element;
+        private final int priority;
+        private Node<E> left;
+        private Node<E> right;
+        private int size;
+
+        private Node(E element, int priority) {
+            this.element = element;
+            this.priority = priority;
+            this.size = 1;
+        }
+
+        private void update() {
+            size = 1 + size(left) + size(right);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.utorrent.api.web.client.core;
+
+import com.google.gson.JsonArray;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A torrent list snapshot whose torrent rows are left as received from the server,
+ * so that they can be written straight into the entries of a {@link TorrentsCache}
+ * updated in place.
+ */
+class RawTorrentListSnapshot {
+
+    private final int build;
+    private final List<JsonArray> torrentRows;
+    private final Set<String> torrentToRemoveHashes;
+    private final String cacheID;
+
+    RawTorrentListSnapshot(int build, String cacheID) {
+        this.build = build;
+        this.cacheID = cacheID;
+        this.torrentRows = new ArrayList<>();
+        this.torrentToRemoveHashes = new HashSet<>();
+    }
+
+    void addTorrentRow(JsonArray row) {
+        torrentRows.add(row);
+    }
+
+    void addTorrentToDelete(String hash) {
+        torrentToRemoveHashes.add(hash);
+    }
+
+    int getBuild() {
+        return build;
+    }
+
+    List<JsonArray> getTorrentRows() {
+        return torrentRows;
+    }
+
+    Set<String> getTorrentToRemoveHashes() {
+        return torrentToRemoveHashes;
+    }
+
+    String getCacheID() {
+        return cacheID;
+    }
+}
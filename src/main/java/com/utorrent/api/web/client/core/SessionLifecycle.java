@@ -0,0 +1,60 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.restclient.AuthorizationData;
+import com.utorrent.api.web.client.restclient.HttpTransport;
+import com.utorrent.api.web.client.restclient.exceptions.UnauthorizedException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opens the sessions of a blocking client with the server over the connection pool of its
+ * {@link HttpTransport}, which lives as long as the client.
+ * <p>
+ * An expired session is recovered by dropping the session state of the transport, such as the
+ * cookies and the cached authentication of Apache HttpClient, and authenticating again, the
+ * HTTP client and its pooled connections being kept.
+ */
+@Slf4j
+final class SessionLifecycle {
+
+    private final HttpTransport client;
+    private final AtomicLong authentications;
+    private final AtomicLong sessionResets;
+
+    SessionLifecycle(HttpTransport client) {
+        this.client = client;
+        this.authentications = new AtomicLong();
+        this.sessionResets = new AtomicLong();
+    }
+
+    /**
+     * Called by the {@link AuthorizationManager}, one thread at a time.
+     */
+    AuthorizationData authenticate() {
+        AuthorizationData authorizationData = authenticateOnce();
+        log.info("AuthorizationData: {} ", authorizationData);
+
+        if (authorizationData.getStatus() == AuthorizationData.Status.EXPIRED) {
+            log.warn("Session has expired. Resetting session...");
+            sessionResets.incrementAndGet();
+            client.resetSession();
+            authorizationData = authenticateOnce();
+            log.info("AuthorizationData after authentication with session reset: {} ", authorizationData);
+
+            if (authorizationData.getStatus() != AuthorizationData.Status.OK) {
+                throw new UnauthorizedException(401, "Failed to process the Set-Cookie header part of GUID");
+            }
+        }
+        return authorizationData;
+    }
+
+    private AuthorizationData authenticateOnce() {
+        authentications.incrementAndGet();
+        return client.authenticate();
+    }
+
+    SessionStats getStats(long rejectedSessions) {
+        return new SessionStats(authentications.get(), rejectedSessions, sessionResets.get());
+    }
+}
@@ -0,0 +1,22 @@
+package com.utorrent.api.web.client.core;
+
+import lombok.Data;
+
+/**
+ * Counters of the sessions a blocking client opened with uTorrent since it was created.
+ */
+@Data
+public class SessionStats {
+    /**
+     * The authentications sent to the server, the first one, renewals and re-authentications included.
+     */
+    private final long authentications;
+    /**
+     * The sessions the server rejected, each followed by a re-authentication.
+     */
+    private final long rejectedSessions;
+    /**
+     * The expired sessions whose cookies were dropped before authenticating again.
+     */
+    private final long sessionResets;
+}
@@ -0,0 +1,150 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.core.entities.Torrent;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.utorrent.api.web.client.core.TorrentSnapshotField.TORRENT_STATUS;
+
+/**
+ * A view of the torrents of a {@link TorrentsCache} kept sorted by one field, then by hash.
+ * The view is registered on the cache with {@link TorrentsCache#registerSortedView} and
+ * is updated as changes are applied to the cache, so reading a page or the top entries
+ * costs O(log n + k) instead of a sort of the whole cache.
+ */
+public class SortedTorrentView implements TorrentsCacheListener {
+
+    private final TorrentsCache cache;
+    private final TorrentSnapshotField field;
+    private final boolean descending;
+    private final OrderStatisticTree<Key> tree;
+    private final Map<String, Key> keysByHash;
+
+    SortedTorrentView(TorrentsCache cache, TorrentSnapshotField field, boolean descending) {
+        if (field == TORRENT_STATUS) {
+            throw new IllegalArgumentException("Torrents cannot be sorted by status");
+        }
+        this.cache = cache;
+        this.field = field;
+        this.descending = descending;
+        this.tree = new OrderStatisticTree<>(comparator(field, descending));
+        this.keysByHash = new HashMap<>();
+    }
+
+    public TorrentSnapshotField getField() {
+        return field;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public int size() {
+        return cache.withReadLock(tree::size);
+    }
+
+    /**
+     * @param pageNumber the zero-based page number
+     * @param pageSize the number of torrents per page
+     * @return the torrents of the requested page, empty when the page is past the end
+     */
+    public List<Torrent> getPage(int pageNumber, int pageSize) {
+        if (pageNumber < 0 || pageSize <= 0) {
+            throw new IllegalArgumentException("Page number must not be negative and page size must be positive");
+        }
+        return getRange((int) Math.min(Integer.MAX_VALUE, (long) pageNumber * pageSize), pageSize);
+    }
+
+    public List<Torrent> getTop(int count) {
+        return getRange(0, count);
+    }
+
+    /**
+     * @return the position of the torrent in the view, or -1 when the torrent is not cached
+     */
+    public int getPosition(String hash) {
+        return cache.withReadLock(() -> {
+            Key key = keysByHash.get(hash);
+            return key == null ? -1 : tree.rank(key);
+        });
+    }
+
+    private List<Torrent> getRange(int from, int count) {
+        return cache.withReadLock(() -> {
+            List<Key> keys = tree.range(from, count);
+            List<Torrent> torrents = new ArrayList<>(keys.size());
+            for (Key key : keys) {
+                torrents.add(cache.getCachedTorrent(key.hash));
+            }
+            return torrents;
+        });
+    }
+
+    @Override
+    public void onTorrentUpdated(Torrent torrent) {
+        Key key = field.isNumeric()
+                ? new Key(torrent.getHash(), field.getAsDouble(torrent), null)
+                : new Key(torrent.getHash(), 0, field.getValue(torrent));
+        Key previousKey = keysByHash.put(torrent.getHash(), key);
+        if (key.equals(previousKey)) {
+            return;
+        }
+        if (previousKey != null) {
+            tree.remove(previousKey);
+        }
+        tree.add(key);
+    }
+
+    @Override
+    public void onTorrentRemoved(String hash) {
+        Key key = keysByHash.remove(hash);
+        if (key != null) {
+            tree.remove(key);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<Key> comparator(TorrentSnapshotField field, boolean descending) {
+        Comparator<Key> byValue = field.isNumeric()
+                ? Comparator.comparingDouble(key -> key.number)
+                : Comparator.comparing(key -> (Comparable) key.value, Comparator.nullsFirst(Comparator.naturalOrder()));
+        if (descending) {
+            byValue = byValue.reversed();
+        }
+        return byValue.thenComparing(key -> key.hash);
+    }
+
+    private static final class Key {
+        private final String hash;
+        private final double number;
+        private final Comparable<?> value;
+
+        private Key(String hash, double number, Comparable<?> value) {
+            this.hash = hash;
+            this.number = number;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Double.compare(key.number, number) == 0 && hash.equals(key.hash) && Objects.equals(value, key.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(hash, number, value);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.core.entities.Torrent;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Inverted index from an attribute value to the hashes of the torrents holding it.
+ * The keys indexed for each hash are remembered so that entries can be moved even
+ * when the previous version of the torrent is no longer available.
+ */
+class TorrentAttributeIndex<K> implements TorrentsCacheListener {
+
+    private final Function<Torrent, Collection<K>> keyExtractor;
+    private final Map<K, Set<String>> hashesByKey;
+    private final Map<String, Collection<K>> keysByHash;
+
+    TorrentAttributeIndex(Function<Torrent, Collection<K>> keyExtractor) {
+        this(keyExtractor, new HashMap<>());
+    }
+
+    TorrentAttributeIndex(Function<Torrent, Collection<K>> keyExtractor, Map<K, Set<String>> hashesByKey) {
+        this.keyExtractor = keyExtractor;
+        this.hashesByKey = hashesByKey;
+        this.keysByHash = new HashMap<>();
+    }
+
+    Set<String> getHashes(K key) {
+        Set<String> hashes = hashesByKey.get(key);
+        return hashes == null ? Collections.emptySet() : hashes;
+    }
+
+    @Override
+    public void onTorrentUpdated(Torrent torrent) {
+        Collection<K> keys = keyExtractor.apply(torrent);
+        Collection<K> previousKeys = keysByHash.get(torrent.getHash());
+        if (previousKeys != null && previousKeys.equals(keys)) {
+            return;
+        }
+        onTorrentRemoved(torrent.getHash());
+        if (keys.isEmpty()) {
+            return;
+        }
+        keysByHash.put(torrent.getHash(), keys);
+        for (K key : keys) {
+            hashesByKey.computeIfAbsent(key, k -> new HashSet<>()).add(torrent.getHash());
+        }
+    }
+
+    @Override
+    public void onTorrentRemoved(String hash) {
+        Collection<K> keys = keysByHash.remove(hash);
+        if (keys == null) {
+            return;
+        }
+        for (K key : keys) {
+            Set<String> hashes = hashesByKey.get(key);
+            if (hashes != null) {
+                hashes.remove(hash);
+                if (hashes.isEmpty()) {
+                    hashesByKey.remove(key);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.utorrent.api.web.client.core;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Log of the hashes changed by the last versions of a {@link TorrentsCache}.
+ * Changes are recorded for the version being built and committed as one entry,
+ * only the most recent entries are retained. Not thread safe, the cache guards it.
+ */
+class TorrentChangeLog {
+
+    enum ChangeType {
+        ADDED,
+        UPDATED,
+        REMOVED
+    }
+
+    private final int retainedVersions;
+    private final Deque<Entry> entries;
+    private Map<String, ChangeType> pendingChanges;
+    private long version;
+
+    TorrentChangeLog(int retainedVersions) {
+        if (retainedVersions <= 0) {
+            throw new IllegalArgumentException("At least one version must be retained");
+        }
+        this.retainedVersions = retainedVersions;
+        this.entries = new ArrayDeque<>();
+        this.pendingChanges = new HashMap<>();
+        this.version = 0;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    void record(String hash, ChangeType type) {
+        ChangeType merged = merge(pendingChanges.get(hash), type);
+        if (merged == null) {
+            pendingChanges.remove(hash);
+        } else {
+            pendingChanges.put(hash, merged);
+        }
+    }
+
+    /**
+     * Closes the version being built. Without changes no version is created, so that a poll
+     * finding nothing new leaves the version and the retained entries as they were.
+     *
+     * @return the current version
+     */
+    long commit() {
+        if (pendingChanges.isEmpty()) {
+            return version;
+        }
+        version++;
+        entries.addLast(new Entry(version, pendingChanges));
+        pendingChanges = new HashMap<>();
+        while (entries.size() > retainedVersions) {
+            entries.removeFirst();
+        }
+        return version;
+    }
+
+    /**
+     * @return the merged changes committed after the version provided, or null when
+     * some of them are no longer retained
+     */
+    Map<String, ChangeType> changesSince(long sinceVersion) {
+        if (sinceVersion > version || sinceVersion < 0) {
+            return null;
+        }
+        Map<String, ChangeType> changes = new HashMap<>();
+        if (sinceVersion == version) {
+            return changes;
+        }
+        if (entries.isEmpty() || entries.getFirst().version > sinceVersion + 1) {
+            return null;
+        }
+
+        Iterator<Entry> iterator = entries.descendingIterator();
+        Deque<Entry> newerEntries = new ArrayDeque<>();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.version <= sinceVersion) {
+                break;
+            }
+            newerEntries.addFirst(entry);
+        }
+        for (Entry entry : newerEntries) {
+            entry.changes.forEach((hash, type) -> {
+                ChangeType merged = merge(changes.get(hash), type);
+                if (merged == null) {
+                    changes.remove(hash);
+                } else {
+                    changes.put(hash, merged);
+                }
+            });
+        }
+        return changes;
+    }
+
+    static Set<String> hashesOf(Map<String, ChangeType> changes, ChangeType type) {
+        Set<String> hashes = new HashSet<>();
+        changes.forEach((hash, changeType) -> {
+            if (changeType == type) {
+                hashes.add(hash);
+            }
+        });
+        return hashes;
+    }
+
+    /**
+     * @return the change seen by a consumer that missed both changes, null when the
+     * torrent appeared and disappeared in between
+     */
+    private static ChangeType merge(ChangeType previous, ChangeType next) {
+        if (previous == null) {
+            return next;
+        }
+        switch (next) {
+            case REMOVED:
+                return previous == ChangeType.ADDED ? null : ChangeType.REMOVED;
+            case ADDED:
+                return previous == ChangeType.REMOVED ? ChangeType.UPDATED : previous;
+            default:
+                return previous == ChangeType.ADDED ? ChangeType.ADDED : ChangeType.UPDATED;
+        }
+    }
+
+    private static final class Entry {
+        private final long version;
+        private final Map<String, ChangeType> changes;
+
+        private Entry(long version, Map<String, ChangeType> changes) {
+            this.version = version;
+            this.changes = changes;
+        }
+    }
+}
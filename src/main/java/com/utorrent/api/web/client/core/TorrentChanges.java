@@ -0,0 +1,73 @@
+package com.utorrent.api.web.client.core;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * The changes applied to a {@link TorrentsCache} between two versions, as returned by
+ * {@link TorrentsCache#changesSince(long)}. When the changes asked for are older than
+ * the changes retained by the cache, a full snapshot is returned instead: every
+ * cached torrent is reported as added and the consumer must drop what it knew.
+ */
+public final class TorrentChanges {
+
+    private final long fromVersion;
+    private final long toVersion;
+    private final boolean fullSnapshot;
+    private final Set<String> addedHashes;
+    private final Set<String> updatedHashes;
+    private final Set<String> removedHashes;
+
+    TorrentChanges(
+        long fromVersion,
+        long toVersion,
+        boolean fullSnapshot,
+        Set<String> addedHashes,
+        Set<String> updatedHashes,
+        Set<String> removedHashes
+    ) {
+        this.fromVersion = fromVersion;
+        this.toVersion = toVersion;
+        this.fullSnapshot = fullSnapshot;
+        this.addedHashes = Collections.unmodifiableSet(addedHashes);
+        this.updatedHashes = Collections.unmodifiableSet(updatedHashes);
+        this.removedHashes = Collections.unmodifiableSet(removedHashes);
+    }
+
+    public long getFromVersion() {
+        return fromVersion;
+    }
+
+    /**
+     * @return the version to pass to the next call of {@link TorrentsCache#changesSince(long)}
+     */
+    public long getToVersion() {
+        return toVersion;
+    }
+
+    public boolean isFullSnapshot() {
+        return fullSnapshot;
+    }
+
+    public Set<String> getAddedHashes() {
+        return addedHashes;
+    }
+
+    public Set<String> getUpdatedHashes() {
+        return updatedHashes;
+    }
+
+    public Set<String> getRemovedHashes() {
+        return removedHashes;
+    }
+
+    public boolean isEmpty() {
+        return addedHashes.isEmpty() && updatedHashes.isEmpty() && removedHashes.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "TorrentChanges(fromVersion=" + fromVersion + ", toVersion=" + toVersion + ", fullSnapshot=" + fullSnapshot
+                + ", added=" + addedHashes.size() + ", updated=" + updatedHashes.size() + ", removed=" + removedHashes.size() + ")";
+    }
+}
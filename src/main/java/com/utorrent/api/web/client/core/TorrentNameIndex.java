@@ -0,0 +1,142 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.core.entities.Torrent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Case-insensitive index of the torrent names held by a {@link TorrentsCache}.
+ * Substring lookups intersect the posting lists of the trigrams of the searched text
+ * and only verify the names left, prefix lookups read a sorted map of names.
+ * The index is maintained by the cache, see {@link TorrentsCache#enableNameIndex()}.
+ */
+class TorrentNameIndex implements TorrentsCacheListener {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private final Map<String, String> namesByHash;
+    private final NavigableMap<String, Set<String>> hashesByName;
+    private final Map<Long, Set<String>> hashesByTrigram;
+
+    TorrentNameIndex() {
+        this.namesByHash = new HashMap<>();
+        this.hashesByName = new TreeMap<>();
+        this.hashesByTrigram = new HashMap<>();
+    }
+
+    Set<String> searchSubstring(String text) {
+        String searched = normalize(text);
+        if (searched.length() < GRAM_LENGTH) {
+            return scan(searched);
+        }
+
+        List<Set<String>> postings = new ArrayList<>();
+        for (long trigram : trigrams(searched)) {
+            Set<String> hashes = hashesByTrigram.get(trigram);
+            if (hashes == null) {
+                return new HashSet<>();
+            }
+            postings.add(hashes);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+
+        Set<String> result = new HashSet<>();
+        for (String hash : postings.get(0)) {
+            if (containsAll(postings, hash) && namesByHash.get(hash).contains(searched)) {
+                result.add(hash);
+            }
+        }
+        return result;
+    }
+
+    Set<String> searchPrefix(String prefix) {
+        String searched = normalize(prefix);
+        Set<String> result = new HashSet<>();
+        for (Map.Entry<String, Set<String>> entry : hashesByName.tailMap(searched, true).entrySet()) {
+            if (!entry.getKey().startsWith(searched)) {
+                break;
+            }
+            result.addAll(entry.getValue());
+        }
+        return result;
+    }
+
+    @Override
+    public void onTorrentUpdated(Torrent torrent) {
+        String name = normalize(torrent.getName());
+        String previousName = namesByHash.put(torrent.getHash(), name);
+        if (name.equals(previousName)) {
+            return;
+        }
+        if (previousName != null) {
+            unindex(torrent.getHash(), previousName);
+        }
+        hashesByName.computeIfAbsent(name, key -> new HashSet<>(1)).add(torrent.getHash());
+        for (long trigram : trigrams(name)) {
+            hashesByTrigram.computeIfAbsent(trigram, key -> new HashSet<>()).add(torrent.getHash());
+        }
+    }
+
+    @Override
+    public void onTorrentRemoved(String hash) {
+        String name = namesByHash.remove(hash);
+        if (name != null) {
+            unindex(hash, name);
+        }
+    }
+
+    private void unindex(String hash, String name) {
+        removeFrom(hashesByName, name, hash);
+        for (long trigram : trigrams(name)) {
+            removeFrom(hashesByTrigram, trigram, hash);
+        }
+    }
+
+    private Set<String> scan(String searched) {
+        Set<String> result = new HashSet<>();
+        namesByHash.forEach((hash, name) -> {
+            if (name.contains(searched)) {
+                result.add(hash);
+            }
+        });
+        return result;
+    }
+
+    private static boolean containsAll(List<Set<String>> postings, String hash) {
+        for (int i = 1; i < postings.size(); i++) {
+            if (!postings.get(i).contains(hash)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static <K> void removeFrom(Map<K, Set<String>> map, K key, String hash) {
+        Set<String> hashes = map.get(key);
+        if (hashes != null && hashes.remove(hash) && hashes.isEmpty()) {
+            map.remove(key);
+        }
+    }
+
+    private static Collection<Long> trigrams(String text) {
+        Set<Long> trigrams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            trigrams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return trigrams;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,251 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.core.entities.Torrent;
+import com.utorrent.api.web.client.core.entities.Torrent.TorrentStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static com.utorrent.api.web.client.core.TorrentSnapshotField.TORRENT_STATUS;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A query over the torrents held by a {@link TorrentsCache}, for instance
+ * <pre>
+ * TorrentQuery.builder()
+ *         .labelEquals("movies")
+ *         .hasStatus(TorrentStatus.PAUSED)
+ *         .where(TORRENT_RATIO, Operator.GREATER_THAN, 2.0)
+ *         .orderBy(TORRENT_DATE_ADDED)
+ *         .limit(50)
+ *         .build();
+ * </pre>
+ * The conditions are compiled once into a single predicate when the query is built,
+ * so a query can be kept and executed repeatedly. Label and status conditions are
+ * also exposed to the cache, which uses its indexes to narrow the torrents to scan.
+ */
+public final class TorrentQuery {
+
+    private final String label;
+    private final Set<TorrentStatus> requiredStatuses;
+    private final Predicate<Torrent> predicate;
+    private final Comparator<Torrent> order;
+    private final int limit;
+
+    private TorrentQuery(Builder builder) {
+        this.label = builder.label;
+        this.requiredStatuses = builder.requiredStatuses.isEmpty()
+                ? Collections.emptySet()
+                : Collections.unmodifiableSet(EnumSet.copyOf(builder.requiredStatuses));
+        this.predicate = compile(builder.conditions);
+        this.order = builder.order;
+        this.limit = builder.limit;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the label the torrents must have, null when the query does not filter by label
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return the statuses the torrents must all have
+     */
+    public Set<TorrentStatus> getRequiredStatuses() {
+        return requiredStatuses;
+    }
+
+    /**
+     * @return the order of the results, null when the results are not ordered
+     */
+    public Comparator<Torrent> getOrder() {
+        return order;
+    }
+
+    /**
+     * @return the maximum number of results, or {@link Integer#MAX_VALUE} when unbounded
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean matches(Torrent torrent) {
+        return predicate.test(torrent);
+    }
+
+    private static Predicate<Torrent> compile(List<Predicate<Torrent>> conditions) {
+        switch (conditions.size()) {
+            case 0:
+                return torrent -> true;
+            case 1:
+                return conditions.get(0);
+            default:
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                Predicate<Torrent>[] all = conditions.toArray(new Predicate[0]);
+                return torrent -> {
+                    for (Predicate<Torrent> condition : all) {
+                        if (!condition.test(torrent)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                };
+        }
+    }
+
+    public enum Operator {
+        EQUALS,
+        NOT_EQUALS,
+        GREATER_THAN,
+        GREATER_THAN_OR_EQUALS,
+        LESS_THAN,
+        LESS_THAN_OR_EQUALS;
+
+        boolean accept(int comparison) {
+            switch (this) {
+                case EQUALS:
+                    return comparison == 0;
+                case NOT_EQUALS:
+                    return comparison != 0;
+                case GREATER_THAN:
+                    return comparison > 0;
+                case GREATER_THAN_OR_EQUALS:
+                    return comparison >= 0;
+                case LESS_THAN:
+                    return comparison < 0;
+                default:
+                    return comparison <= 0;
+            }
+        }
+    }
+
+    public static class Builder {
+        private final List<Predicate<Torrent>> conditions = new ArrayList<>();
+        private final Set<TorrentStatus> requiredStatuses = EnumSet.noneOf(TorrentStatus.class);
+        private String label;
+        private Comparator<Torrent> order;
+        private int limit = Integer.MAX_VALUE;
+
+        private Builder() {
+        }
+
+        public Builder labelEquals(String label) {
+            requireNonNull(label, "Label cannot be null");
+            if (this.label != null && !this.label.equals(label)) {
+                throw new IllegalArgumentException("A query can only match a single label");
+            }
+            this.label = label;
+            conditions.add(torrent -> label.equals(torrent.getLabel()));
+            return this;
+        }
+
+        public Builder hasStatus(TorrentStatus status) {
+            requireNonNull(status, "Status cannot be null");
+            if (requiredStatuses.add(status)) {
+                conditions.add(torrent -> torrent.getStatuses() != null && torrent.getStatuses().contains(status));
+            }
+            return this;
+        }
+
+        public Builder doesNotHaveStatus(TorrentStatus status) {
+            requireNonNull(status, "Status cannot be null");
+            conditions.add(torrent -> torrent.getStatuses() == null || !torrent.getStatuses().contains(status));
+            return this;
+        }
+
+        /**
+         * Adds a condition comparing a field of the torrent with a value. Numeric fields
+         * are compared with any {@link Number}, the other fields with a value of their type.
+         */
+        public Builder where(TorrentSnapshotField field, Operator operator, Object value) {
+            requireNonNull(field, "Field cannot be null");
+            requireNonNull(operator, "Operator cannot be null");
+            checkComparable(field);
+
+            if (field.isNumeric()) {
+                if (!(value instanceof Number)) {
+                    throw new IllegalArgumentException(field + " can only be compared with a number");
+                }
+                double number = ((Number) value).doubleValue();
+                conditions.add(torrent -> operator.accept(Double.compare(field.getAsDouble(torrent), number)));
+            } else {
+                Class<?> valueType = field.getValueType();
+                if (value != null && !valueType.isInstance(value)) {
+                    throw new IllegalArgumentException(field + " can only be compared with a " + valueType.getSimpleName());
+                }
+                conditions.add(torrent -> operator.accept(compareNullable(field.getValue(torrent), value)));
+            }
+            return this;
+        }
+
+        public Builder where(Predicate<Torrent> condition) {
+            conditions.add(requireNonNull(condition, "Condition cannot be null"));
+            return this;
+        }
+
+        public Builder orderBy(TorrentSnapshotField field) {
+            return orderBy(field, false);
+        }
+
+        public Builder orderBy(TorrentSnapshotField field, boolean descending) {
+            Comparator<Torrent> comparator = comparing(field);
+            if (descending) {
+                comparator = comparator.reversed();
+            }
+            this.order = comparator.thenComparing(Torrent::getHash);
+            return this;
+        }
+
+        public Builder limit(int limit) {
+            if (limit <= 0) {
+                throw new IllegalArgumentException("Limit must be positive");
+            }
+            this.limit = limit;
+            return this;
+        }
+
+        public TorrentQuery build() {
+            return new TorrentQuery(this);
+        }
+
+        private static Comparator<Torrent> comparing(TorrentSnapshotField field) {
+            requireNonNull(field, "Field cannot be null");
+            checkComparable(field);
+            if (field.isNumeric()) {
+                return Comparator.comparingDouble(field::getAsDouble);
+            }
+            return (first, second) -> compareNullable(field.getValue(first), field.getValue(second));
+        }
+
+        private static void checkComparable(TorrentSnapshotField field) {
+            if (field == TORRENT_STATUS) {
+                throw new IllegalArgumentException("Statuses can only be matched with hasStatus and doesNotHaveStatus");
+            }
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static int compareNullable(Comparable value, Object other) {
+            if (Objects.equals(value, other)) {
+                return 0;
+            }
+            if (value == null) {
+                return -1;
+            }
+            if (other == null) {
+                return 1;
+            }
+            return value.compareTo(other);
+        }
+    }
+}
@@ -2,6 +2,11 @@ package com.utorrent.api.web.client.core;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.utorrent.api.web.client.core.entities.Torrent;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 
 public enum TorrentSnapshotField {
     TORRENT_HASH(0) ,
@@ -57,4 +62,132 @@ public enum TorrentSnapshotField {
     private JsonElement getElement(JsonArray jsonArray) {
         return jsonArray.get(this.index);
     }
+
+    /**
+     * Whether the value of this field on a {@link Torrent} can be read as a number
+     * through {@link #getAsDouble(Torrent)}. Durations are read in seconds and dates
+     * as epoch seconds.
+     */
+    public boolean isNumeric() {
+        switch (this) {
+            case TORRENT_SIZE:
+            case TORRENT_PROGRESS:
+            case TORRENT_DOWNLOADED:
+            case TORRENT_UPLOADED:
+            case TORRENT_RATIO:
+            case TORRENT_UPSPEED:
+            case TORRENT_DOWNSPEED:
+            case TORRENT_ETA:
+            case TORRENT_PEERS_CONNECTED:
+            case TORRENT_PEERS_SWARM:
+            case TORRENT_SEEDS_CONNECTED:
+            case TORRENT_SEEDS_SWARM:
+            case TORRENT_AVAILABILITY:
+            case TORRENT_QUEUE_POSITION:
+            case TORRENT_REMAINING:
+            case TORRENT_DATE_ADDED:
+            case TORRENT_DATE_COMPLETED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public double getAsDouble(Torrent torrent) {
+        switch (this) {
+            case TORRENT_SIZE:
+                return torrent.getSize();
+            case TORRENT_PROGRESS:
+                return torrent.getProgress();
+            case TORRENT_DOWNLOADED:
+                return torrent.getDownloaded();
+            case TORRENT_UPLOADED:
+                return torrent.getUploaded();
+            case TORRENT_RATIO:
+                return torrent.getRatio();
+            case TORRENT_UPSPEED:
+                return torrent.getUploadSpeed();
+            case TORRENT_DOWNSPEED:
+                return torrent.getDownloadSpeed();
+            case TORRENT_ETA:
+                return seconds(torrent.getEta());
+            case TORRENT_PEERS_CONNECTED:
+                return torrent.getPeersConnected();
+            case TORRENT_PEERS_SWARM:
+                return torrent.getPeersInSwarm();
+            case TORRENT_SEEDS_CONNECTED:
+                return torrent.getSeedsConnected();
+            case TORRENT_SEEDS_SWARM:
+                return torrent.getSeedsInSwarm();
+            case TORRENT_AVAILABILITY:
+                return torrent.getAvailability();
+            case TORRENT_QUEUE_POSITION:
+                return torrent.getTorrentQueueOrder();
+            case TORRENT_REMAINING:
+                return torrent.getRemaining();
+            case TORRENT_DATE_ADDED:
+                return epochSeconds(torrent.getDateAdded());
+            case TORRENT_DATE_COMPLETED:
+                return epochSeconds(torrent.getDateCompleted());
+            default:
+                throw new UnsupportedOperationException(this + " is not a numeric field");
+        }
+    }
+
+    /**
+     * Reads the value of this field from a {@link Torrent}. Numeric fields are returned
+     * as {@link Double}, the status field is not comparable and cannot be read this way.
+     */
+    public Comparable<?> getValue(Torrent torrent) {
+        if (isNumeric()) {
+            return getAsDouble(torrent);
+        }
+        switch (this) {
+            case TORRENT_HASH:
+                return torrent.getHash();
+            case TORRENT_NAME:
+                return torrent.getName();
+            case TORRENT_LABEL:
+                return torrent.getLabel();
+            case TORRENT_DOWNLOAD_URL:
+                return torrent.getDownloadURL();
+            case TORRENT_RSS_FEED_URL:
+                return torrent.getRssFeedURL();
+            case TORRENT_STATUS_MESSAGE:
+                return torrent.getStatusMessage();
+            case TORRENT_STREAM_ID:
+                return torrent.getStreamId();
+            case TORRENT_APP_UPDATE_URL:
+                return torrent.getAppUpdateURL();
+            case TORRENT_SAVE_PATH:
+                return torrent.getPath();
+            default:
+                throw new UnsupportedOperationException(this + " is not a comparable field");
+        }
+    }
+
+    /**
+     * @return the type of the values {@link #getValue(Torrent)} reads for this field
+     */
+    public Class<?> getValueType() {
+        if (isNumeric()) {
+            return Double.class;
+        }
+        switch (this) {
+            case TORRENT_STATUS:
+                throw new UnsupportedOperationException(this + " is not a comparable field");
+            case TORRENT_SAVE_PATH:
+                return Path.class;
+            default:
+                return String.class;
+        }
+    }
+
+    private static double seconds(Duration duration) {
+        return duration == null ? 0 : duration.getSeconds();
+    }
+
+    private static double epochSeconds(Instant instant) {
+        return instant == null ? 0 : instant.getEpochSecond();
+    }
 }
@@ -1,50 +1,478 @@
 package com.utorrent.api.web.client.core;
 
+import com.google.gson.JsonArray;
 import com.utorrent.api.web.client.core.entities.Torrent;
+import com.utorrent.api.web.client.core.entities.Torrent.TorrentStatus;
 import com.utorrent.api.web.client.core.entities.TorrentListSnapshot;
 import lombok.NonNull;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
 
 public class TorrentsCache {
 
+    /**
+     * How the torrents received from the server are stored in the cache.
+     */
+    public enum UpdateMode {
+        /**
+         * Each torrent received replaces the cached one. Readers get the cached objects.
+         */
+        REPLACE,
+        /**
+         * The cached torrents are owned by the cache and updated field by field as
+         * torrents are received, without creating a new object per torrent and poll.
+         * Readers and listeners get the cached objects, which keep changing as updates
+         * are applied; {@link #getTorrentSnapshot(String)} and {@link #getTorrentListSnapshot()}
+         * return copies that do not.
+         */
+        IN_PLACE
+    }
+
+    public static final int DEFAULT_RETAINED_VERSIONS = 1024;
+
+    private final UpdateMode updateMode;
+    private final TorrentChangeLog changeLog;
     private final Map<String, Torrent> torrentsMap;
+    private final ReadWriteLock lock;
+    private final List<TorrentsCacheListener> listeners;
+    private final TorrentAttributeIndex<String> labelIndex;
+    private final TorrentAttributeIndex<TorrentStatus> statusIndex;
 
+    private TorrentNameIndex nameIndex;
     private String cachedID;
 
     public TorrentsCache() {
+        this(UpdateMode.REPLACE);
+    }
+
+    public TorrentsCache(@NonNull UpdateMode updateMode) {
+        this(updateMode, DEFAULT_RETAINED_VERSIONS);
+    }
+
+    /**
+     * @param updateMode how the torrents received are stored
+     * @param retainedVersions how many versions of changes are retained for {@link #changesSince(long)}
+     */
+    public TorrentsCache(@NonNull UpdateMode updateMode, int retainedVersions) {
+        this.updateMode = updateMode;
+        this.changeLog = new TorrentChangeLog(retainedVersions);
         this.torrentsMap = new HashMap<>();
+        this.lock = new ReentrantReadWriteLock();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.labelIndex = new TorrentAttributeIndex<>(
+                torrent -> torrent.getLabel() == null ? Collections.emptyList() : List.of(torrent.getLabel())
+        );
+        this.statusIndex = new TorrentAttributeIndex<>(
+                torrent -> torrent.getStatuses() == null ? Collections.emptySet() : Set.copyOf(torrent.getStatuses()),
+                new EnumMap<>(TorrentStatus.class)
+        );
+        this.listeners.add(labelIndex);
+        this.listeners.add(statusIndex);
         this.cachedID = null;
     }
 
+    public UpdateMode getUpdateMode() {
+        return updateMode;
+    }
+
+    /**
+     * @return the current version of the cache, increased every time changes are applied
+     */
+    public long getVersion() {
+        lock.readLock().lock();
+        try {
+            return changeLog.getVersion();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the hashes added, updated and removed since the version provided, which
+     * lets each consumer of the cache read only what changed since its last read. A
+     * consumer starts from version 0 and passes {@link TorrentChanges#getToVersion()}
+     * to the next call. When the version is too old to be answered from the retained
+     * changes, a full snapshot listing every cached torrent as added is returned.
+     *
+     * @param version the version the consumer last read
+     * @return the changes between that version and the current one
+     */
+    public TorrentChanges changesSince(long version) {
+        lock.readLock().lock();
+        try {
+            long currentVersion = changeLog.getVersion();
+            Map<String, TorrentChangeLog.ChangeType> changes = changeLog.changesSince(version);
+            if (changes == null) {
+                return new TorrentChanges(version, currentVersion, true, new HashSet<>(torrentsMap.keySet()), new HashSet<>(), new HashSet<>());
+            }
+            return new TorrentChanges(
+                    version,
+                    currentVersion,
+                    false,
+                    TorrentChangeLog.hashesOf(changes, TorrentChangeLog.ChangeType.ADDED),
+                    TorrentChangeLog.hashesOf(changes, TorrentChangeLog.ChangeType.UPDATED),
+                    TorrentChangeLog.hashesOf(changes, TorrentChangeLog.ChangeType.REMOVED)
+            );
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
     public String getCachedID() {
-        return cachedID;
+        lock.readLock().lock();
+        try {
+            return cachedID;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Registers a listener notified of every change applied to the cache from now on.
+     * The listener is first fed with the torrents currently cached.
+     */
+    public void addListener(@NonNull TorrentsCacheListener listener) {
+        lock.writeLock().lock();
+        try {
+            torrentsMap.values().forEach(listener::onTorrentUpdated);
+            listeners.add(listener);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeListener(TorrentsCacheListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Creates a view of the cached torrents kept sorted by the field provided, then by hash.
+     * The view is maintained as changes are applied until it is unregistered.
+     *
+     * @param field the field to sort by
+     * @param descending whether the greatest values come first
+     * @return the registered view
+     */
+    public SortedTorrentView registerSortedView(@NonNull TorrentSnapshotField field, boolean descending) {
+        SortedTorrentView view = new SortedTorrentView(this, field, descending);
+        addListener(view);
+        return view;
+    }
+
+    public void unregisterSortedView(SortedTorrentView view) {
+        removeListener(view);
+    }
+
+    /**
+     * Enables the index on torrent names used by {@link #searchByName(String)} and
+     * {@link #searchByNamePrefix(String)}. Calling it again has no effect.
+     */
+    public void enableNameIndex() {
+        lock.writeLock().lock();
+        try {
+            if (nameIndex == null) {
+                nameIndex = new TorrentNameIndex();
+                torrentsMap.values().forEach(nameIndex::onTorrentUpdated);
+                listeners.add(nameIndex);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Case-insensitive search of the torrents whose name contains the text provided.
+     * Without the name index enabled every cached name is scanned.
+     *
+     * @param text the text to search
+     * @return the hashes of the matching torrents
+     */
+    public Set<String> searchByName(@NonNull String text) {
+        lock.readLock().lock();
+        try {
+            if (nameIndex != null) {
+                return nameIndex.searchSubstring(text);
+            }
+            String searched = text.toLowerCase(Locale.ROOT);
+            return scanNames(name -> name.contains(searched));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Case-insensitive search of the torrents whose name starts with the prefix provided.
+     * Without the name index enabled every cached name is scanned.
+     *
+     * @param prefix the prefix to search
+     * @return the hashes of the matching torrents
+     */
+    public Set<String> searchByNamePrefix(@NonNull String prefix) {
+        lock.readLock().lock();
+        try {
+            if (nameIndex != null) {
+                return nameIndex.searchPrefix(prefix);
+            }
+            String searched = prefix.toLowerCase(Locale.ROOT);
+            return scanNames(name -> name.startsWith(searched));
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public void addTorrent(Torrent torrent) {
-        this.torrentsMap.put(torrent.getHash(), torrent);
+        lock.writeLock().lock();
+        try {
+            putTorrent(own(torrent));
+            changeLog.commit();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     public void removeTorrent(String hash) {
-        this.torrentsMap.remove(hash);
+        lock.writeLock().lock();
+        try {
+            deleteTorrent(hash);
+            changeLog.commit();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     public Torrent getTorrent(String hash) {
+        lock.readLock().lock();
+        try {
+            return torrentsMap.get(hash);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return a copy of the cached torrent, its status set included, which later updates of the
+     * cache do not change, null when the torrent is not cached
+     */
+    public Torrent getTorrentSnapshot(String hash) {
+        lock.readLock().lock();
+        try {
+            return copy(torrentsMap.get(hash));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Torrent getCachedTorrent(String hash) {
         return torrentsMap.get(hash);
     }
 
+    <T> T withReadLock(Supplier<T> supplier) {
+        lock.readLock().lock();
+        try {
+            return supplier.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
     public Set<Torrent> getTorrentList() {
-        return torrentsMap.values().stream().collect(Collectors.toSet());
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(torrentsMap.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return copies of the cached torrents taken under a single read of the cache, which later
+     * updates of the cache do not change
+     */
+    public Set<Torrent> getTorrentListSnapshot() {
+        lock.readLock().lock();
+        try {
+            return torrentsMap.values().stream().map(TorrentsCache::copy).collect(Collectors.toSet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a query against the cached torrents. The label and status indexes are used
+     * to pick the smallest set of candidates, only those are evaluated against the
+     * query predicate.
+     *
+     * @param query the query to run
+     * @return the matching torrents, in the query order when one is specified
+     */
+    public List<Torrent> query(@NonNull TorrentQuery query) {
+        lock.readLock().lock();
+        try {
+            Collection<String> candidates = selectCandidates(query);
+            Iterable<Torrent> torrents = candidates == null
+                    ? torrentsMap.values()
+                    : () -> candidates.stream().map(torrentsMap::get).iterator();
+
+            return query.getOrder() == null
+                    ? collectUnordered(torrents, query)
+                    : collectOrdered(torrents, query);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public void updateCache(@NonNull TorrentListSnapshot torrentListSnapshot) {
-        torrentListSnapshot.getTorrentsToAdd().forEach(this::addTorrent);
-        torrentListSnapshot.getTorrentToRemoveHashes().forEach(this::removeTorrent);
-        this.cachedID = torrentListSnapshot.getCacheID();
+        lock.writeLock().lock();
+        try {
+            torrentListSnapshot.getTorrentsToAdd().forEach(torrent -> putTorrent(own(torrent)));
+            torrentListSnapshot.getTorrentToRemoveHashes().forEach(this::deleteTorrent);
+            this.cachedID = torrentListSnapshot.getCacheID();
+            changeLog.commit();
+            listeners.forEach(listener -> listener.onCacheUpdated(cachedID));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a snapshot whose rows are written into the cached torrents. In
+     * {@link UpdateMode#REPLACE} mode a new torrent is still created for each row.
+     */
+    void updateCache(@NonNull RawTorrentListSnapshot snapshot, @NonNull MessageParser parser) {
+        lock.writeLock().lock();
+        try {
+            int build = snapshot.getBuild();
+            for (JsonArray row : snapshot.getTorrentRows()) {
+                Torrent torrent = updateMode == UpdateMode.IN_PLACE
+                        ? torrentsMap.get(parser.getTorrentHash(row))
+                        : null;
+                if (torrent != null && parser.updateTorrent(build, row, torrent)) {
+                    changeLog.record(torrent.getHash(), TorrentChangeLog.ChangeType.UPDATED);
+                    listeners.forEach(listener -> listener.onTorrentUpdated(torrent));
+                } else {
+                    putTorrent(parser.parseAsTorrent(build, row));
+                }
+            }
+            snapshot.getTorrentToRemoveHashes().forEach(this::deleteTorrent);
+            this.cachedID = snapshot.getCacheID();
+            changeLog.commit();
+            listeners.forEach(listener -> listener.onCacheUpdated(cachedID));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the torrent to store, a copy when the cached torrents are updated in place
+     * so that the caller's object is never modified by the cache
+     */
+    private Torrent own(Torrent torrent) {
+        return updateMode == UpdateMode.IN_PLACE ? copy(torrent) : torrent;
+    }
+
+    private static Torrent copy(Torrent torrent) {
+        if (torrent == null) {
+            return null;
+        }
+        Set<TorrentStatus> statuses = torrent.getStatuses();
+        return torrent.toBuilder().statuses(statuses == null ? null : new HashSet<>(statuses)).build();
+    }
+
+    private void putTorrent(Torrent torrent) {
+        requireNonNull(torrent.getHash(), "Torrent hash cannot be null");
+        Torrent previous = this.torrentsMap.put(torrent.getHash(), torrent);
+        changeLog.record(torrent.getHash(), previous == null ? TorrentChangeLog.ChangeType.ADDED : TorrentChangeLog.ChangeType.UPDATED);
+        listeners.forEach(listener -> listener.onTorrentUpdated(torrent));
+    }
+
+    private void deleteTorrent(String hash) {
+        if (this.torrentsMap.remove(hash) != null) {
+            changeLog.record(hash, TorrentChangeLog.ChangeType.REMOVED);
+            listeners.forEach(listener -> listener.onTorrentRemoved(hash));
+        }
+    }
+
+    private Set<String> scanNames(Predicate<String> namePredicate) {
+        Set<String> hashes = new HashSet<>();
+        for (Torrent torrent : torrentsMap.values()) {
+            if (torrent.getName() != null && namePredicate.test(torrent.getName().toLowerCase(Locale.ROOT))) {
+                hashes.add(torrent.getHash());
+            }
+        }
+        return hashes;
+    }
+
+    private Collection<String> selectCandidates(TorrentQuery query) {
+        Collection<String> candidates = null;
+        if (query.getLabel() != null) {
+            candidates = labelIndex.getHashes(query.getLabel());
+        }
+        for (TorrentStatus status : query.getRequiredStatuses()) {
+            Set<String> hashes = statusIndex.getHashes(status);
+            if (candidates == null || hashes.size() < candidates.size()) {
+                candidates = hashes;
+            }
+        }
+        return candidates;
+    }
+
+    private static List<Torrent> collectUnordered(Iterable<Torrent> torrents, TorrentQuery query) {
+        List<Torrent> result = new ArrayList<>();
+        for (Torrent torrent : torrents) {
+            if (query.matches(torrent)) {
+                result.add(torrent);
+                if (result.size() == query.getLimit()) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static List<Torrent> collectOrdered(Iterable<Torrent> torrents, TorrentQuery query) {
+        if (query.getLimit() == Integer.MAX_VALUE) {
+            List<Torrent> result = new ArrayList<>();
+            for (Torrent torrent : torrents) {
+                if (query.matches(torrent)) {
+                    result.add(torrent);
+                }
+            }
+            result.sort(query.getOrder());
+            return result;
+        }
+
+        PriorityQueue<Torrent> top = new PriorityQueue<>(query.getOrder().reversed());
+        for (Torrent torrent : torrents) {
+            if (!query.matches(torrent)) {
+                continue;
+            }
+            if (top.size() < query.getLimit()) {
+                top.add(torrent);
+            } else if (query.getOrder().compare(torrent, top.peek()) < 0) {
+                top.poll();
+                top.add(torrent);
+            }
+        }
+        List<Torrent> result = new ArrayList<>(top);
+        result.sort(query.getOrder());
+        return result;
     }
 }
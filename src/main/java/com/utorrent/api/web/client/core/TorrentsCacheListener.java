@@ -0,0 +1,33 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.core.entities.Torrent;
+
+/**
+ * Receives the changes applied to a {@link TorrentsCache}.
+ * Callbacks are invoked while the cache holds its write lock, so implementations
+ * must be quick and must not call back into the cache.
+ */
+public interface TorrentsCacheListener {
+
+    /**
+     * A torrent was added to the cache or its cached entry was replaced.
+     *
+     * @param torrent the torrent as it is now cached
+     */
+    void onTorrentUpdated(Torrent torrent);
+
+    /**
+     * A torrent was removed from the cache.
+     *
+     * @param hash the hash of the removed torrent
+     */
+    void onTorrentRemoved(String hash);
+
+    /**
+     * A whole snapshot received from the server has been applied.
+     *
+     * @param cacheID the cache id returned by the server with the snapshot
+     */
+    default void onCacheUpdated(String cacheID) {
+    }
+}
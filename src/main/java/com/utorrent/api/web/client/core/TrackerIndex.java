@@ -0,0 +1,167 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.core.entities.Torrent;
+import com.utorrent.api.web.client.core.entities.TorrentProperties;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index from tracker URI to the hashes of the torrents announcing to it,
+ * fed with the properties returned by {@code getprops}. Tracker URIs are interned
+ * so that each distinct URI is held once whatever the number of torrents using it.
+ * Torrents entering the cache are remembered as stale until their properties are
+ * fetched, which lets callers fetch the properties of those torrents only. The torrent
+ * list carries no tracker, so the updates of torrents already indexed are not followed:
+ * this client changes no tracker, the trackers edited elsewhere are seen once the
+ * torrent enters the cache again.
+ */
+class TrackerIndex implements TorrentsCacheListener {
+
+    private final Map<String, String> internedTrackers;
+    private final Map<String, Set<String>> hashesByTracker;
+    private final Map<String, Set<String>> trackersByHash;
+    private final Set<String> staleHashes;
+    private final ReadWriteLock lock;
+
+    TrackerIndex() {
+        this.internedTrackers = new HashMap<>();
+        this.hashesByTracker = new HashMap<>();
+        this.trackersByHash = new HashMap<>();
+        this.staleHashes = new LinkedHashSet<>();
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    Set<String> getHashes(String tracker) {
+        lock.readLock().lock();
+        try {
+            Set<String> hashes = hashesByTracker.get(tracker.trim());
+            return hashes == null ? new HashSet<>() : new HashSet<>(hashes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Set<String> getTrackers() {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(hashesByTracker.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the hashes of the cached torrents whose properties were not fetched since they
+     * entered the cache
+     */
+    Set<String> getStaleHashes() {
+        lock.readLock().lock();
+        try {
+            return new LinkedHashSet<>(staleHashes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes the properties fetched for the hashes requested. A requested hash the server
+     * returned no properties for is no longer stale and its trackers are dropped from the index.
+     */
+    void update(Collection<String> requestedHashes, Collection<TorrentProperties> properties) {
+        lock.writeLock().lock();
+        try {
+            Set<String> missingHashes = new HashSet<>(requestedHashes);
+            for (TorrentProperties torrentProperties : properties) {
+                missingHashes.remove(torrentProperties.getHash());
+                index(torrentProperties);
+            }
+            missingHashes.forEach(this::drop);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(TorrentProperties properties) {
+        String hash = properties.getHash();
+        staleHashes.remove(hash);
+
+        Set<String> trackers = new HashSet<>();
+        if (properties.getTrackers() != null) {
+            for (String tracker : properties.getTrackers()) {
+                String trimmed = tracker.trim();
+                if (!trimmed.isEmpty()) {
+                    trackers.add(trimmed);
+                }
+            }
+        }
+
+        Set<String> previousTrackers = trackersByHash.get(hash);
+        if (previousTrackers == null) {
+            previousTrackers = Set.of();
+        } else if (previousTrackers.equals(trackers)) {
+            return;
+        }
+
+        Set<String> indexedTrackers = new HashSet<>();
+        for (String tracker : previousTrackers) {
+            if (trackers.contains(tracker)) {
+                indexedTrackers.add(tracker);
+            } else {
+                unindex(tracker, hash);
+            }
+        }
+        for (String tracker : trackers) {
+            if (!previousTrackers.contains(tracker)) {
+                String interned = internedTrackers.computeIfAbsent(tracker, key -> key);
+                hashesByTracker.computeIfAbsent(interned, key -> new HashSet<>()).add(hash);
+                indexedTrackers.add(interned);
+            }
+        }
+        trackersByHash.put(hash, indexedTrackers);
+    }
+
+    private void unindex(String tracker, String hash) {
+        Set<String> hashes = hashesByTracker.get(tracker);
+        if (hashes != null && hashes.remove(hash) && hashes.isEmpty()) {
+            hashesByTracker.remove(tracker);
+            internedTrackers.remove(tracker);
+        }
+    }
+
+    private void drop(String hash) {
+        staleHashes.remove(hash);
+        Set<String> trackers = trackersByHash.remove(hash);
+        if (trackers != null) {
+            trackers.forEach(tracker -> unindex(tracker, hash));
+        }
+    }
+
+    @Override
+    public void onTorrentUpdated(Torrent torrent) {
+        lock.writeLock().lock();
+        try {
+            if (!trackersByHash.containsKey(torrent.getHash())) {
+                staleHashes.add(torrent.getHash());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onTorrentRemoved(String hash) {
+        lock.writeLock().lock();
+        try {
+            drop(hash);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.core.entities.Torrent;
+import com.utorrent.api.web.client.core.entities.Torrent.TorrentStatus;
+import com.utorrent.api.web.client.restclient.ConnectionParams;
+import com.utorrent.api.web.client.restclient.ConnectionParams.PoolParams;
+import com.utorrent.api.web.client.restclient.ConnectionPoolStats;
+import com.utorrent.api.web.client.restclient.SharedAsyncTransport;
+import com.utorrent.api.web.client.utils.ExecutionBackend;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Client of a fleet of uTorrent instances sharing one async HTTP client, with its I/O reactor
+ * and connection pool, and one polling thread.
+ * <p>
+ * Each instance keeps its torrents in a {@link TorrentsCache} of its own, refreshed by polls
+ * asking only for the changes since the last one. Polls are spread over the poll interval:
+ * the first poll of each instance is delayed by a random part of the interval and each
+ * following poll is scheduled an interval, plus or minus the jitter, after the previous one
+ * completed. The caches are queried together through {@link #findTorrent(String)},
+ * {@link #query(TorrentQuery)} and {@link #getStats()}, the other operations are sent to
+ * an instance through {@link #getInstance(String)}.
+ */
+@Slf4j
+public class UTorrentFleetClient implements Closeable {
+
+    public static final Duration DEFAULT_POLL_INTERVAL = Duration.ofSeconds(10);
+    public static final double DEFAULT_POLL_JITTER = 0.2;
+    public static final int DEFAULT_MAX_CONNECTIONS = 512;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_INSTANCE = 2;
+
+    private final SharedAsyncTransport transport;
+    private final Map<String, Instance> instances;
+    private final FleetHashIndex hashIndex;
+    private final long pollInterval;
+    private final double pollJitter;
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean closed;
+
+    UTorrentFleetClient(
+        final SharedAsyncTransport transport,
+        final Map<String, AsyncUTorrentWebAPIClient> clients,
+        final Duration pollInterval,
+        final double pollJitter
+    ) {
+        if (pollInterval.isNegative() || pollInterval.isZero()) {
+            throw new IllegalArgumentException("The poll interval must be positive");
+        }
+        if (pollJitter < 0 || pollJitter >= 1) {
+            throw new IllegalArgumentException("The poll jitter must be at least 0 and less than 1");
+        }
+        this.transport = transport;
+        this.hashIndex = new FleetHashIndex();
+        this.pollInterval = pollInterval.toMillis();
+        this.pollJitter = pollJitter;
+        final Map<String, Instance> instancesById = new LinkedHashMap<>();
+        clients.forEach((id, client) -> {
+            client.getTorrentsCache().addListener(hashIndex.listenerFor(id));
+            instancesById.put(id, new Instance(id, client));
+        });
+        this.instances = Collections.unmodifiableMap(instancesById);
+        this.scheduler = ExecutionBackend.newScheduler("utorrent-fleet-poller");
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Set<String> getInstanceIds() {
+        return instances.keySet();
+    }
+
+    /**
+     * @param instanceId the id the instance was added with
+     * @return the client of the instance, sharing the transport of the fleet
+     */
+    public AsyncUTorrentWebAPIClient getInstance(final String instanceId) {
+        return getInstanceById(instanceId).client;
+    }
+
+    /**
+     * Starts the polls of every instance, spread over the poll interval.
+     */
+    public void startPolling() {
+        instances.values().forEach(instance -> schedulePoll(instance, (long) (ThreadLocalRandom.current().nextDouble() * pollInterval)));
+    }
+
+    private void schedulePoll(final Instance instance, final long delay) {
+        if (closed) {
+            return;
+        }
+        scheduler.schedule(() -> poll(instance).whenComplete((ignored, error) -> schedulePoll(instance, nextPollDelay())),
+            delay, TimeUnit.MILLISECONDS);
+    }
+
+    private long nextPollDelay() {
+        final double jitter = pollJitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Math.max(1, (long) (pollInterval * (1 + jitter)));
+    }
+
+    /**
+     * Refreshes the cache of an instance now. A poll already running for the instance is
+     * returned rather than started again.
+     *
+     * @return a future completed once the cache is refreshed, completed exceptionally when the poll failed
+     */
+    public CompletableFuture<Void> poll(final String instanceId) {
+        return poll(getInstanceById(instanceId));
+    }
+
+    /**
+     * @return a future completed once every instance was polled, whether the polls failed or not
+     */
+    public CompletableFuture<Void> pollAll() {
+        return CompletableFuture.allOf(instances
+            .values()
+            .stream()
+            .map(instance -> poll(instance).exceptionally(error -> null))
+            .toArray(CompletableFuture[]::new));
+    }
+
+    private CompletableFuture<Void> poll(final Instance instance) {
+        final CompletableFuture<Void> current = instance.poll.get();
+        if (current != null) {
+            return current;
+        }
+        final CompletableFuture<Void> poll = new CompletableFuture<>();
+        if (!instance.poll.compareAndSet(null, poll)) {
+            return poll(instance);
+        }
+        CompletableFuture<?> request;
+        try {
+            request = instance.client.getAllTorrents();
+        } catch (final RuntimeException e) {
+            request = CompletableFuture.failedFuture(e);
+        }
+        request.whenComplete((ignored, error) -> {
+            instance.poll.set(null);
+            instance.lastError = error;
+            if (error == null) {
+                poll.complete(null);
+            } else {
+                log.warn("Poll of uTorrent instance {} failed: {}", instance.id, error.getMessage());
+                poll.completeExceptionally(error);
+            }
+        });
+        return poll;
+    }
+
+    /**
+     * @return the torrent with the hash as cached by each instance holding it
+     */
+    public Map<String, Torrent> findTorrent(final String hash) {
+        final Map<String, Torrent> torrents = new HashMap<>();
+        for (String instanceId : hashIndex.getInstances(hash)) {
+            final Torrent torrent = instances.get(instanceId).client.getTorrentsCache().getTorrent(hash);
+            if (torrent != null) {
+                torrents.put(instanceId, torrent);
+            }
+        }
+        return torrents;
+    }
+
+    /**
+     * @return the cached torrents matching the query by instance, without the instances having none
+     */
+    public Map<String, List<Torrent>> query(final TorrentQuery query) {
+        final Map<String, List<Torrent>> torrents = new LinkedHashMap<>();
+        instances.forEach((id, instance) -> {
+            final List<Torrent> matched = instance.client.getTorrentsCache().query(query);
+            if (!matched.isEmpty()) {
+                torrents.put(id, matched);
+            }
+        });
+        return torrents;
+    }
+
+    /**
+     * @return the ids of the instances whose last poll failed
+     */
+    public Set<String> getFailingInstances() {
+        return instances
+            .values()
+            .stream()
+            .filter(instance -> instance.lastError != null)
+            .map(instance -> instance.id)
+            .collect(Collectors.toSet());
+    }
+
+    public FleetStats getStats() {
+        int torrents = 0;
+        long downloadSpeed = 0;
+        long uploadSpeed = 0;
+        final Map<TorrentStatus, Integer> torrentsByStatus = new EnumMap<>(TorrentStatus.class);
+        for (Instance instance : instances.values()) {
+            for (Torrent torrent : instance.client.getTorrentsCache().getTorrentList()) {
+                torrents++;
+                downloadSpeed += torrent.getDownloadSpeed();
+                uploadSpeed += torrent.getUploadSpeed();
+                if (torrent.getStatuses() != null) {
+                    torrent.getStatuses().forEach(status -> torrentsByStatus.merge(status, 1, Integer::sum));
+                }
+            }
+        }
+        return new FleetStats(instances.size(), getFailingInstances().size(), torrents, downloadSpeed, uploadSpeed, torrentsByStatus);
+    }
+
+    /**
+     * @return the stats of the connection pool shared by the instances
+     */
+    public Optional<ConnectionPoolStats> getConnectionPoolStats() {
+        return Optional.ofNullable(transport).map(SharedAsyncTransport::getConnectionPoolStats);
+    }
+
+    private Instance getInstanceById(final String instanceId) {
+        final Instance instance = instances.get(instanceId);
+        if (instance == null) {
+            throw new IllegalArgumentException("Unknown uTorrent instance " + instanceId);
+        }
+        return instance;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        scheduler.shutdownNow();
+        for (Instance instance : instances.values()) {
+            try {
+                instance.client.close();
+            } catch (final IOException e) {
+                log.warn("Impossible to close the client of uTorrent instance {}", instance.id, e);
+            }
+        }
+        if (transport != null) {
+            transport.close();
+        }
+    }
+
+    private static final class Instance {
+        private final String id;
+        private final AsyncUTorrentWebAPIClient client;
+        private final AtomicReference<CompletableFuture<Void>> poll;
+        private volatile Throwable lastError;
+
+        private Instance(final String id, final AsyncUTorrentWebAPIClient client) {
+            this.id = id;
+            this.client = client;
+            this.poll = new AtomicReference<>();
+        }
+    }
+
+    public static class Builder {
+        private final Map<String, ConnectionParams> instances = new LinkedHashMap<>();
+        private Duration pollInterval = DEFAULT_POLL_INTERVAL;
+        private double pollJitter = DEFAULT_POLL_JITTER;
+        private PoolParams poolParams = new PoolParams(DEFAULT_MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS_PER_INSTANCE,
+            0, 0, 0, 0, 0, 0, true);
+
+        /**
+         * @param instanceId the id of the instance within the fleet
+         * @param connectionParams the parameters of the instance, their pool parameters are ignored
+         */
+        public Builder withInstance(String instanceId, ConnectionParams connectionParams) {
+            requireNonNull(connectionParams, "Connection Parameters cannot be null");
+            if (instances.putIfAbsent(instanceId, connectionParams) != null) {
+                throw new IllegalArgumentException("Duplicate uTorrent instance " + instanceId);
+            }
+            return this;
+        }
+
+        public Builder withPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+            return this;
+        }
+
+        /**
+         * @param pollJitter the part of the poll interval, below 1, each poll can be moved by
+         */
+        public Builder withPollJitter(double pollJitter) {
+            this.pollJitter = pollJitter;
+            return this;
+        }
+
+        /**
+         * @param poolParams the settings of the connection pool shared by the instances
+         */
+        public Builder withPoolParams(PoolParams poolParams) {
+            this.poolParams = poolParams;
+            return this;
+        }
+
+        public UTorrentFleetClient create() throws URISyntaxException {
+            final SharedAsyncTransport transport = new SharedAsyncTransport(poolParams);
+            final Map<String, AsyncUTorrentWebAPIClient> clients = new LinkedHashMap<>();
+            try {
+                for (Map.Entry<String, ConnectionParams> instance : instances.entrySet()) {
+                    clients.put(instance.getKey(), new AsyncUTorrentWebAPIClientImpl(
+                        new MessageParser(), transport.createClient(instance.getValue()), new TorrentsCache()));
+                }
+            } catch (final URISyntaxException | RuntimeException e) {
+                transport.close();
+                throw e;
+            }
+            return new UTorrentFleetClient(transport, clients, pollInterval, pollJitter);
+        }
+    }
+}
@@ -7,16 +7,26 @@ import com.utorrent.api.web.client.core.entities.RequestResult;
 import com.utorrent.api.web.client.core.entities.Torrent;
 import com.utorrent.api.web.client.core.entities.TorrentFileList;
 import com.utorrent.api.web.client.core.entities.TorrentProperties;
+import com.utorrent.api.web.client.restclient.AdaptiveConcurrencyLimiter;
+import com.utorrent.api.web.client.restclient.CallContext;
+import com.utorrent.api.web.client.restclient.CompressionStats;
 import com.utorrent.api.web.client.restclient.ConnectionParams;
+import com.utorrent.api.web.client.restclient.ConnectionPoolStats;
 import com.utorrent.api.web.client.restclient.Request;
 import org.apache.hc.core5.http.ContentType;
 
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * uTorrent WebUI API interface.
@@ -46,6 +56,35 @@ public interface UTorrentWebAPIClient extends Closeable {
      */
     RequestResult addTorrent(File torrentFile) throws IOException;
 
+    /**
+     * Add a torrent to uTorrent, sending the content of the torrent file as it is
+     *
+     * @param torrent the content of the torrent file to add
+     * @return a result indicating whether the call completed with success or a fail
+     * @throws IOException
+     */
+    RequestResult addTorrent(byte[] torrent) throws IOException;
+
+    /**
+     * Add a torrent to uTorrent, sending the remaining bytes of the buffer as the torrent file
+     *
+     * @param torrent the content of the torrent file to add, its position is left unchanged
+     * @return a result indicating whether the call completed with success or a fail
+     * @throws IOException
+     */
+    RequestResult addTorrent(ByteBuffer torrent) throws IOException;
+
+    /**
+     * Add a torrent to uTorrent, streaming the torrent file as the request is sent. The stream
+     * is read once, the upload is not sent again when uTorrent rejects the token it was sent with
+     *
+     * @param torrent the content of the torrent file to add, left open
+     * @param length  the number of bytes of the torrent file
+     * @return a result indicating whether the call completed with success or a fail
+     * @throws IOException
+     */
+    RequestResult addTorrent(InputStream torrent, long length) throws IOException;
+
     /**
      * It queries uTorrent for the specific torrent and returns an object representing
      * all the information related to the torrent
@@ -87,6 +126,18 @@ public interface UTorrentWebAPIClient extends Closeable {
      */
     Optional<TorrentFileList> getTorrentFiles(String torrentHash);
 
+    /**
+     * It queries uTorrent for the files of many torrents, in chunks of hashes sized to the
+     * {@link ConnectionParams.ConnectionParamsBuilder#withMaxUrlLength(int) maximum URL length}
+     * and fetched {@link ConnectionParams.ConnectionParamsBuilder#withFetchParallelism(int) a few at a time}.
+     * The result of each chunk is given to the consumer as soon as it is received, one chunk at a time,
+     * and a chunk that fails is given as a failed result without stopping the others.
+     *
+     * @param torrentHashes a list of torrent hashes to query
+     * @param consumer the consumer of the result of each chunk
+     */
+    void streamTorrentFiles(List<String> torrentHashes, Consumer<ChunkResult<Set<TorrentFileList>>> consumer);
+
     /**
      * It queries uTorrent for the specific torrent properties and returns an object representing
      * its properties
@@ -105,6 +156,31 @@ public interface UTorrentWebAPIClient extends Closeable {
      */
     Optional<TorrentProperties> getTorrentProperties(String torrentHash);
 
+    /**
+     * It queries uTorrent for the properties of many torrents, in chunks as {@link #streamTorrentFiles(List, Consumer)} does.
+     *
+     * @param torrentHashes a list of torrent hashes to query
+     * @param consumer the consumer of the result of each chunk
+     */
+    void streamTorrentProperties(List<String> torrentHashes, Consumer<ChunkResult<Set<TorrentProperties>>> consumer);
+
+    /**
+     * It returns the torrents announcing to a tracker. The tracker index is refreshed
+     * with the properties of the torrents added since the last refresh only.
+     *
+     * @param tracker the tracker URI, as listed in the torrent properties
+     * @return the hashes of the torrents announcing to the tracker
+     */
+    Set<String> getTorrentHashesByTracker(String tracker);
+
+    /**
+     * It returns all the trackers the torrents announce to, refreshing the tracker
+     * index as {@link #getTorrentHashesByTracker(String)} does
+     *
+     * @return the tracker URIs
+     */
+    Set<String> getTrackers();
+
     /**
      *
      * It starts a torrent
@@ -334,6 +410,32 @@ public interface UTorrentWebAPIClient extends Closeable {
      */
     Set<Torrent> getAllTorrents();
 
+    /**
+     * It returns the cache holding the torrents known to the client, on which sorted
+     * views, indexes and listeners can be registered. The cache is refreshed by the
+     * calls listing torrents.
+     *
+     * @return the torrents cache of the client
+     */
+    TorrentsCache getTorrentsCache();
+
+    /**
+     * It refreshes the torrents known to the client and returns the hashes added, updated
+     * and removed since the version provided, see {@link TorrentsCache#changesSince(long)}
+     *
+     * @param version the cache version the caller last read, 0 on the first call
+     * @return the changes since that version, a full snapshot when the version is too old
+     */
+    TorrentChanges getTorrentChangesSince(long version);
+
+    /**
+     * It refreshes the torrents known to the client and returns those matching the query
+     *
+     * @param query the query to run against the torrents currently handled by the client
+     * @return the matching torrents, in the query order when one is specified
+     */
+    List<Torrent> getTorrents(TorrentQuery query);
+
     /**
      * This sets the specified property to the specified value for the torrent job.
      * Each v value is used as the value for the s property specified immediately before it.
@@ -351,6 +453,74 @@ public interface UTorrentWebAPIClient extends Closeable {
      */
     ClientSettings getClientSettings();
 
+    /**
+     * It returns the stats of the pool of connections to uTorrent, to size the pool
+     * through {@link ConnectionParams.ConnectionParamsBuilder#withMaxConnections(int, int)}
+     *
+     * @return the connections leased, available and the requests waiting for one,
+     * empty when the client does not manage the pool
+     */
+    Optional<ConnectionPoolStats> getConnectionPoolStats();
+
+    /**
+     * It returns the bytes received from uTorrent and the bytes they decoded to, per action,
+     * to measure the bandwidth saved by {@link ConnectionParams.ConnectionParamsBuilder#enableCompression(boolean)}
+     *
+     * @return the response sizes recorded since the client was created
+     */
+    CompressionStats getCompressionStats();
+
+    /**
+     * It returns the limiter set through {@link ConnectionParams.ConnectionParamsBuilder#withAdaptiveConcurrency(int)}
+     *
+     * @return the current limit, the requests in flight and those queued, empty when concurrency is not limited
+     */
+    Optional<AdaptiveConcurrencyLimiter> getConcurrencyLimiter();
+
+    /**
+     * It returns how often the client authenticated, had its session rejected and reset an expired
+     * session, the connection pool being kept across sessions
+     *
+     * @return the counters since the client was created
+     */
+    SessionStats getSessionStats();
+
+    /**
+     * It opens pooled connections, authenticates, fetches the torrent list and the settings and parses
+     * sample messages in the background, so that the first calls do not pay for them, as done at creation
+     * through {@link ConnectionParams.ConnectionParamsBuilder#withWarmUp(int)}. The warm-up runs once,
+     * the next calls return the same report
+     *
+     * @return the time spent in each phase, once they are all done, whether they failed or not
+     */
+    CompletableFuture<WarmUpReport> warmUp();
+
+    /**
+     * It makes the calls of the function within a deadline covering their authentications, retries
+     * and waits for a connection, their HTTP exchanges being aborted once it passes
+     *
+     * @param timeout the time the calls have
+     * @param call    the calls to make with this client
+     * @return the result of the function
+     * @throws com.utorrent.api.web.client.restclient.exceptions.DeadlineExceededException when the deadline passed
+     */
+    default <T> T withDeadline(Duration timeout, Function<UTorrentWebAPIClient, T> call) {
+        return withContext(CallContext.withTimeout(timeout), call);
+    }
+
+    /**
+     * It makes the calls of the function within a context another thread can cancel
+     *
+     * @param context the deadline and the cancellation of the calls
+     * @param call    the calls to make with this client
+     * @return the result of the function
+     * @throws com.utorrent.api.web.client.restclient.exceptions.CallCancelledException when the context was cancelled
+     * or its deadline passed
+     */
+    default <T> T withContext(CallContext context, Function<UTorrentWebAPIClient, T> call) {
+        return context.call(() -> call.apply(this));
+    }
+
     /**
      * Create an instance of a UTorrentWebAPIClient implementation passing the
      * connection parameters
@@ -361,4 +531,17 @@ public interface UTorrentWebAPIClient extends Closeable {
     static UTorrentWebAPIClient getClient(ConnectionParams connectionParams) {
         return new UTorrentWebAPIClientImpl(connectionParams, new MessageParser());
     }
+
+    /**
+     * Create an instance of a UTorrentWebAPIClient implementation passing the
+     * connection parameters and the cache to keep the torrents in, for instance
+     * a cache created with {@link TorrentsCache.UpdateMode#IN_PLACE}
+     *
+     * @param connectionParams parameters to pass to the client
+     * @param torrentsCache the cache the client keeps the torrents in
+     * @return the UTorrentWebAPIClient implementation
+     */
+    static UTorrentWebAPIClient getClient(ConnectionParams connectionParams, TorrentsCache torrentsCache) {
+        return new UTorrentWebAPIClientImpl(connectionParams, new MessageParser(), torrentsCache);
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.utorrent.api.web.client.core;
 
+import com.utorrent.api.web.client.core.WarmUpReport.Phase;
 import com.utorrent.api.web.client.core.entities.ClientSettings;
 import com.utorrent.api.web.client.core.entities.MagnetLink;
 import com.utorrent.api.web.client.core.entities.Priority;
@@ -7,26 +8,42 @@ import com.utorrent.api.web.client.core.entities.RequestResult;
 import com.utorrent.api.web.client.core.entities.Torrent;
 import com.utorrent.api.web.client.core.entities.TorrentFileList;
 import com.utorrent.api.web.client.core.entities.TorrentProperties;
+import com.utorrent.api.web.client.restclient.AdaptiveConcurrencyLimiter;
 import com.utorrent.api.web.client.restclient.AuthorizationData;
+import com.utorrent.api.web.client.restclient.CallContext;
+import com.utorrent.api.web.client.restclient.CompressionStats;
 import com.utorrent.api.web.client.restclient.ConnectionParams;
-import com.utorrent.api.web.client.restclient.RESTClient;
+import com.utorrent.api.web.client.restclient.ConnectionPoolStats;
+import com.utorrent.api.web.client.restclient.HttpTransport;
 import com.utorrent.api.web.client.restclient.Request;
 import com.utorrent.api.web.client.restclient.Request.FilePart;
 import com.utorrent.api.web.client.restclient.Request.QueryParam;
 import com.utorrent.api.web.client.restclient.Request.RequestBuilder;
+import com.utorrent.api.web.client.restclient.RequestPriority;
 import com.utorrent.api.web.client.restclient.exceptions.BadRequestException;
-import com.utorrent.api.web.client.restclient.exceptions.UnauthorizedException;
+import com.utorrent.api.web.client.utils.ExecutionBackend;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 import static com.utorrent.api.web.client.core.Action.*;
@@ -47,57 +64,108 @@ class UTorrentWebAPIClientImpl implements UTorrentWebAPIClient {
     static final String FILE_INDEX_QUERY_PARAM_NAME = "f";
     static final String PRIORITY_QUERY_PARAM_NAME = "p";
     static final String TORRENT_FILE_PART_NAME = "torrent_file";
+    static final String TORRENT_FILE_NAME = "upload.torrent";
+    /**
+     * The build number the server answers to an action it carried out.
+     */
+    static final String SUCCESS_MARKER = "build";
 
     private final TorrentsCache torrentsCache;
+    private final TrackerIndex trackerIndex;
     private final MessageParser messageParser;
     private final URI serverURI;
+    private final Map<Action, ActionRequestTemplate> requestTemplates;
+    private final ActionBatcher actionBatcher;
+    private final AuthorizationManager authorizationManager;
 
-    private AuthorizationData authorizationData;
-    private RESTClient client;
+    private final HttpTransport client;
+    private final SessionLifecycle sessionLifecycle;
+    private final AtomicReference<CompletableFuture<WarmUpReport>> warmUp;
+    private final Lock fetchExecutorLock;
+    private ExecutorService fetchExecutor;
 
     UTorrentWebAPIClientImpl(
         final ConnectionParams connectionParams,
         final MessageParser messageParser
     ) {
-        resetRestClient(connectionParams);
+        this(connectionParams, messageParser, new TorrentsCache());
+    }
+
+    UTorrentWebAPIClientImpl(
+        final ConnectionParams connectionParams,
+        final MessageParser messageParser,
+        final TorrentsCache torrentsCache
+    ) {
+        this.client = createRestClient(connectionParams);
+        this.sessionLifecycle = new SessionLifecycle(client);
         this.serverURI = client.getServerURI();
+        this.requestTemplates = ActionRequestTemplate.forActions(serverURI);
         this.messageParser = messageParser;
-        this.torrentsCache = new TorrentsCache();
+        this.torrentsCache = requireNonNull(torrentsCache, "Torrents cache cannot be null");
+        this.trackerIndex = new TrackerIndex();
+        this.torrentsCache.addListener(trackerIndex);
+        this.actionBatcher = createActionBatcher();
+        this.authorizationManager = createAuthorizationManager();
+        this.warmUp = new AtomicReference<>();
+        this.fetchExecutorLock = new ReentrantLock();
         log.info("Initialization of Torrent WebAPIClient for server {} was successful", serverURI);
+        if (connectionParams.isWarmUpEnabled()) {
+            warmUp();
+        }
     }
 
     UTorrentWebAPIClientImpl(
         final MessageParser messageParser,
-        final RESTClient client
+        final HttpTransport client
     ) {
         this.client = client;
+        this.sessionLifecycle = new SessionLifecycle(client);
         this.serverURI = client.getServerURI();
+        this.requestTemplates = ActionRequestTemplate.forActions(serverURI);
         this.messageParser = messageParser;
         this.torrentsCache = new TorrentsCache();
+        this.trackerIndex = new TrackerIndex();
+        this.torrentsCache.addListener(trackerIndex);
+        this.actionBatcher = createActionBatcher();
+        this.authorizationManager = createAuthorizationManager();
+        this.warmUp = new AtomicReference<>();
+        this.fetchExecutorLock = new ReentrantLock();
+    }
+
+    /**
+     * The batched actions are sent by the thread of the batcher, blocking it until the response.
+     */
+    private ActionBatcher createActionBatcher() {
+        final ConnectionParams connectionParams = getConnectionParams();
+        if (!connectionParams.isActionBatchingEnabled()) {
+            return null;
+        }
+        return new ActionBatcher((action, hashes) -> {
+            try {
+                return CompletableFuture.completedFuture(executeMutation(action, hashes, List.of()));
+            } catch (final RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }, connectionParams.getActionBatchWindow(), connectionParams.getMaxUrlLength(), serverURI);
     }
 
-    private AuthorizationData getAuthorizationData() {
-        if (authorizationData == null) {
-            authorizationData = client.authenticate();
-            log.info("AuthorizationData: {} ", authorizationData);
-
-            if (authorizationData.getStatus() == AuthorizationData.Status.EXPIRED) {
-                log.warn("Session has expired. Resetting client...");
-                resetRestClient(client.getConnectionParams());
-                authorizationData = client.authenticate();
-                log.info("AuthorizationData after authentication with client reset: {} ", authorizationData);
+    private AuthorizationManager createAuthorizationManager() {
+        final Duration refreshInterval = Duration.ofMillis(getConnectionParams().getTokenRefreshInterval());
+        return new AuthorizationManager(sessionLifecycle::authenticate, refreshInterval);
+    }
 
-                if (authorizationData.getStatus() != AuthorizationData.Status.OK) {
-                    throw new UnauthorizedException(401, "Failed to process the Set-Cookie header part of GUID");
-                }
-            }
-        }
-        return authorizationData;
+    /**
+     * @return the parameters of the transport, the default ones for the server when the transport
+     * was given without parameters
+     */
+    private ConnectionParams getConnectionParams() {
+        final ConnectionParams params = client.getConnectionParams();
+        return params != null ? params : ConnectionParams.builder().withHost(serverURI.getHost()).create();
     }
 
     @SneakyThrows
-    void resetRestClient(final ConnectionParams connectionParams) {
-        client = new RESTClient(connectionParams);
+    private static HttpTransport createRestClient(final ConnectionParams connectionParams) {
+        return HttpTransport.create(connectionParams);
     }
 
     private <T> T invokeWithAuthentication(
@@ -105,19 +173,33 @@ class UTorrentWebAPIClientImpl implements UTorrentWebAPIClient {
         final Function<Request, T> responseSupplier,
         final boolean retryIfAuthFailed
     ) {
+        final Request baseRequest = requestBuilder.build();
+        return invokeWithAuthentication(authData -> baseRequest.toBuilder()
+            .param(new QueryParam(TOKEN_PARAM_NAME, authData.getToken()))
+            .header("Cookie", authData.getGuidCookie())
+            .build(), responseSupplier, retryIfAuthFailed);
+    }
+
+    /**
+     * A request rejected with a token drops the session of that token only, and is retried
+     * once with the current session if the call context of the thread, if any, is still live.
+     */
+    private <T> T invokeWithAuthentication(
+        final Function<AuthorizationData, Request> requestFactory,
+        final Function<Request, T> responseSupplier,
+        final boolean retryIfAuthFailed
+    ) {
+        CallContext.current().ifPresent(CallContext::check);
+        final AuthorizationManager.Session session = authorizationManager.acquire();
         try {
-            final AuthorizationData authData = getAuthorizationData();
-            final Request request = requestBuilder
-                .param(new QueryParam(TOKEN_PARAM_NAME, authData.getToken()))
-                .header("Cookie", authData.getGuidCookie())
-                .build();
+            final Request request = requestFactory.apply(session.getAuthorizationData());
             final T response = responseSupplier.apply(request);
             requireNonNull(response, format("Received null response from server, request %s", responseSupplier));
             return response;
         } catch (final BadRequestException e) {
-            setAuthorizationDataExpired();
+            authorizationManager.invalidate(session);
             if (retryIfAuthFailed) {
-                return invokeWithAuthentication(requestBuilder, responseSupplier, false);
+                return invokeWithAuthentication(requestFactory, responseSupplier, false);
             } else {
                 throw new UTorrentAuthException("Impossible to connect to uTorrents, wrong username or password", e);
             }
@@ -134,13 +216,33 @@ class UTorrentWebAPIClientImpl implements UTorrentWebAPIClient {
 
     @Override
     public RequestResult addTorrent(File torrentFile) {
+        return addTorrent(new FilePart(TORRENT_FILE_PART_NAME, torrentFile, APPLICATION_X_BIT_TORRENT_CONTENT_TYPE));
+    }
+
+    @Override
+    public RequestResult addTorrent(byte[] torrent) {
+        return addTorrent(FilePart.ofBytes(TORRENT_FILE_PART_NAME, TORRENT_FILE_NAME, torrent, APPLICATION_X_BIT_TORRENT_CONTENT_TYPE));
+    }
 
+    @Override
+    public RequestResult addTorrent(ByteBuffer torrent) {
+        return addTorrent(FilePart.ofBuffer(TORRENT_FILE_PART_NAME, TORRENT_FILE_NAME, torrent, APPLICATION_X_BIT_TORRENT_CONTENT_TYPE));
+    }
+
+    @Override
+    public RequestResult addTorrent(InputStream torrent, long length) {
+        return addTorrent(FilePart.ofStream(TORRENT_FILE_PART_NAME, TORRENT_FILE_NAME, torrent, length, APPLICATION_X_BIT_TORRENT_CONTENT_TYPE));
+    }
+
+    private RequestResult addTorrent(FilePart torrent) {
         RequestBuilder requestBuilder = Request.builder()
                 .uri(serverURI)
+                .name(ADD_FILE.getName())
+                .priority(RequestPriority.INTERACTIVE)
                 .param(new Request.QueryParam(ACTION_QUERY_PARAM_NAME, ADD_FILE.getName()))
-                .file(new FilePart(TORRENT_FILE_PART_NAME, torrentFile, APPLICATION_X_BIT_TORRENT_CONTENT_TYPE));
+                .file(torrent);
 
-        String stringResult = invokeWithAuthentication(requestBuilder, client::post, true);
+        String stringResult = invokeWithAuthentication(requestBuilder, client::post, torrent.isRepeatable());
         return getResult(stringResult);
     }
 
@@ -150,9 +252,22 @@ class UTorrentWebAPIClientImpl implements UTorrentWebAPIClient {
         return torrentsCache.getTorrentList();
     }
 
+    @Override
+    public TorrentChanges getTorrentChangesSince(long version) {
+        updateTorrentCache();
+        return torrentsCache.changesSince(version);
+    }
+
+    @Override
+    public List<Torrent> getTorrents(TorrentQuery query) {
+        updateTorrentCache();
+        return torrentsCache.query(query);
+    }
+
     private void updateTorrentCache() {
         RequestBuilder requestBuilder = Request.builder()
                 .uri(serverURI)
+                .name(LIST_QUERY_PARAM_NAME)
                 .param(new QueryParam(LIST_QUERY_PARAM_NAME, "1"));
 
         if (nonNull(torrentsCache.getCachedID())) {
@@ -160,7 +275,16 @@ class UTorrentWebAPIClientImpl implements UTorrentWebAPIClient {
         }
 
         String jsonTorrentSnapshotMessage = invokeWithAuthentication(requestBuilder, client::get, true);
-        torrentsCache.updateCache(messageParser.parseAsTorrentListSnapshot(jsonTorrentSnapshotMessage));
+        if (torrentsCache.getUpdateMode() == TorrentsCache.UpdateMode.IN_PLACE) {
+            torrentsCache.updateCache(messageParser.parseAsRawTorrentListSnapshot(jsonTorrentSnapshotMessage), messageParser);
+        } else {
+            torrentsCache.updateCache(messageParser.parseAsTorrentListSnapshot(jsonTorrentSnapshotMessage));
+        }
+    }
+
+    @Override
+    public TorrentsCache getTorrentsCache() {
+        return torrentsCache;
     }
 
     @Override
@@ -204,10 +328,17 @@ class UTorrentWebAPIClientImpl implements UTorrentWebAPIClient {
         return getTorrentFiles(List.of(torrentHash)).stream().findFirst();
     }
 
+    @Override
+    public void streamTorrentFiles(List<String> torrentHashes, Consumer<ChunkResult<Set<TorrentFileList>>> consumer) {
+        streamChunks(GET_FILES, torrentHashes, this::getTorrentFiles, consumer);
+    }
+
     @Override
     public Set<TorrentProperties> getTorrentProperties(List<String> torrentHashes) {
         String jsonTorrentPropertiesMessage = executeAction(GET_PROP, torrentHashes, List.of());
-        return messageParser.parseAsTorrentProperties(jsonTorrentPropertiesMessage);
+        Set<TorrentProperties> properties = messageParser.parseAsTorrentProperties(jsonTorrentPropertiesMessage);
+        trackerIndex.update(torrentHashes, properties);
+        return properties;
     }
 
     @Override
@@ -215,6 +346,81 @@ class UTorrentWebAPIClientImpl implements UTorrentWebAPIClient {
         return getTorrentProperties(List.of(torrentHash)).stream().findFirst();
     }
 
+    @Override
+    public void streamTorrentProperties(List<String> torrentHashes, Consumer<ChunkResult<Set<TorrentProperties>>> consumer) {
+        streamChunks(GET_PROP, torrentHashes, this::getTorrentProperties, consumer);
+    }
+
+    /**
+     * The chunks are fetched by the threads of the client, within the call context of the calling thread,
+     * once the client is authenticated by the calling thread.
+     */
+    private <T> void streamChunks(
+        final Action action,
+        final List<String> torrentHashes,
+        final Function<List<String>, T> fetch,
+        final Consumer<ChunkResult<T>> consumer
+    ) {
+        final ConnectionParams connectionParams = getConnectionParams();
+        final List<List<String>> chunks = new HashChunker(serverURI, connectionParams.getMaxUrlLength()).split(action, torrentHashes);
+        if (chunks.isEmpty()) {
+            return;
+        }
+        authorizationManager.acquire();
+        final Optional<CallContext> context = CallContext.current();
+        final Function<List<String>, T> fetchInContext = context
+            .<Function<List<String>, T>>map(callContext -> hashes -> callContext.call(() -> fetch.apply(hashes)))
+            .orElse(fetch);
+        final int parallelism = Math.min(connectionParams.getFetchParallelism(), chunks.size());
+        final ExecutorService executor = getFetchExecutor();
+        try {
+            ChunkedFetch.run(chunks, parallelism, hashes -> CompletableFuture.supplyAsync(() -> fetchInContext.apply(hashes), executor), consumer)
+                .join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return the threads the chunks are fetched by, as many as the fetch parallelism, started by
+     * the first chunked fetch
+     */
+    private ExecutorService getFetchExecutor() {
+        fetchExecutorLock.lock();
+        try {
+            if (fetchExecutor == null) {
+                fetchExecutor = ExecutionBackend.newTaskExecutor("utorrent-chunked-fetch", getConnectionParams().getFetchParallelism());
+            }
+            return fetchExecutor;
+        } finally {
+            fetchExecutorLock.unlock();
+        }
+    }
+
+    @Override
+    public Set<String> getTorrentHashesByTracker(String tracker) {
+        refreshTrackerIndex();
+        return trackerIndex.getHashes(tracker);
+    }
+
+    @Override
+    public Set<String> getTrackers() {
+        refreshTrackerIndex();
+        return trackerIndex.getTrackers();
+    }
+
+    private void refreshTrackerIndex() {
+        updateTorrentCache();
+        Set<String> staleHashes = trackerIndex.getStaleHashes();
+        HashChunker chunker = new HashChunker(serverURI, getConnectionParams().getMaxUrlLength());
+        for (List<String> chunk : chunker.split(GET_PROP, staleHashes)) {
+            getTorrentProperties(chunk);
+        }
+    }
+
     @Override
     public RequestResult startTorrent(List<String> hashes) {
         return executeBaseTorrentAction(START, hashes);
@@ -341,7 +547,7 @@ class UTorrentWebAPIClientImpl implements UTorrentWebAPIClient {
         List<Request.QueryParam> params = new ArrayList<>();
         params.add(new Request.QueryParam(PRIORITY_QUERY_PARAM_NAME, String.valueOf(priority.getValue())));
         fileIndices.forEach(index -> params.add(new Request.QueryParam(FILE_INDEX_QUERY_PARAM_NAME, String.valueOf(index))));
-        return getResult(executeAction(SET_PRIORITY, List.of(hash), params));
+        return executeMutation(SET_PRIORITY, List.of(hash), params);
     }
 
     @Override
@@ -356,7 +562,7 @@ class UTorrentWebAPIClientImpl implements UTorrentWebAPIClient {
 
     @Override
     public RequestResult setClientSetting(List<Request.QueryParam> settings) {
-        return getResult(executeAction(SET_SETTING, List.of(), settings));
+        return executeMutation(SET_SETTING, List.of(), settings);
     }
 
     @Override
@@ -365,35 +571,128 @@ class UTorrentWebAPIClientImpl implements UTorrentWebAPIClient {
         return messageParser.parseAsClientSettings(returnedValue);
     }
 
+    /**
+     * A call made within a call context is sent at once, so that its deadline and its cancellation apply.
+     */
     private RequestResult executeBaseTorrentAction(Action action, List<String> hashes) {
-        return getResult(executeAction(action, hashes, List.of()));
+        if (actionBatcher == null || CallContext.current().isPresent()) {
+            return executeMutation(action, hashes, List.of());
+        }
+        try {
+            return actionBatcher.submit(action, hashes).join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
     }
 
     private String executeAction(Action action) {
         return executeAction(action, List.of(), List.of());
     }
 
+    /**
+     * The response of an action changing the state of the client is only scanned for the build
+     * number acknowledging it, its body is not kept.
+     */
+    private RequestResult executeMutation(Action action, List<String> torrentHashes, List<Request.QueryParam> queryParams) {
+        return getResult(executeAction(action, torrentHashes, queryParams, SUCCESS_MARKER));
+    }
+
     private String executeAction(Action action, List<String> torrentHashes, List<Request.QueryParam> queryParams) {
-        final RequestBuilder requestBuilder = Request
+        return executeAction(action, torrentHashes, queryParams, null);
+    }
+
+    private String executeAction(Action action, List<String> torrentHashes, List<Request.QueryParam> queryParams, String successMarker) {
+        final ActionRequestTemplate template = requestTemplates.get(action);
+        final RequestPriority priority = priorityOf(action, torrentHashes);
+        return invokeWithAuthentication(authData -> Request
             .builder()
-            .uri(serverURI)
-            .param(new QueryParam(ACTION_QUERY_PARAM_NAME, action.getName()));
+            .uri(template.toURI(authData.getToken(), torrentHashes, queryParams))
+            .name(action.getName())
+            .priority(priority)
+            .successMarker(successMarker)
+            .header("Cookie", authData.getGuidCookie())
+            .build(), client::get, true);
+    }
+
+    /**
+     * Reading the files or properties of several torrents is a bulk sweep, every other action,
+     * the list polls aside, is waited on by the user.
+     */
+    private static RequestPriority priorityOf(Action action, List<String> torrentHashes) {
+        if ((action == GET_FILES || action == GET_PROP) && torrentHashes.size() > 1) {
+            return RequestPriority.BULK;
+        }
+        return RequestPriority.INTERACTIVE;
+    }
+
+    @Override
+    public Optional<ConnectionPoolStats> getConnectionPoolStats() {
+        return client.getConnectionPoolStats();
+    }
+
+    @Override
+    public CompressionStats getCompressionStats() {
+        return client.getCompressionStats();
+    }
 
-        queryParams.forEach(param -> requestBuilder.param(new QueryParam(param.getName(), param.getValue())));
-        torrentHashes.forEach(hash -> requestBuilder.param(new QueryParam(HASH_QUERY_PARAM_NAME, hash)));
-        return invokeWithAuthentication(requestBuilder, client::get, true);
+    @Override
+    public Optional<AdaptiveConcurrencyLimiter> getConcurrencyLimiter() {
+        return client.getConcurrencyLimiter();
+    }
+
+    /**
+     * The connections opened are as many as the chunks fetched at the same time, and the
+     * authentication is followed by the list and settings fetches, in parallel.
+     */
+    @Override
+    public CompletableFuture<WarmUpReport> warmUp() {
+        final CompletableFuture<WarmUpReport> current = warmUp.get();
+        if (current != null) {
+            return current;
+        }
+        final CompletableFuture<WarmUpReport> report = new CompletableFuture<>();
+        if (!warmUp.compareAndSet(null, report)) {
+            return warmUp.get();
+        }
+        final ConnectionParams connectionParams = getConnectionParams();
+        final ClientWarmUp clientWarmUp = new ClientWarmUp();
+        clientWarmUp.phase(Phase.CONNECT, () -> client.openConnections(Math.min(
+            connectionParams.getFetchParallelism(), connectionParams.getPoolParams().getMaxConnectionsPerRoute())));
+        final CompletableFuture<Void> authenticated = clientWarmUp.phase(Phase.AUTHENTICATE, authorizationManager::acquire);
+        clientWarmUp.phase(Phase.TORRENT_LIST, authenticated, this::updateTorrentCache);
+        clientWarmUp.phase(Phase.SETTINGS, authenticated, this::getClientSettings);
+        if (connectionParams.getWarmUpParsingIterations() > 0) {
+            clientWarmUp.phase(Phase.PARSING, () -> ClientWarmUp.warmUpParser(messageParser, connectionParams.getWarmUpParsingIterations()));
+        }
+        clientWarmUp.report().thenAccept(report::complete);
+        return report;
     }
 
-    private void setAuthorizationDataExpired() {
-        authorizationData = null;
+    @Override
+    public SessionStats getSessionStats() {
+        return sessionLifecycle.getStats(authorizationManager.getRejectedSessions());
     }
 
     @Override
     public void close() throws IOException {
+        if (actionBatcher != null) {
+            actionBatcher.close();
+        }
+        fetchExecutorLock.lock();
+        try {
+            if (fetchExecutor != null) {
+                fetchExecutor.shutdown();
+            }
+        } finally {
+            fetchExecutorLock.unlock();
+        }
         this.client.close();
     }
 
-    private RequestResult getResult(String result) {
-        return nonNull(result) && result.contains("build") ? SUCCESS : FAIL;
+    static RequestResult getResult(String result) {
+        return nonNull(result) && result.contains(SUCCESS_MARKER) ? SUCCESS : FAIL;
     }
 }
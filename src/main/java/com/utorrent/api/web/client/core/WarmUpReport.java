@@ -0,0 +1,42 @@
+package com.utorrent.api.web.client.core;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * The time spent in each phase of the warm-up of a client and the phases which failed.
+ * A phase waiting for a failed phase, such as the list fetch waiting for the authentication,
+ * is not run and is reported neither done nor failed.
+ */
+@Data
+public class WarmUpReport {
+    private final Map<Phase, Duration> phaseDurations;
+    private final Map<Phase, Throwable> failures;
+    private final Duration total;
+
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+
+    public enum Phase {
+        /**
+         * Opening pooled connections to the server.
+         */
+        CONNECT,
+        AUTHENTICATE,
+        /**
+         * Fetching the full torrent list into the cache, once authenticated.
+         */
+        TORRENT_LIST,
+        /**
+         * Fetching the client settings, once authenticated.
+         */
+        SETTINGS,
+        /**
+         * Parsing sample messages so that the parsing code is compiled before the first real response.
+         */
+        PARSING
+    }
+}
@@ -12,7 +12,7 @@ import java.util.Set;
 import static java.util.stream.Collectors.toSet;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class Torrent {
 
     private Set<TorrentStatus> statuses;
@@ -53,6 +53,8 @@ public class Torrent {
         QUEUED(64),
         LOADED(128);
 
+        private static final int KNOWN_STATUSES = encodeStatus(Set.of(values()));
+
         private int mask;
 
         TorrentStatus(int mask) {
@@ -63,6 +65,23 @@ public class Torrent {
             return mask;
         }
 
+        public static int encodeStatus(Set<TorrentStatus> statuses) {
+            int maskedStatus = 0;
+            if (statuses != null) {
+                for (TorrentStatus status : statuses) {
+                    maskedStatus |= status.getMask();
+                }
+            }
+            return maskedStatus;
+        }
+
+        /**
+         * @return the masked status provided, restricted to the known statuses
+         */
+        public static int encodeStatus(int maskedStatus) {
+            return maskedStatus & KNOWN_STATUSES;
+        }
+
         public static Set<TorrentStatus> decodeStatus(int maskedStatus) {
             return Arrays.stream(values())
                     .filter(torrentStatus -> (torrentStatus.getMask() & maskedStatus) != 0)
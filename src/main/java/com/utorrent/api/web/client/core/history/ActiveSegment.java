@@ -0,0 +1,172 @@
+package com.utorrent.api.web.client.core.history;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.utorrent.api.web.client.core.history.TorrentSample.COLUMNS;
+import static com.utorrent.api.web.client.core.history.TorrentSample.FLOAT_COLUMNS;
+import static com.utorrent.api.web.client.core.history.TorrentSample.LABEL;
+import static com.utorrent.api.web.client.core.history.TorrentSample.LONG_COLUMNS;
+import static com.utorrent.api.web.client.core.history.TorrentSample.NAME;
+
+/**
+ * The segment being written, held in memory until it is sealed to a file.
+ */
+final class ActiveSegment implements HistorySegment {
+
+    static final int MAGIC = 0x55544853;
+    static final int FORMAT_VERSION = 1;
+
+    private final long start;
+    private final long end;
+    private final List<String> dictionary;
+    private final Map<String, Integer> dictionaryIds;
+    private final Map<String, SeriesWriter> series;
+
+    ActiveSegment(long start, long end) {
+        this.start = start;
+        this.end = end;
+        this.dictionary = new ArrayList<>();
+        this.dictionaryIds = new HashMap<>();
+        this.series = new LinkedHashMap<>();
+        dictionaryId(null);
+    }
+
+    void append(String hash, long timestamp, TorrentSample sample) {
+        sample.longs[NAME] = dictionaryId(sample.name);
+        sample.longs[LABEL] = dictionaryId(sample.label);
+        series.computeIfAbsent(hash, key -> new SeriesWriter()).append(timestamp, sample);
+    }
+
+    boolean isEmpty() {
+        return series.isEmpty();
+    }
+
+    @Override
+    public long getStart() {
+        return start;
+    }
+
+    @Override
+    public long getEnd() {
+        return end;
+    }
+
+    @Override
+    public Set<String> getHashes() {
+        return series.keySet();
+    }
+
+    @Override
+    public SeriesData getSeries(String hash) {
+        SeriesWriter writer = series.get(hash);
+        return writer == null ? null : writer.toSeriesData();
+    }
+
+    @Override
+    public String getDictionaryEntry(int id) {
+        return dictionary.get(id);
+    }
+
+    /**
+     * Writes the segment to a file, see {@link SealedSegment} for the layout.
+     */
+    void writeTo(Path file) throws IOException {
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(start);
+            out.writeLong(end);
+            out.writeInt(dictionary.size());
+            for (int id = 1; id < dictionary.size(); id++) {
+                writeString(out, dictionary.get(id));
+            }
+            out.writeInt(series.size());
+            for (Map.Entry<String, SeriesWriter> entry : series.entrySet()) {
+                writeString(out, entry.getKey());
+                entry.getValue().writeTo(out);
+            }
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private int dictionaryId(String value) {
+        Integer id = dictionaryIds.get(value);
+        if (id == null) {
+            id = dictionary.size();
+            dictionary.add(value);
+            dictionaryIds.put(value, id);
+        }
+        return id;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static final class SeriesWriter {
+        private final BitWriter[] columns;
+        private final DeltaOfDeltaCodec.Encoder timestamps;
+        private final DeltaOfDeltaCodec.Encoder[] longs;
+        private final XorFloatCodec.Encoder[] floats;
+        private int sampleCount;
+
+        private SeriesWriter() {
+            columns = new BitWriter[COLUMNS];
+            for (int column = 0; column < COLUMNS; column++) {
+                columns[column] = new BitWriter();
+            }
+            timestamps = new DeltaOfDeltaCodec.Encoder(columns[0]);
+            longs = new DeltaOfDeltaCodec.Encoder[LONG_COLUMNS];
+            for (int column = 0; column < LONG_COLUMNS; column++) {
+                longs[column] = new DeltaOfDeltaCodec.Encoder(columns[1 + column]);
+            }
+            floats = new XorFloatCodec.Encoder[FLOAT_COLUMNS];
+            for (int column = 0; column < FLOAT_COLUMNS; column++) {
+                floats[column] = new XorFloatCodec.Encoder(columns[1 + LONG_COLUMNS + column]);
+            }
+        }
+
+        private void append(long timestamp, TorrentSample sample) {
+            timestamps.add(timestamp);
+            for (int column = 0; column < LONG_COLUMNS; column++) {
+                longs[column].add(sample.longs[column]);
+            }
+            for (int column = 0; column < FLOAT_COLUMNS; column++) {
+                floats[column].add(sample.floats[column]);
+            }
+            sampleCount++;
+        }
+
+        private SeriesData toSeriesData() {
+            ByteBuffer[] buffers = new ByteBuffer[COLUMNS];
+            for (int column = 0; column < COLUMNS; column++) {
+                buffers[column] = ByteBuffer.wrap(columns[column].getBuffer(), 0, columns[column].getByteLength()).slice();
+            }
+            return new SeriesData(sampleCount, buffers);
+        }
+
+        private void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(sampleCount);
+            for (BitWriter column : columns) {
+                out.writeInt(column.getByteLength());
+                out.write(column.getBuffer(), 0, column.getByteLength());
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.utorrent.api.web.client.core.history;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads a bit stream written by {@link BitWriter} from a buffer, starting at its position.
+ */
+final class BitReader {
+
+    private final ByteBuffer buffer;
+    private final int offset;
+    private long bitPosition;
+
+    BitReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.offset = buffer.position();
+        this.bitPosition = 0;
+    }
+
+    boolean readBit() {
+        int value = buffer.get(offset + (int) (bitPosition >>> 3));
+        boolean bit = (value & (0x80 >>> (bitPosition & 7))) != 0;
+        bitPosition++;
+        return bit;
+    }
+
+    long readBits(int count) {
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            value = (value << 1) | (readBit() ? 1 : 0);
+        }
+        return value;
+    }
+}
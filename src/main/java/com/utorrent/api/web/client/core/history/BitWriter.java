@@ -0,0 +1,51 @@
+package com.utorrent.api.web.client.core.history;
+
+import java.util.Arrays;
+
+/**
+ * Growable bit stream, bits are written most significant first.
+ */
+final class BitWriter {
+
+    private byte[] buffer;
+    private long bitLength;
+
+    BitWriter() {
+        this.buffer = new byte[16];
+    }
+
+    void writeBit(boolean bit) {
+        int byteIndex = (int) (bitLength >>> 3);
+        if (byteIndex == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        if (bit) {
+            buffer[byteIndex] |= (byte) (0x80 >>> (bitLength & 7));
+        }
+        bitLength++;
+    }
+
+    /**
+     * Writes the lowest {@code count} bits of the value.
+     */
+    void writeBits(long value, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            writeBit(((value >>> i) & 1) != 0);
+        }
+    }
+
+    long getBitLength() {
+        return bitLength;
+    }
+
+    /**
+     * @return the array currently backing the stream, valid up to {@link #getByteLength()}
+     */
+    byte[] getBuffer() {
+        return buffer;
+    }
+
+    int getByteLength() {
+        return (int) ((bitLength + 7) >>> 3);
+    }
+}
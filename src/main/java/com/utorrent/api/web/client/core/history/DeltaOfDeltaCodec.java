@@ -0,0 +1,91 @@
+package com.utorrent.api.web.client.core.history;
+
+/**
+ * Delta-of-delta encoding of a series of longs, as used for timestamps by Gorilla.
+ * Regular series such as timestamps of periodic polls or counters growing at a steady
+ * rate cost one bit per value, the other values cost from 9 to 68 bits.
+ */
+final class DeltaOfDeltaCodec {
+
+    private DeltaOfDeltaCodec() {
+    }
+
+    static final class Encoder {
+        private final BitWriter out;
+        private int count;
+        private long previous;
+        private long previousDelta;
+
+        Encoder(BitWriter out) {
+            this.out = out;
+        }
+
+        void add(long value) {
+            if (count == 0) {
+                out.writeBits(value, 64);
+            } else {
+                long delta = value - previous;
+                writeDeltaOfDelta(delta - previousDelta);
+                previousDelta = delta;
+            }
+            previous = value;
+            count++;
+        }
+
+        private void writeDeltaOfDelta(long deltaOfDelta) {
+            if (deltaOfDelta == 0) {
+                out.writeBit(false);
+            } else if (deltaOfDelta >= -63 && deltaOfDelta <= 64) {
+                out.writeBits(0b10, 2);
+                out.writeBits(deltaOfDelta + 63, 7);
+            } else if (deltaOfDelta >= -255 && deltaOfDelta <= 256) {
+                out.writeBits(0b110, 3);
+                out.writeBits(deltaOfDelta + 255, 9);
+            } else if (deltaOfDelta >= -2047 && deltaOfDelta <= 2048) {
+                out.writeBits(0b1110, 4);
+                out.writeBits(deltaOfDelta + 2047, 12);
+            } else {
+                out.writeBits(0b1111, 4);
+                out.writeBits(deltaOfDelta, 64);
+            }
+        }
+    }
+
+    static final class Decoder {
+        private final BitReader in;
+        private int count;
+        private long previous;
+        private long previousDelta;
+
+        Decoder(BitReader in) {
+            this.in = in;
+        }
+
+        long next() {
+            if (count == 0) {
+                previous = in.readBits(64);
+            } else {
+                previousDelta += readDeltaOfDelta();
+                previous += previousDelta;
+            }
+            count++;
+            return previous;
+        }
+
+        private long readDeltaOfDelta() {
+            if (!in.readBit()) {
+                return 0;
+            }
+            if (!in.readBit()) {
+                return in.readBits(7) - 63;
+            }
+            if (!in.readBit()) {
+                return in.readBits(9) - 255;
+            }
+            if (!in.readBit()) {
+                return in.readBits(12) - 2047;
+            }
+            return in.readBits(64);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.utorrent.api.web.client.core.history;
+
+import java.util.Set;
+
+/**
+ * Samples recorded over a time range, from the first sample written to the next segment.
+ * A segment starts with a sample of every torrent known at its start, so that a torrent
+ * can be reconstructed from the segment alone.
+ */
+interface HistorySegment {
+
+    /**
+     * @return the timestamp of the first sample, in epoch milliseconds
+     */
+    long getStart();
+
+    /**
+     * @return the timestamp from which samples are written to the next segment
+     */
+    long getEnd();
+
+    Set<String> getHashes();
+
+    /**
+     * @return the samples of a torrent, null when the torrent has none in this segment
+     */
+    SeriesData getSeries(String hash);
+
+    String getDictionaryEntry(int id);
+}
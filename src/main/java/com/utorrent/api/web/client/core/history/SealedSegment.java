@@ -0,0 +1,109 @@
+package com.utorrent.api.web.client.core.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static com.utorrent.api.web.client.core.history.TorrentSample.COLUMNS;
+
+/**
+ * A segment written to a file and read through a read-only memory mapping.
+ * The file holds, in big-endian order: magic, format version, start, end, the size of
+ * the dictionary followed by its entries but the first one (null), the number of series
+ * and for each series its hash, its sample count and each column as a length followed
+ * by the encoded bytes. Strings are written as a length followed by UTF-8 bytes.
+ */
+final class SealedSegment implements HistorySegment {
+
+    private final Path file;
+    private final long start;
+    private final long end;
+    private final String[] dictionary;
+    private final Map<String, SeriesData> series;
+
+    private SealedSegment(Path file, long start, long end, String[] dictionary, Map<String, SeriesData> series) {
+        this.file = file;
+        this.start = start;
+        this.end = end;
+        this.dictionary = dictionary;
+        this.series = series;
+    }
+
+    static SealedSegment open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.getInt() != ActiveSegment.MAGIC || buffer.getInt() != ActiveSegment.FORMAT_VERSION) {
+            throw new IOException("Not a torrent history segment: " + file);
+        }
+        long start = buffer.getLong();
+        long end = buffer.getLong();
+
+        String[] dictionary = new String[buffer.getInt()];
+        for (int id = 1; id < dictionary.length; id++) {
+            dictionary[id] = readString(buffer);
+        }
+
+        int seriesCount = buffer.getInt();
+        Map<String, SeriesData> series = new HashMap<>(seriesCount * 2);
+        for (int i = 0; i < seriesCount; i++) {
+            String hash = readString(buffer);
+            int sampleCount = buffer.getInt();
+            ByteBuffer[] columns = new ByteBuffer[COLUMNS];
+            for (int column = 0; column < COLUMNS; column++) {
+                int length = buffer.getInt();
+                ByteBuffer slice = buffer.slice();
+                slice.limit(length);
+                columns[column] = slice;
+                buffer.position(buffer.position() + length);
+            }
+            series.put(hash, new SeriesData(sampleCount, columns));
+        }
+        return new SealedSegment(file, start, end, dictionary, series);
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    @Override
+    public long getStart() {
+        return start;
+    }
+
+    @Override
+    public long getEnd() {
+        return end;
+    }
+
+    @Override
+    public Set<String> getHashes() {
+        return Collections.unmodifiableSet(series.keySet());
+    }
+
+    @Override
+    public SeriesData getSeries(String hash) {
+        return series.get(hash);
+    }
+
+    @Override
+    public String getDictionaryEntry(int id) {
+        return dictionary[id];
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
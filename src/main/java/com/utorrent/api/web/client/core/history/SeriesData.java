@@ -0,0 +1,74 @@
+package com.utorrent.api.web.client.core.history;
+
+import java.nio.ByteBuffer;
+
+import static com.utorrent.api.web.client.core.history.TorrentSample.FLOAT_COLUMNS;
+import static com.utorrent.api.web.client.core.history.TorrentSample.LONG_COLUMNS;
+
+/**
+ * The encoded columns of the samples of one torrent within a segment.
+ * Columns are decoded independently, so a query only pays for the columns it reads.
+ */
+final class SeriesData {
+
+    private final int sampleCount;
+    private final ByteBuffer[] columns;
+
+    SeriesData(int sampleCount, ByteBuffer[] columns) {
+        this.sampleCount = sampleCount;
+        this.columns = columns;
+    }
+
+    int getSampleCount() {
+        return sampleCount;
+    }
+
+    long[] decodeTimestamps() {
+        return decodeLongColumn(0, sampleCount);
+    }
+
+    /**
+     * @param column the long column, see {@link TorrentSample}
+     * @param count the number of values to decode from the start of the series
+     */
+    long[] decodeLongs(int column, int count) {
+        return decodeLongColumn(1 + column, count);
+    }
+
+    float[] decodeFloats(int column, int count) {
+        XorFloatCodec.Decoder decoder = new XorFloatCodec.Decoder(new BitReader(columns[1 + LONG_COLUMNS + column].duplicate()));
+        float[] values = new float[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = decoder.next();
+        }
+        return values;
+    }
+
+    /**
+     * @return the long columns of the sample at the index provided
+     */
+    long[] decodeLongSample(int index) {
+        long[] sample = new long[LONG_COLUMNS];
+        for (int column = 0; column < LONG_COLUMNS; column++) {
+            sample[column] = decodeLongs(column, index + 1)[index];
+        }
+        return sample;
+    }
+
+    float[] decodeFloatSample(int index) {
+        float[] sample = new float[FLOAT_COLUMNS];
+        for (int column = 0; column < FLOAT_COLUMNS; column++) {
+            sample[column] = decodeFloats(column, index + 1)[index];
+        }
+        return sample;
+    }
+
+    private long[] decodeLongColumn(int column, int count) {
+        DeltaOfDeltaCodec.Decoder decoder = new DeltaOfDeltaCodec.Decoder(new BitReader(columns[column].duplicate()));
+        long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = decoder.next();
+        }
+        return values;
+    }
+}
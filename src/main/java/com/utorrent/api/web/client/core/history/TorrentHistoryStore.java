@@ -0,0 +1,391 @@
+package com.utorrent.api.web.client.core.history;
+
+import com.utorrent.api.web.client.core.TorrentsCacheListener;
+import com.utorrent.api.web.client.core.entities.Torrent;
+import com.utorrent.api.web.client.core.entities.Torrent.TorrentStatus;
+import com.utorrent.api.web.client.utils.ExecutionBackend;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.utorrent.api.web.client.core.history.TorrentSample.LABEL;
+import static com.utorrent.api.web.client.core.history.TorrentSample.NAME;
+import static com.utorrent.api.web.client.core.history.TorrentSample.REMOVED;
+import static com.utorrent.api.web.client.core.history.TorrentSample.STATUS;
+
+/**
+ * Records the changes applied to a {@link com.utorrent.api.web.client.core.TorrentsCache}
+ * so that torrents can be looked at as they were at a point in time.
+ * <p>
+ * The store is registered as a listener of the cache. The torrents changed by each
+ * applied snapshot are recorded with the time the snapshot was applied, in a columnar
+ * form: counters and other integer values are delta-of-delta encoded, ratio and progress
+ * are XOR encoded, name and label are dictionary encoded. Samples go to a segment held
+ * in memory which is sealed to a file of the store directory once its time range is over,
+ * sealed segments are read through memory mappings and deleted past the retention.
+ * Only the numeric fields, the statuses, the name and the label of the torrents are kept.
+ * <p>
+ * Files are written and deleted by a thread of the store, not by the thread updating the
+ * cache. A segment which cannot be sealed stays in memory until it is past the retention.
+ */
+@Slf4j
+public class TorrentHistoryStore implements TorrentsCacheListener, Closeable {
+
+    private static final String SEGMENT_FILE_PREFIX = "segment-";
+    private static final String SEGMENT_FILE_SUFFIX = ".uth";
+
+    private final Path directory;
+    private final long segmentDurationMillis;
+    private final long retentionMillis;
+    private final Clock clock;
+    private final ReadWriteLock lock;
+    private final ExecutorService fileExecutor;
+    private final List<HistorySegment> previousSegments;
+    private final Map<String, TorrentSample> pendingSamples;
+    private final Map<String, TorrentSample> lastSamples;
+
+    private ActiveSegment activeSegment;
+
+    public TorrentHistoryStore(Path directory, Duration segmentDuration, Duration retention) throws IOException {
+        this(directory, segmentDuration, retention, Clock.systemUTC());
+    }
+
+    /**
+     * Opens the store, the segments already present in the directory are loaded.
+     *
+     * @param directory the directory the segment files are written to
+     * @param segmentDuration the time range covered by each segment file
+     * @param retention how long segments are kept for
+     * @param clock the clock giving the time of each applied snapshot
+     */
+    public TorrentHistoryStore(
+        @NonNull Path directory,
+        @NonNull Duration segmentDuration,
+        @NonNull Duration retention,
+        @NonNull Clock clock
+    ) throws IOException {
+        if (segmentDuration.isNegative() || segmentDuration.isZero()) {
+            throw new IllegalArgumentException("Segment duration must be positive");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentDurationMillis = segmentDuration.toMillis();
+        this.retentionMillis = retention.toMillis();
+        this.clock = clock;
+        this.lock = new ReentrantReadWriteLock();
+        this.previousSegments = new ArrayList<>();
+        this.pendingSamples = new LinkedHashMap<>();
+        this.lastSamples = new HashMap<>();
+        loadSegments();
+        this.fileExecutor = ExecutionBackend.newTaskExecutor("utorrent-history-files", 1);
+    }
+
+    @Override
+    public void onTorrentUpdated(Torrent torrent) {
+        lock.writeLock().lock();
+        try {
+            pendingSamples.put(torrent.getHash(), TorrentSample.of(torrent));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onTorrentRemoved(String hash) {
+        lock.writeLock().lock();
+        try {
+            pendingSamples.put(hash, TorrentSample.removed());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records the torrents changed since the previous snapshot, with the current time.
+     */
+    @Override
+    public void onCacheUpdated(String cacheID) {
+        lock.writeLock().lock();
+        try {
+            if (fileExecutor.isShutdown()) {
+                pendingSamples.clear();
+                return;
+            }
+            long timestamp = clock.millis();
+            if (activeSegment == null || timestamp >= activeSegment.getEnd()) {
+                rollSegment(timestamp);
+            }
+            for (Map.Entry<String, TorrentSample> entry : pendingSamples.entrySet()) {
+                activeSegment.append(entry.getKey(), timestamp, entry.getValue());
+                if (entry.getValue().longs[REMOVED] != 0) {
+                    lastSamples.remove(entry.getKey());
+                } else {
+                    lastSamples.put(entry.getKey(), entry.getValue());
+                }
+            }
+            pendingSamples.clear();
+            applyRetention(timestamp);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param hash the hash of the torrent
+     * @param time the point in time to look at
+     * @return the torrent as it was at that time, empty when it was not in the cache
+     */
+    public Optional<Torrent> getTorrentAt(@NonNull String hash, @NonNull Instant time) {
+        lock.readLock().lock();
+        try {
+            HistorySegment segment = findSegment(time.toEpochMilli());
+            return segment == null
+                    ? Optional.empty()
+                    : Optional.ofNullable(reconstruct(segment, hash, time.toEpochMilli()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param time the point in time to look at
+     * @return all the torrents in the cache at that time, by hash
+     */
+    public Map<String, Torrent> getTorrentsAt(@NonNull Instant time) {
+        lock.readLock().lock();
+        try {
+            Map<String, Torrent> torrents = new HashMap<>();
+            HistorySegment segment = findSegment(time.toEpochMilli());
+            if (segment != null) {
+                for (String hash : segment.getHashes()) {
+                    Torrent torrent = reconstruct(segment, hash, time.toEpochMilli());
+                    if (torrent != null) {
+                        torrents.put(hash, torrent);
+                    }
+                }
+            }
+            return torrents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param status the status to look for
+     * @param from the start of the time range, inclusive
+     * @param to the end of the time range, inclusive
+     * @return the hashes of the torrents that had the status at some point of the time range
+     */
+    public Set<String> findTorrentsWithStatus(@NonNull TorrentStatus status, @NonNull Instant from, @NonNull Instant to) {
+        int statusMask = TorrentStatus.encodeStatus(Set.of(status));
+        long fromMillis = from.toEpochMilli();
+        long toMillis = to.toEpochMilli();
+        lock.readLock().lock();
+        try {
+            Set<String> hashes = new HashSet<>();
+            List<HistorySegment> segments = getSegments();
+            for (int i = 0; i < segments.size(); i++) {
+                HistorySegment segment = segments.get(i);
+                long segmentEnd = i + 1 < segments.size() ? segments.get(i + 1).getStart() : Long.MAX_VALUE;
+                if (segment.getStart() > toMillis || segmentEnd <= fromMillis) {
+                    continue;
+                }
+                for (String hash : segment.getHashes()) {
+                    if (!hashes.contains(hash) && hadStatus(segment.getSeries(hash), statusMask, fromMillis, toMillis)) {
+                        hashes.add(hash);
+                    }
+                }
+            }
+            return hashes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Waits for the segments being sealed and seals the segment being written to a file.
+     * Nothing is recorded afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            fileExecutor.shutdown();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            fileExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while sealing torrent history segments");
+        }
+        lock.writeLock().lock();
+        try {
+            if (activeSegment != null && !activeSegment.isEmpty()) {
+                Path file = segmentFile(activeSegment);
+                activeSegment.writeTo(file);
+                previousSegments.add(SealedSegment.open(file));
+                activeSegment = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean hadStatus(SeriesData series, int statusMask, long from, long to) {
+        long[] timestamps = series.decodeTimestamps();
+        long[] statuses = series.decodeLongs(STATUS, timestamps.length);
+        long[] removed = series.decodeLongs(REMOVED, timestamps.length);
+        for (int i = 0; i < timestamps.length; i++) {
+            boolean activeInRange = timestamps[i] <= to
+                    && (timestamps[i] >= from || i + 1 == timestamps.length || timestamps[i + 1] > from);
+            if (activeInRange && removed[i] == 0 && (statuses[i] & statusMask) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Torrent reconstruct(HistorySegment segment, String hash, long time) {
+        SeriesData series = segment.getSeries(hash);
+        if (series == null) {
+            return null;
+        }
+        long[] timestamps = series.decodeTimestamps();
+        int index = -1;
+        while (index + 1 < timestamps.length && timestamps[index + 1] <= time) {
+            index++;
+        }
+        if (index < 0) {
+            return null;
+        }
+        long[] longs = series.decodeLongSample(index);
+        if (longs[REMOVED] != 0) {
+            return null;
+        }
+        float[] floats = series.decodeFloatSample(index);
+        return TorrentSample.toTorrent(
+                hash,
+                segment.getDictionaryEntry((int) longs[NAME]),
+                segment.getDictionaryEntry((int) longs[LABEL]),
+                longs,
+                floats
+        );
+    }
+
+    private HistorySegment findSegment(long time) {
+        HistorySegment found = null;
+        for (HistorySegment segment : getSegments()) {
+            if (segment.getStart() > time) {
+                break;
+            }
+            found = segment;
+        }
+        return found;
+    }
+
+    private List<HistorySegment> getSegments() {
+        List<HistorySegment> segments = new ArrayList<>(previousSegments);
+        if (activeSegment != null) {
+            segments.add(activeSegment);
+        }
+        return segments;
+    }
+
+    /**
+     * Starts a new segment with a sample of every torrent known, except those about to be
+     * recorded anyway, the current segment being sealed in the background.
+     */
+    private void rollSegment(long timestamp) {
+        if (activeSegment != null) {
+            ActiveSegment previous = activeSegment;
+            previousSegments.add(previous);
+            fileExecutor.execute(() -> seal(previous));
+        }
+        activeSegment = new ActiveSegment(timestamp, timestamp + segmentDurationMillis);
+        for (Map.Entry<String, TorrentSample> entry : lastSamples.entrySet()) {
+            if (!pendingSamples.containsKey(entry.getKey())) {
+                activeSegment.append(entry.getKey(), timestamp, entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Writes a segment no longer appended to and replaces it with the file read back,
+     * the file is deleted when the segment expired in the meantime.
+     */
+    private void seal(ActiveSegment segment) {
+        Path file = segmentFile(segment);
+        SealedSegment sealed;
+        try {
+            segment.writeTo(file);
+            sealed = SealedSegment.open(file);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Impossible to seal torrent history segment {}, it is kept in memory", file, e);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            int index = previousSegments.indexOf(segment);
+            if (index >= 0) {
+                previousSegments.set(index, sealed);
+                log.debug("Sealed torrent history segment {}", file);
+                return;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        delete(file);
+    }
+
+    private Path segmentFile(HistorySegment segment) {
+        return directory.resolve(SEGMENT_FILE_PREFIX + segment.getStart() + SEGMENT_FILE_SUFFIX);
+    }
+
+    private void applyRetention(long now) {
+        while (!previousSegments.isEmpty() && previousSegments.get(0).getEnd() < now - retentionMillis) {
+            HistorySegment segment = previousSegments.remove(0);
+            if (segment instanceof SealedSegment) {
+                fileExecutor.execute(() -> delete(((SealedSegment) segment).getFile()));
+            }
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Impossible to delete expired torrent history segment {}", file, e);
+        }
+    }
+
+    private void loadSegments() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_FILE_PREFIX + "*" + SEGMENT_FILE_SUFFIX)) {
+            for (Path file : files) {
+                previousSegments.add(SealedSegment.open(file));
+            }
+        }
+        previousSegments.sort((first, second) -> Long.compare(first.getStart(), second.getStart()));
+    }
+}
@@ -0,0 +1,106 @@
+package com.utorrent.api.web.client.core.history;
+
+import com.utorrent.api.web.client.core.entities.Torrent;
+import com.utorrent.api.web.client.core.entities.Torrent.TorrentStatus;
+
+import java.time.Duration;
+
+/**
+ * The values of a torrent recorded by the history store, laid out by column.
+ * Name and label are stored as ids of the segment dictionary.
+ */
+final class TorrentSample {
+
+    static final int SIZE = 0;
+    static final int DOWNLOADED = 1;
+    static final int UPLOADED = 2;
+    static final int UPLOAD_SPEED = 3;
+    static final int DOWNLOAD_SPEED = 4;
+    static final int ETA = 5;
+    static final int PEERS_CONNECTED = 6;
+    static final int PEERS_IN_SWARM = 7;
+    static final int SEEDS_CONNECTED = 8;
+    static final int SEEDS_IN_SWARM = 9;
+    static final int AVAILABILITY = 10;
+    static final int QUEUE_ORDER = 11;
+    static final int REMAINING = 12;
+    static final int STATUS = 13;
+    static final int NAME = 14;
+    static final int LABEL = 15;
+    static final int REMOVED = 16;
+    static final int LONG_COLUMNS = 17;
+
+    static final int PROGRESS = 0;
+    static final int RATIO = 1;
+    static final int FLOAT_COLUMNS = 2;
+
+    /**
+     * Timestamps, long and float columns, in this order.
+     */
+    static final int COLUMNS = 1 + LONG_COLUMNS + FLOAT_COLUMNS;
+
+    final String name;
+    final String label;
+    final long[] longs;
+    final float[] floats;
+
+    private TorrentSample(String name, String label, long[] longs, float[] floats) {
+        this.name = name;
+        this.label = label;
+        this.longs = longs;
+        this.floats = floats;
+    }
+
+    static TorrentSample of(Torrent torrent) {
+        long[] longs = new long[LONG_COLUMNS];
+        longs[SIZE] = torrent.getSize();
+        longs[DOWNLOADED] = torrent.getDownloaded();
+        longs[UPLOADED] = torrent.getUploaded();
+        longs[UPLOAD_SPEED] = torrent.getUploadSpeed();
+        longs[DOWNLOAD_SPEED] = torrent.getDownloadSpeed();
+        longs[ETA] = torrent.getEta() == null ? 0 : torrent.getEta().getSeconds();
+        longs[PEERS_CONNECTED] = torrent.getPeersConnected();
+        longs[PEERS_IN_SWARM] = torrent.getPeersInSwarm();
+        longs[SEEDS_CONNECTED] = torrent.getSeedsConnected();
+        longs[SEEDS_IN_SWARM] = torrent.getSeedsInSwarm();
+        longs[AVAILABILITY] = torrent.getAvailability();
+        longs[QUEUE_ORDER] = torrent.getTorrentQueueOrder();
+        longs[REMAINING] = torrent.getRemaining();
+        longs[STATUS] = TorrentStatus.encodeStatus(torrent.getStatuses());
+
+        float[] floats = new float[FLOAT_COLUMNS];
+        floats[PROGRESS] = torrent.getProgress();
+        floats[RATIO] = torrent.getRatio();
+        return new TorrentSample(torrent.getName(), torrent.getLabel(), longs, floats);
+    }
+
+    static TorrentSample removed() {
+        long[] longs = new long[LONG_COLUMNS];
+        longs[REMOVED] = 1;
+        return new TorrentSample(null, null, longs, new float[FLOAT_COLUMNS]);
+    }
+
+    static Torrent toTorrent(String hash, String name, String label, long[] longs, float[] floats) {
+        return Torrent.builder()
+                .hash(hash)
+                .name(name)
+                .label(label)
+                .statuses(TorrentStatus.decodeStatus((int) longs[STATUS]))
+                .size(longs[SIZE])
+                .progress(floats[PROGRESS])
+                .downloaded(longs[DOWNLOADED])
+                .uploaded(longs[UPLOADED])
+                .ratio(floats[RATIO])
+                .uploadSpeed(longs[UPLOAD_SPEED])
+                .downloadSpeed(longs[DOWNLOAD_SPEED])
+                .eta(Duration.ofSeconds(longs[ETA]))
+                .peersConnected((int) longs[PEERS_CONNECTED])
+                .peersInSwarm((int) longs[PEERS_IN_SWARM])
+                .seedsConnected((int) longs[SEEDS_CONNECTED])
+                .seedsInSwarm((int) longs[SEEDS_IN_SWARM])
+                .availability(longs[AVAILABILITY])
+                .torrentQueueOrder(longs[QUEUE_ORDER])
+                .remaining(longs[REMAINING])
+                .build();
+    }
+}
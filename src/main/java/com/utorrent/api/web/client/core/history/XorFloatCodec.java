@@ -0,0 +1,85 @@
+package com.utorrent.api.web.client.core.history;
+
+/**
+ * XOR encoding of a series of floats, as used for values by Gorilla. A value equal to
+ * the previous one costs one bit, otherwise only the meaningful bits of the XOR with
+ * the previous value are stored.
+ */
+final class XorFloatCodec {
+
+    private XorFloatCodec() {
+    }
+
+    static final class Encoder {
+        private final BitWriter out;
+        private int count;
+        private int previous;
+        private int previousLeading = -1;
+        private int previousTrailing;
+
+        Encoder(BitWriter out) {
+            this.out = out;
+        }
+
+        void add(float value) {
+            int bits = Float.floatToRawIntBits(value);
+            if (count == 0) {
+                out.writeBits(bits, 32);
+            } else {
+                writeXor(bits ^ previous);
+            }
+            previous = bits;
+            count++;
+        }
+
+        private void writeXor(int xor) {
+            if (xor == 0) {
+                out.writeBit(false);
+                return;
+            }
+            out.writeBit(true);
+            int leading = Integer.numberOfLeadingZeros(xor);
+            int trailing = Integer.numberOfTrailingZeros(xor);
+            if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                out.writeBit(false);
+                out.writeBits(xor >>> previousTrailing, 32 - previousLeading - previousTrailing);
+            } else {
+                int meaningfulBits = 32 - leading - trailing;
+                out.writeBit(true);
+                out.writeBits(leading, 5);
+                out.writeBits(meaningfulBits - 1, 5);
+                out.writeBits(xor >>> trailing, meaningfulBits);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+    }
+
+    static final class Decoder {
+        private final BitReader in;
+        private int count;
+        private int previous;
+        private int previousLeading;
+        private int previousTrailing;
+
+        Decoder(BitReader in) {
+            this.in = in;
+        }
+
+        float next() {
+            if (count == 0) {
+                previous = (int) in.readBits(32);
+            } else if (in.readBit()) {
+                if (in.readBit()) {
+                    previousLeading = (int) in.readBits(5);
+                    int meaningfulBits = (int) in.readBits(5) + 1;
+                    previousTrailing = 32 - previousLeading - meaningfulBits;
+                }
+                int meaningfulBits = 32 - previousLeading - previousTrailing;
+                previous ^= (int) in.readBits(meaningfulBits) << previousTrailing;
+            }
+            count++;
+            return Float.intBitsToFloat(previous);
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.utorrent.api.web.client.restclient;
+
+import com.utorrent.api.web.client.restclient.exceptions.CallCancelledException;
+import com.utorrent.api.web.client.restclient.exceptions.ClientRequestException;
+import com.utorrent.api.web.client.restclient.exceptions.RequestRejectedException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the requests a client has in flight to the WebUI, the bound following the latency
+ * the server answers with.
+ * <p>
+ * The limit grows additively, by one request per limit's worth of responses, while the
+ * responses come back within {@link #DEFAULT_LATENCY_TOLERANCE} times the baseline latency
+ * and the limit was reached, and shrinks multiplicatively on a slower response or an I/O error.
+ * The baseline is the lowest latency seen, drifting slowly toward the latencies observed so
+ * that a server becoming lastingly slower is not throttled forever.
+ * <p>
+ * Requests over the limit wait in a bounded queue and are dispatched by {@link RequestPriority},
+ * a waiting request moving up one priority class every {@link #DEFAULT_AGING_INTERVAL} milliseconds
+ * so that bulk requests are delayed by interactive ones but not starved. Requests finding the queue
+ * full or waiting longer than the maximum wait are rejected with a {@link RequestRejectedException}.
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    public static final double DEFAULT_LATENCY_TOLERANCE = 2.0;
+    public static final int DEFAULT_AGING_INTERVAL = 500;
+    private static final int MIN_LIMIT = 1;
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final int maxLimit;
+    private final int maxQueued;
+    private final long maxWait;
+    private final double latencyTolerance;
+    private final LongSupplier nanoClock;
+    private final long agingInterval;
+    private final Lock lock;
+    private final List<Deque<Waiter>> waiters;
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private long rejected;
+    private double baselineLatency;
+
+    /**
+     * @param maxLimit  the highest number of requests in flight, also the initial limit
+     * @param maxQueued the highest number of requests waiting for the limit
+     * @param maxWait   how long, in milliseconds, a request waits for the limit, 0 to wait without bound
+     */
+    public AdaptiveConcurrencyLimiter(int maxLimit, int maxQueued, int maxWait) {
+        this(maxLimit, maxQueued, maxWait, DEFAULT_LATENCY_TOLERANCE, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(int maxLimit, int maxQueued, int maxWait, double latencyTolerance, LongSupplier nanoClock) {
+        if (maxLimit < MIN_LIMIT) {
+            throw new IllegalArgumentException("The maximum concurrency must be positive");
+        }
+        if (maxQueued < 0 || maxWait < 0) {
+            throw new IllegalArgumentException("The request queue bounds cannot be negative");
+        }
+        this.maxLimit = maxLimit;
+        this.maxQueued = maxQueued;
+        this.maxWait = TimeUnit.MILLISECONDS.toNanos(maxWait);
+        this.latencyTolerance = latencyTolerance;
+        this.nanoClock = nanoClock;
+        this.agingInterval = TimeUnit.MILLISECONDS.toNanos(DEFAULT_AGING_INTERVAL);
+        this.lock = new ReentrantLock();
+        this.waiters = new ArrayList<>();
+        for (int i = 0; i < RequestPriority.values().length; i++) {
+            waiters.add(new ArrayDeque<>());
+        }
+        this.limit = maxLimit;
+        this.baselineLatency = Double.NaN;
+    }
+
+    /**
+     * Waits for the number of requests in flight to be under the limit, as a request of normal priority.
+     *
+     * @see #acquire(RequestPriority)
+     */
+    public Permit acquire() {
+        return acquire(RequestPriority.NORMAL);
+    }
+
+    /**
+     * Sends a request within the limit. A response of any status, a client error included, feeds
+     * the limit with its latency, a request given up by its caller only frees its permit and any
+     * other failure counts as a request the server left unanswered.
+     *
+     * @param request sends the request and reads its response
+     * @return the response read
+     */
+    <T> T execute(final RequestPriority priority, final Supplier<T> request) {
+        final Permit permit = acquire(priority);
+        final T response;
+        try {
+            response = request.get();
+        } catch (final ClientRequestException e) {
+            permit.onResponse();
+            throw e;
+        } catch (final CallCancelledException e) {
+            permit.onCancelled();
+            throw e;
+        } catch (final RuntimeException e) {
+            permit.onDropped();
+            throw e;
+        } catch (final Error e) {
+            permit.onCancelled();
+            throw e;
+        }
+        permit.onResponse();
+        return response;
+    }
+
+    /**
+     * Waits for the number of requests in flight to be under the limit and for the requests
+     * waiting ahead of this one to be dispatched.
+     *
+     * @return the permit of the request, to complete once its response was read
+     * @throws RequestRejectedException when the queue is full, the wait too long or the thread interrupted
+     */
+    public Permit acquire(final RequestPriority priority) {
+        final CallContext context = CallContext.current().orElse(null);
+        lock.lock();
+        try {
+            if (queued == 0 && inFlight < getLimit()) {
+                return grant();
+            }
+            if (queued >= maxQueued) {
+                throw reject("the request queue is full");
+            }
+            final Waiter waiter = new Waiter(priority, nanoClock.getAsLong(), lock.newCondition());
+            waiters.get(priority.ordinal()).addLast(waiter);
+            queued++;
+            if (context == null) {
+                awaitPermit(waiter, null);
+            } else {
+                try (CallContext.Registration ignored = context.register(() -> wakeUp(waiter))) {
+                    awaitPermit(waiter, context);
+                }
+            }
+            return waiter.permit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for the permit within the maximum wait and the time left to the call, if any.
+     */
+    private void awaitPermit(final Waiter waiter, final CallContext context) {
+        long remaining = maxWait == 0 ? Long.MAX_VALUE : maxWait;
+        try {
+            while (waiter.permit == null) {
+                if (context != null && (context.isCancelled() || context.isExpired())) {
+                    withdraw(waiter);
+                    context.check();
+                }
+                if (remaining <= 0) {
+                    withdraw(waiter);
+                    throw reject("no request completed in time");
+                }
+                final long timeout = Math.min(remaining, context == null ? Long.MAX_VALUE : context.remainingNanos());
+                if (timeout == Long.MAX_VALUE) {
+                    waiter.dispatched.await();
+                } else {
+                    final long left = waiter.dispatched.awaitNanos(timeout);
+                    if (remaining != Long.MAX_VALUE) {
+                        remaining -= timeout - left;
+                    }
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (waiter.permit != null) {
+                return;
+            }
+            withdraw(waiter);
+            throw reject("the thread was interrupted");
+        }
+    }
+
+    private boolean wakeUp(final Waiter waiter) {
+        lock.lock();
+        try {
+            waiter.dispatched.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void withdraw(final Waiter waiter) {
+        waiters.get(waiter.priority.ordinal()).remove(waiter);
+        queued--;
+    }
+
+    private Permit grant() {
+        inFlight++;
+        return new Permit(inFlight >= getLimit());
+    }
+
+    /**
+     * Hands the free permits to the waiting requests of the best rank, the rank of a request
+     * improving by one priority class each aging interval it waits.
+     */
+    private void dispatch() {
+        final long now = nanoClock.getAsLong();
+        while (queued > 0 && inFlight < getLimit()) {
+            Deque<Waiter> next = null;
+            double bestRank = Double.MAX_VALUE;
+            for (Deque<Waiter> queue : waiters) {
+                final Waiter head = queue.peekFirst();
+                if (head != null) {
+                    final double rank = head.priority.ordinal() - (double) (now - head.enqueuedAt) / agingInterval;
+                    if (rank < bestRank) {
+                        bestRank = rank;
+                        next = queue;
+                    }
+                }
+            }
+            final Waiter waiter = next.removeFirst();
+            queued--;
+            waiter.permit = grant();
+            waiter.dispatched.signal();
+        }
+    }
+
+    private RequestRejectedException reject(final String reason) {
+        rejected++;
+        return new RequestRejectedException(String.format("Request rejected at a limit of %d requests in flight: %s", getLimit(), reason));
+    }
+
+    private void release(final Permit permit, final long latency, final Outcome outcome) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (outcome == Outcome.DROPPED) {
+                backOff();
+            } else if (outcome == Outcome.ANSWERED) {
+                if (Double.isNaN(baselineLatency) || latency < baselineLatency) {
+                    baselineLatency = latency;
+                } else {
+                    baselineLatency += (latency - baselineLatency) * BASELINE_DRIFT;
+                }
+                if (latency > baselineLatency * latencyTolerance) {
+                    backOff();
+                } else if (permit.limitReached) {
+                    limit = Math.min(maxLimit, limit + 1 / limit);
+                }
+            }
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void backOff() {
+        final int previous = getLimit();
+        limit = Math.max(MIN_LIMIT, limit * BACKOFF_RATIO);
+        if (getLimit() < previous) {
+            log.debug("Concurrency limit lowered to {}", getLimit());
+        }
+    }
+
+    /**
+     * @return the number of requests currently allowed in flight
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of requests rejected since the client was created
+     */
+    public long getRejected() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private enum Outcome {
+        ANSWERED,
+        DROPPED,
+        CANCELLED
+    }
+
+    private static final class Waiter {
+        private final RequestPriority priority;
+        private final long enqueuedAt;
+        private final Condition dispatched;
+        private Permit permit;
+
+        private Waiter(final RequestPriority priority, final long enqueuedAt, final Condition dispatched) {
+            this.priority = priority;
+            this.enqueuedAt = enqueuedAt;
+            this.dispatched = dispatched;
+        }
+    }
+
+    /**
+     * A request let through the limiter, completed exactly once.
+     */
+    public final class Permit {
+        private final long acquiredAt;
+        private final boolean limitReached;
+        private boolean completed;
+
+        private Permit(final boolean limitReached) {
+            this.acquiredAt = nanoClock.getAsLong();
+            this.limitReached = limitReached;
+        }
+
+        /**
+         * Records the latency of a request answered by the server, whatever its status.
+         */
+        public void onResponse() {
+            complete(Outcome.ANSWERED);
+        }
+
+        /**
+         * Records a request the server did not answer, as when it timed out or refused the connection.
+         */
+        public void onDropped() {
+            complete(Outcome.DROPPED);
+        }
+
+        /**
+         * Frees the permit of a request given up by its caller, which says nothing of the server.
+         */
+        public void onCancelled() {
+            complete(Outcome.CANCELLED);
+        }
+
+        private void complete(final Outcome outcome) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            release(this, nanoClock.getAsLong() - acquiredAt, outcome);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.utorrent.api.web.client.restclient;
+
+import com.utorrent.api.web.client.restclient.exceptions.RESTException;
+import com.utorrent.api.web.client.restclient.response.ContentDecoding;
+import com.utorrent.api.web.client.restclient.response.ResponseHandler;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.async.methods.SimpleResponseConsumer;
+import org.apache.hc.client5.http.auth.AuthScope;
+import org.apache.hc.client5.http.auth.UsernamePasswordCredentials;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.cookie.BasicCookieStore;
+import org.apache.hc.client5.http.cookie.CookieStore;
+import org.apache.hc.client5.http.entity.mime.HttpMultipartMode;
+import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.AsyncRequestProducer;
+import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.ConnPoolControl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Non-blocking counterpart of {@link RESTClient}, built on {@link CloseableHttpAsyncClient}.
+ * Requests are sent without blocking the calling thread and their results are completed
+ * by the I/O threads of the client, so continuations should not block either.
+ */
+@Slf4j
+@Getter
+public class AsyncRESTClient implements Closeable {
+    private final CloseableHttpAsyncClient client;
+    private final ConnectionParams connectionParams;
+    private final URI serverURI;
+    private final ResponseHandler responseHandler;
+    private final BasicCredentialsProvider credentialsProvider;
+    private final RequestConfig requestConfig;
+    private final CookieStore cookieStore;
+    private final ConnPoolControl<HttpRoute> connectionManager;
+    private final CompressionStats compressionStats;
+    private final boolean clientOwned;
+
+    public AsyncRESTClient(
+        final CloseableHttpAsyncClient client,
+        final ConnectionParams params,
+        final URI serverURI
+    ) {
+        this(client, null, params, serverURI);
+    }
+
+    /**
+     * @param connectionManager the connection pool of the client, to report its stats, null when unknown
+     */
+    public AsyncRESTClient(
+        final CloseableHttpAsyncClient client,
+        final ConnPoolControl<HttpRoute> connectionManager,
+        final ConnectionParams params,
+        final URI serverURI
+    ) {
+        this(client, connectionManager, params, serverURI, true);
+    }
+
+    /**
+     * @param clientOwned whether the HTTP client is closed with this client, false when it is shared
+     */
+    AsyncRESTClient(
+        final CloseableHttpAsyncClient client,
+        final ConnPoolControl<HttpRoute> connectionManager,
+        final ConnectionParams params,
+        final URI serverURI,
+        final boolean clientOwned
+    ) {
+        requireNonNull(params, "Connection Parameters cannot be null");
+        requireNonNull(client, "Client cannot be null");
+
+        this.client = client;
+        this.connectionManager = connectionManager;
+        this.compressionStats = new CompressionStats();
+        this.clientOwned = clientOwned;
+        this.serverURI = serverURI;
+        this.connectionParams = params;
+        this.responseHandler = new ResponseHandler();
+
+        if (nonNull(params.getCredentials())) {
+            ConnectionParams.Credentials credentials = params.getCredentials();
+            this.credentialsProvider = new BasicCredentialsProvider();
+            credentialsProvider.setCredentials(
+                new AuthScope(null, -1),
+                new UsernamePasswordCredentials(credentials.getUsername(), credentials.getPassword().toCharArray())
+            );
+        } else {
+            this.credentialsProvider = null;
+        }
+
+        this.requestConfig = PooledHttpClients.createRequestConfig(params);
+        this.cookieStore = new BasicCookieStore();
+        this.client.start();
+    }
+
+    public AsyncRESTClient(final ConnectionParams params) throws URISyntaxException {
+        this(PooledHttpClients.createAsyncConnectionManager(params.getPoolParams()), params);
+    }
+
+    private AsyncRESTClient(final PoolingAsyncClientConnectionManager connectionManager, final ConnectionParams params) throws URISyntaxException {
+        this(
+            PooledHttpClients.createAsyncClient(params.getPoolParams(), connectionManager),
+            connectionManager,
+            params,
+            RESTClient.createServerURI(params)
+        );
+    }
+
+    /**
+     * @return the stats of the connection pool, empty when the client was given without its pool
+     */
+    public Optional<ConnectionPoolStats> getConnectionPoolStats() {
+        return Optional.ofNullable(connectionManager).map(pool -> ConnectionPoolStats.of(pool.getTotalStats()));
+    }
+
+    public CompletableFuture<String> post(Request request) {
+        requireNonNull(request, "Request cannot be null");
+
+        MultipartEntityBuilder httpEntityBuilder = MultipartEntityBuilder.create()
+                .setMode(HttpMultipartMode.LEGACY);
+
+        request.getFiles().forEach(file -> httpEntityBuilder.addPart(file.getName(), file.getBody()));
+        request.getParams().forEach(param -> httpEntityBuilder.addTextBody(param.getName(), param.getValue()));
+
+        final SimpleHttpRequest httpRequest = SimpleRequestBuilder.post(request.getUri()).build();
+        request.getHeaders().forEach(httpRequest::addHeader);
+        return executeVerb(httpRequest, StreamedBodies.producer(httpEntityBuilder.build()), request);
+    }
+
+    public CompletableFuture<String> get(Request request) {
+        try {
+            final SimpleRequestBuilder requestBuilder = SimpleRequestBuilder.get(RESTClient.toURI(request));
+            request.getHeaders().forEach(requestBuilder::addHeader);
+            return executeVerb(requestBuilder.build(), null, request);
+        } catch (final URISyntaxException e) {
+            return CompletableFuture.failedFuture(new RuntimeException(e));
+        }
+    }
+
+    public CompletableFuture<AuthorizationData> authenticate() {
+        final SimpleHttpRequest httpRequest = SimpleRequestBuilder
+            .get(serverURI.resolve("token.html"))
+            .build();
+        return executeVerb(httpRequest, null).thenApply(response -> {
+            try {
+                final Header setCookieHeader = response.getHeader("Set-Cookie");
+                responseHandler.validateResponse(response);
+                return RESTClient.toAuthorizationData(setCookieHeader.getValue(), toText(response, response.getBodyBytes()));
+            } catch (final Exception e) {
+                log.error("Response was: {}", response);
+                log.error(e.getMessage(), e);
+                return new AuthorizationData(null, null, AuthorizationData.Status.INVALID);
+            }
+        });
+    }
+
+    /**
+     * Asks for a compressed response when compression is enabled and decodes the response,
+     * recording its sizes under the request name.
+     *
+     * @param requestBody the producer of the body streamed with the request, null when it has none
+     */
+    private CompletableFuture<String> executeVerb(final SimpleHttpRequest httpRequest, final AsyncEntityProducer requestBody, final Request request) {
+        if (connectionParams.isCompressionEnabled()) {
+            httpRequest.setHeader(ContentDecoding.ACCEPT_ENCODING_HEADER, ContentDecoding.ACCEPTED_ENCODINGS);
+        }
+        final String name = nonNull(request.getName()) ? request.getName() : request.getUri().getPath();
+        return executeVerb(httpRequest, requestBody).thenApply(response -> {
+            responseHandler.validateResponse(response);
+            final byte[] body = response.getBodyBytes();
+            if (body == null) {
+                return "";
+            }
+            final Header contentEncoding = response.getFirstHeader("Content-Encoding");
+            try {
+                return toText(response, ContentDecoding.decode(body, contentEncoding == null ? null : contentEncoding.getValue(), compressionStats, name));
+            } catch (final IOException e) {
+                throw new RESTException("Impossible to decode response of request " + httpRequest.getMethod(), e);
+            }
+        });
+    }
+
+    private CompletableFuture<SimpleHttpResponse> executeVerb(final SimpleHttpRequest httpRequest, final AsyncEntityProducer requestBody) {
+        final CompletableFuture<SimpleHttpResponse> future = new CompletableFuture<>();
+        final AsyncRequestProducer requestProducer = requestBody == null
+            ? SimpleRequestProducer.create(httpRequest)
+            : new BasicRequestProducer(httpRequest, requestBody);
+        client.execute(requestProducer, SimpleResponseConsumer.create(), createContext(), new FutureCallback<>() {
+            @Override
+            public void completed(final SimpleHttpResponse response) {
+                future.complete(response);
+            }
+
+            @Override
+            public void failed(final Exception e) {
+                future.completeExceptionally(new RESTException("Impossible to execute request " + httpRequest.getMethod(), e));
+            }
+
+            @Override
+            public void cancelled() {
+                future.cancel(false);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * @return a context of its own for one exchange, with the cookies of this client only, the
+     * HTTP client being possibly shared with the clients of other servers
+     */
+    private HttpClientContext createContext() {
+        final HttpClientContext context = HttpClientContext.create();
+        if (nonNull(credentialsProvider)) {
+            context.setCredentialsProvider(credentialsProvider);
+        }
+        context.setRequestConfig(requestConfig);
+        context.setCookieStore(cookieStore);
+        return context;
+    }
+
+    private static String toText(final SimpleHttpResponse response, final byte[] body) {
+        if (body == null) {
+            return "";
+        }
+        final ContentType contentType = response.getContentType();
+        final Charset charset = contentType == null ? null : contentType.getCharset();
+        return new String(body, charset == null ? StandardCharsets.UTF_8 : charset);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (clientOwned) {
+            client.close(CloseMode.GRACEFUL);
+        }
+    }
+}
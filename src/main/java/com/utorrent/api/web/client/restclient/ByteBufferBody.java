@@ -0,0 +1,49 @@
+package com.utorrent.api.web.client.restclient;
+
+import org.apache.hc.client5.http.entity.mime.AbstractContentBody;
+import org.apache.hc.core5.http.ContentType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A multipart body written from the remaining bytes of a buffer, straight from its array when
+ * it has one, the position of the buffer being left as is so that the body can be written again.
+ */
+class ByteBufferBody extends AbstractContentBody {
+
+    private final ByteBuffer buffer;
+    private final String filename;
+
+    ByteBufferBody(final ByteBuffer buffer, final ContentType contentType, final String filename) {
+        super(contentType);
+        this.buffer = buffer.duplicate();
+        this.filename = filename;
+    }
+
+    @Override
+    public void writeTo(final OutputStream out) throws IOException {
+        final ByteBuffer source = buffer.duplicate();
+        if (source.hasArray()) {
+            out.write(source.array(), source.arrayOffset() + source.position(), source.remaining());
+            return;
+        }
+        final WritableByteChannel target = Channels.newChannel(out);
+        while (source.hasRemaining()) {
+            target.write(source);
+        }
+    }
+
+    @Override
+    public String getFilename() {
+        return filename;
+    }
+
+    @Override
+    public long getContentLength() {
+        return buffer.remaining();
+    }
+}
@@ -0,0 +1,178 @@
+package com.utorrent.api.web.client.restclient;
+
+import com.utorrent.api.web.client.restclient.exceptions.CallCancelledException;
+import com.utorrent.api.web.client.restclient.exceptions.DeadlineExceededException;
+import com.utorrent.api.web.client.utils.ExecutionBackend;
+import lombok.NonNull;
+import org.apache.hc.core5.concurrent.Cancellable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * The deadline and the cancellation of a call to uTorrent, whatever the authentications,
+ * retries and waits for a connection the call goes through.
+ * <p>
+ * A context applies to the calls made within {@link #call(Supplier)} by the calling thread.
+ * The waits of those calls are bounded by the time left and the HTTP exchanges they have in
+ * flight are aborted once the deadline passes or {@link #cancel()} is called from another
+ * thread, the calls then failing with a {@link DeadlineExceededException} or a
+ * {@link CallCancelledException}.
+ */
+public final class CallContext {
+
+    private static final ThreadLocal<CallContext> CURRENT = new ThreadLocal<>();
+
+    private final long deadline;
+    private final boolean bounded;
+    private final Lock lock;
+    private final Set<Cancellable> exchanges;
+    private volatile boolean cancelled;
+
+    private CallContext(final long deadline, final boolean bounded) {
+        this.deadline = deadline;
+        this.bounded = bounded;
+        this.lock = new ReentrantLock();
+        this.exchanges = new LinkedHashSet<>();
+    }
+
+    /**
+     * @return a context without deadline, ended only by {@link #cancel()}
+     */
+    public static CallContext create() {
+        return new CallContext(0, false);
+    }
+
+    /**
+     * @param timeout the time the calls have from now on
+     */
+    public static CallContext withTimeout(@NonNull final Duration timeout) {
+        return new CallContext(System.nanoTime() + timeout.toNanos(), true);
+    }
+
+    /**
+     * @return the context of the calls made by the current thread, empty outside of {@link #call(Supplier)}
+     */
+    public static Optional<CallContext> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Makes the calls of the supplier within this context, on the current thread.
+     *
+     * @throws CallCancelledException when the context is already cancelled or past its deadline
+     */
+    public <T> T call(@NonNull final Supplier<T> call) {
+        final CallContext previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            check();
+            return call.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Aborts the exchanges in flight, the calls of the context fail from now on.
+     */
+    public void cancel() {
+        final List<Cancellable> inFlight;
+        lock.lock();
+        try {
+            cancelled = true;
+            inFlight = new ArrayList<>(exchanges);
+        } finally {
+            lock.unlock();
+        }
+        inFlight.forEach(Cancellable::cancel);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isExpired() {
+        return bounded && deadline - System.nanoTime() <= 0;
+    }
+
+    /**
+     * @return the time left before the deadline, never negative, empty when there is no deadline
+     */
+    public Optional<Duration> getRemaining() {
+        return bounded ? Optional.of(Duration.ofNanos(remainingNanos())) : Optional.empty();
+    }
+
+    /**
+     * @throws DeadlineExceededException when the deadline passed
+     * @throws CallCancelledException    when the context was cancelled
+     */
+    public void check() {
+        if (cancelled) {
+            throw new CallCancelledException("The call was cancelled");
+        }
+        if (isExpired()) {
+            throw new DeadlineExceededException("The deadline of the call passed");
+        }
+    }
+
+    long remainingNanos() {
+        return bounded ? Math.max(0, deadline - System.nanoTime()) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Aborts the exchange when the context is cancelled or its deadline passes, until the
+     * registration is closed.
+     */
+    Registration register(final Cancellable exchange) {
+        lock.lock();
+        try {
+            exchanges.add(exchange);
+        } finally {
+            lock.unlock();
+        }
+        final ScheduledFuture<?> timer = bounded
+            ? Timer.INSTANCE.schedule(exchange::cancel, remainingNanos(), TimeUnit.NANOSECONDS)
+            : null;
+        if (cancelled) {
+            exchange.cancel();
+        }
+        return () -> {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            lock.lock();
+            try {
+                exchanges.remove(exchange);
+            } finally {
+                lock.unlock();
+            }
+        };
+    }
+
+    interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * The thread aborting the exchanges whose deadline passed, started by the first deadline.
+     */
+    private static final class Timer {
+        private static final ScheduledExecutorService INSTANCE = ExecutionBackend.newScheduler("utorrent-call-deadlines");
+    }
+}
@@ -0,0 +1,53 @@
+package com.utorrent.api.web.client.restclient;
+
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bytes received per request name, as sent by the server and once decoded.
+ * Responses the server did not compress count the same size twice.
+ */
+public class CompressionStats {
+    private final Map<String, Adders> addersByName = new ConcurrentHashMap<>();
+
+    public void record(String name, long receivedBytes, long decodedBytes) {
+        Adders adders = addersByName.computeIfAbsent(name, key -> new Adders());
+        adders.responses.increment();
+        adders.receivedBytes.add(receivedBytes);
+        adders.decodedBytes.add(decodedBytes);
+    }
+
+    /**
+     * @return the counters of each request name, such as the uTorrent action
+     */
+    public Map<String, Counters> getCounters() {
+        Map<String, Counters> counters = new HashMap<>();
+        addersByName.forEach((name, adders) -> counters.put(name, new Counters(
+            adders.responses.sum(),
+            adders.receivedBytes.sum(),
+            adders.decodedBytes.sum()
+        )));
+        return counters;
+    }
+
+    @Data
+    public static class Counters {
+        private final long responses;
+        private final long receivedBytes;
+        private final long decodedBytes;
+
+        public long getSavedBytes() {
+            return decodedBytes - receivedBytes;
+        }
+    }
+
+    private static class Adders {
+        private final LongAdder responses = new LongAdder();
+        private final LongAdder receivedBytes = new LongAdder();
+        private final LongAdder decodedBytes = new LongAdder();
+    }
+}
@@ -18,14 +18,50 @@ public class ConnectionParams {
     private Credentials credentials;
     private int timeout;
     private boolean authenticationEnabled;
+    private boolean compressionEnabled;
+    private PoolParams poolParams;
+    private int actionBatchWindow;
+    private int maxUrlLength;
+    private int fetchParallelism;
+    private int tokenRefreshInterval;
+    private int maxConcurrency;
+    private int maxQueuedRequests;
+    private int maxQueueWait;
+    private boolean warmUpEnabled;
+    private int warmUpParsingIterations;
+    private HttpTransport.Implementation transport;
 
-    private ConnectionParams(String scheme, String host, int port, Credentials credentials, int timeout, boolean authenticationEnabled) {
+    private ConnectionParams(String scheme, String host, int port, Credentials credentials, int timeout, boolean authenticationEnabled,
+                             boolean compressionEnabled, PoolParams poolParams, int actionBatchWindow, int maxUrlLength,
+                             int fetchParallelism, int tokenRefreshInterval, int maxConcurrency, int maxQueuedRequests,
+                             int maxQueueWait, boolean warmUpEnabled, int warmUpParsingIterations,
+                             HttpTransport.Implementation transport) {
         this.scheme = scheme;
         this.host = host;
         this.port = port;
         this.credentials = credentials;
         this.timeout = timeout;
         this.authenticationEnabled = authenticationEnabled;
+        this.compressionEnabled = compressionEnabled;
+        this.poolParams = poolParams;
+        this.actionBatchWindow = actionBatchWindow;
+        this.maxUrlLength = maxUrlLength;
+        this.fetchParallelism = fetchParallelism;
+        this.tokenRefreshInterval = tokenRefreshInterval;
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueuedRequests = maxQueuedRequests;
+        this.maxQueueWait = maxQueueWait;
+        this.warmUpEnabled = warmUpEnabled;
+        this.warmUpParsingIterations = warmUpParsingIterations;
+        this.transport = transport;
+    }
+
+    public boolean isActionBatchingEnabled() {
+        return actionBatchWindow > 0;
+    }
+
+    public boolean isAdaptiveConcurrencyEnabled() {
+        return maxConcurrency > 0;
     }
 
     public static ConnectionParamsBuilder builder() {
@@ -43,8 +79,31 @@ public class ConnectionParams {
         }
     }
 
+    /**
+     * Settings of the connection pool and of the pooled connections. Timeouts and durations
+     * are in milliseconds, a value of 0 leaves the default of the HTTP client.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class PoolParams {
+        public static final int DEFAULT_MAX_CONNECTIONS = 10;
+
+        private final int maxConnections;
+        private final int maxConnectionsPerRoute;
+        private final int connectTimeout;
+        private final int socketTimeout;
+        private final int responseTimeout;
+        private final int keepAlive;
+        private final int idleConnectionEviction;
+        private final int validateAfterInactivity;
+        private final boolean tcpNoDelay;
+    }
+
     public static class ConnectionParamsBuilder {
         private static final String DEFAULT_SCHEME = "http";
+        private static final int DEFAULT_MAX_URL_LENGTH = 2048;
+        private static final int DEFAULT_FETCH_PARALLELISM = 4;
+        private static final int DEFAULT_MAX_QUEUED_REQUESTS = 64;
         private int port;
         private String scheme = DEFAULT_SCHEME;
         private String host;
@@ -52,6 +111,26 @@ public class ConnectionParams {
         private String password;
         private int timeout;
         private boolean authenticationEnabled;
+        private boolean compressionEnabled;
+        private int maxConnections = PoolParams.DEFAULT_MAX_CONNECTIONS;
+        private int maxConnectionsPerRoute = PoolParams.DEFAULT_MAX_CONNECTIONS;
+        private int connectTimeout;
+        private int socketTimeout;
+        private int responseTimeout;
+        private int keepAlive;
+        private int idleConnectionEviction;
+        private int validateAfterInactivity;
+        private boolean tcpNoDelay = true;
+        private int actionBatchWindow;
+        private int maxUrlLength = DEFAULT_MAX_URL_LENGTH;
+        private int fetchParallelism = DEFAULT_FETCH_PARALLELISM;
+        private int tokenRefreshInterval;
+        private int maxConcurrency;
+        private int maxQueuedRequests = DEFAULT_MAX_QUEUED_REQUESTS;
+        private int maxQueueWait;
+        private boolean warmUpEnabled;
+        private int warmUpParsingIterations;
+        private HttpTransport.Implementation transport = HttpTransport.Implementation.APACHE;
 
         public ConnectionParamsBuilder withHost(String host) {
             this.host = host;
@@ -80,11 +159,153 @@ public class ConnectionParams {
             return this;
         }
 
+        /**
+         * @param maxConnections the maximum number of connections kept by the pool
+         * @param maxConnectionsPerRoute the maximum number of connections to the same server
+         */
+        public ConnectionParamsBuilder withMaxConnections(int maxConnections, int maxConnectionsPerRoute) {
+            this.maxConnections = maxConnections;
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        public ConnectionParamsBuilder withConnectTimeout(int connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        public ConnectionParamsBuilder withSocketTimeout(int socketTimeout) {
+            this.socketTimeout = socketTimeout;
+            return this;
+        }
+
+        /**
+         * @param responseTimeout the time to wait for a response, overriding the general timeout
+         */
+        public ConnectionParamsBuilder withResponseTimeout(int responseTimeout) {
+            this.responseTimeout = responseTimeout;
+            return this;
+        }
+
+        /**
+         * @param keepAlive how long an idle connection is kept when the server does not say
+         */
+        public ConnectionParamsBuilder withKeepAlive(int keepAlive) {
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        /**
+         * @param idleConnectionEviction how long a connection can stay idle before a background
+         *                               task closes it, 0 to disable the eviction
+         */
+        public ConnectionParamsBuilder withIdleConnectionEviction(int idleConnectionEviction) {
+            this.idleConnectionEviction = idleConnectionEviction;
+            return this;
+        }
+
+        /**
+         * @param validateAfterInactivity how long a connection can stay idle before it is checked
+         *                                again on lease
+         */
+        public ConnectionParamsBuilder withValidateAfterInactivity(int validateAfterInactivity) {
+            this.validateAfterInactivity = validateAfterInactivity;
+            return this;
+        }
+
+        public ConnectionParamsBuilder withTcpNoDelay(boolean tcpNoDelay) {
+            this.tcpNoDelay = tcpNoDelay;
+            return this;
+        }
+
+        /**
+         * @param tokenRefreshInterval how long, in milliseconds, a token is used before it is renewed
+         *                             ahead of its expiry, 0 to renew it only once rejected
+         */
+        public ConnectionParamsBuilder withTokenRefresh(int tokenRefreshInterval) {
+            this.tokenRefreshInterval = tokenRefreshInterval;
+            return this;
+        }
+
         public ConnectionParamsBuilder enableAuthentication(boolean authenticationEnabled) {
             this.authenticationEnabled = authenticationEnabled;
             return this;
         }
 
+        /**
+         * @param compressionEnabled whether gzip or deflate responses are asked for, as served
+         *                           by a reverse proxy in front of uTorrent
+         */
+        public ConnectionParamsBuilder enableCompression(boolean compressionEnabled) {
+            this.compressionEnabled = compressionEnabled;
+            return this;
+        }
+
+        /**
+         * @param actionBatchWindow how long, in milliseconds, the torrent actions such as start or stop
+         *                          are collected before they are sent together, 0 to send each call at once
+         */
+        public ConnectionParamsBuilder withActionBatching(int actionBatchWindow) {
+            this.actionBatchWindow = actionBatchWindow;
+            return this;
+        }
+
+        /**
+         * @param maxUrlLength the maximum length of the URL of a batch of actions or of a chunk of
+         *                     hashes, longer batches are split
+         */
+        public ConnectionParamsBuilder withMaxUrlLength(int maxUrlLength) {
+            this.maxUrlLength = maxUrlLength;
+            return this;
+        }
+
+        /**
+         * @param fetchParallelism the maximum number of chunks of hashes fetched at the same time
+         */
+        public ConnectionParamsBuilder withFetchParallelism(int fetchParallelism) {
+            this.fetchParallelism = fetchParallelism;
+            return this;
+        }
+
+        /**
+         * @param maxConcurrency the highest number of requests in flight, lowered while the WebUI
+         *                       answers slowly, 0 to send every request at once
+         */
+        public ConnectionParamsBuilder withAdaptiveConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * @param maxQueuedRequests the highest number of requests waiting for the concurrency limit,
+         *                          the next ones are rejected
+         * @param maxQueueWait      how long, in milliseconds, a request waits for the concurrency limit
+         *                          before it is rejected, 0 to wait without bound
+         */
+        public ConnectionParamsBuilder withRequestQueue(int maxQueuedRequests, int maxQueueWait) {
+            this.maxQueuedRequests = maxQueuedRequests;
+            this.maxQueueWait = maxQueueWait;
+            return this;
+        }
+
+        /**
+         * @param warmUpParsingIterations how many times sample messages are parsed during the warm-up,
+         *                                0 to leave the parsing code to warm up on real responses
+         */
+        public ConnectionParamsBuilder withWarmUp(int warmUpParsingIterations) {
+            this.warmUpEnabled = true;
+            this.warmUpParsingIterations = warmUpParsingIterations;
+            return this;
+        }
+
+        /**
+         * @param transport the HTTP client the blocking client sends its requests with, Apache HttpClient by default
+         */
+        public ConnectionParamsBuilder withTransport(HttpTransport.Implementation transport) {
+            this.transport = requireNonNull(transport, "Transport cannot be null");
+            return this;
+        }
+
         public ConnectionParamsBuilder withScheme(String scheme) {
             this.scheme = scheme;
             return this;
@@ -97,8 +318,33 @@ public class ConnectionParams {
                 credentials = new Credentials(username, password);
             }
             requireNonNull(host, "A host value must be specified");
+            if (maxConnections <= 0 || maxConnectionsPerRoute <= 0) {
+                throw new IllegalArgumentException("The maximum number of connections must be positive");
+            }
+            if (fetchParallelism <= 0) {
+                throw new IllegalArgumentException("The fetch parallelism must be positive");
+            }
+            if (maxConcurrency < 0 || maxQueuedRequests < 0 || maxQueueWait < 0) {
+                throw new IllegalArgumentException("The concurrency limit and the request queue bounds cannot be negative");
+            }
+            if (warmUpParsingIterations < 0) {
+                throw new IllegalArgumentException("The warm-up parsing iterations cannot be negative");
+            }
 
-            return new ConnectionParams(scheme, host, port, credentials, timeout, authenticationEnabled);
+            PoolParams poolParams = new PoolParams(
+                maxConnections,
+                maxConnectionsPerRoute,
+                connectTimeout,
+                socketTimeout,
+                responseTimeout,
+                keepAlive,
+                idleConnectionEviction,
+                validateAfterInactivity,
+                tcpNoDelay
+            );
+            return new ConnectionParams(scheme, host, port, credentials, timeout, authenticationEnabled, compressionEnabled, poolParams,
+                actionBatchWindow, maxUrlLength, fetchParallelism, tokenRefreshInterval, maxConcurrency, maxQueuedRequests, maxQueueWait,
+                warmUpEnabled, warmUpParsingIterations, transport);
         }
     }
 }
@@ -0,0 +1,20 @@
+package com.utorrent.api.web.client.restclient;
+
+import lombok.Data;
+import org.apache.hc.core5.pool.PoolStats;
+
+/**
+ * Snapshot of the connections of a pool: those in use by requests, those idle and ready
+ * for reuse, and the requests waiting for a connection.
+ */
+@Data
+public class ConnectionPoolStats {
+    private final int leased;
+    private final int available;
+    private final int pending;
+    private final int max;
+
+    static ConnectionPoolStats of(PoolStats poolStats) {
+        return new ConnectionPoolStats(poolStats.getLeased(), poolStats.getAvailable(), poolStats.getPending(), poolStats.getMax());
+    }
+}
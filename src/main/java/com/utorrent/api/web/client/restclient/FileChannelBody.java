@@ -0,0 +1,48 @@
+package com.utorrent.api.web.client.restclient;
+
+import org.apache.hc.client5.http.entity.mime.AbstractContentBody;
+import org.apache.hc.core5.http.ContentType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A multipart body transferred from the channel of a local file to the request stream,
+ * leaving the copy to the JDK rather than to a buffer of the client.
+ */
+class FileChannelBody extends AbstractContentBody {
+
+    private final File file;
+
+    FileChannelBody(final File file, final ContentType contentType) {
+        super(contentType);
+        this.file = file;
+    }
+
+    @Override
+    public void writeTo(final OutputStream out) throws IOException {
+        final WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+    }
+
+    @Override
+    public String getFilename() {
+        return file.getName();
+    }
+
+    @Override
+    public long getContentLength() {
+        return file.length();
+    }
+}
@@ -0,0 +1,85 @@
+package com.utorrent.api.web.client.restclient;
+
+import java.io.Closeable;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Optional;
+
+/**
+ * The HTTP exchanges a blocking client has with the WebUI: a GET with the parameters and headers
+ * of a {@link Request}, a multipart POST of its parameters and files, and the fetch of the token
+ * page the session is opened with.
+ * <p>
+ * {@link RESTClient}, on Apache HttpClient, is the default implementation. The implementation on the
+ * HTTP client of the JDK avoids loading Apache HttpClient, its connection pool and its I/O classes,
+ * at the cost of the connection pool stats and of the connections opened ahead. Both honour the
+ * call context of the calling thread, the concurrency limit, compression and the success marker of
+ * a request.
+ */
+public interface HttpTransport extends Closeable {
+
+    enum Implementation {
+        APACHE,
+        JDK
+    }
+
+    /**
+     * @return the transport selected by the connection parameters
+     */
+    static HttpTransport create(ConnectionParams params) throws URISyntaxException {
+        return params.getTransport() == Implementation.JDK ? new JdkHttpTransport(params) : new RESTClient(params);
+    }
+
+    URI getServerURI();
+
+    ConnectionParams getConnectionParams();
+
+    /**
+     * @return the body of the response, or the success marker of the request when it has one
+     * and the body contains it
+     */
+    String get(Request request);
+
+    /**
+     * Sends the parameters and the files of the request as the parts of a multipart form.
+     *
+     * @return the body of the response, or the success marker of the request when it has one
+     * and the body contains it
+     */
+    String post(Request request);
+
+    /**
+     * @return the token and the GUID cookie of a new session, with an invalid status when the
+     * token page could not be read
+     */
+    AuthorizationData authenticate();
+
+    /**
+     * Drops the state the transport keeps of the current session, if any.
+     */
+    default void resetSession() {
+    }
+
+    /**
+     * Opens connections to the server ahead of the first requests.
+     *
+     * @return the connections opened, 0 when the transport cannot open them ahead
+     */
+    default int openConnections(int count) {
+        return 0;
+    }
+
+    /**
+     * @return the stats of the connection pool, empty when the transport does not expose its pool
+     */
+    default Optional<ConnectionPoolStats> getConnectionPoolStats() {
+        return Optional.empty();
+    }
+
+    CompressionStats getCompressionStats();
+
+    /**
+     * @return the limiter of the requests in flight, empty when adaptive concurrency is disabled
+     */
+    Optional<AdaptiveConcurrencyLimiter> getConcurrencyLimiter();
+}
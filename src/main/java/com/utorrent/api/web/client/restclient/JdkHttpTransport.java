@@ -0,0 +1,402 @@
+package com.utorrent.api.web.client.restclient;
+
+import com.utorrent.api.web.client.restclient.exceptions.CallCancelledException;
+import com.utorrent.api.web.client.restclient.exceptions.RESTException;
+import com.utorrent.api.web.client.restclient.response.ContentDecoding;
+import com.utorrent.api.web.client.restclient.response.ResponseHandler;
+import com.utorrent.api.web.client.utils.BufferPool;
+import com.utorrent.api.web.client.utils.IOUtils;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.entity.mime.ContentBody;
+import org.apache.hc.core5.concurrent.Cancellable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link HttpTransport} on the HTTP client of the JDK, speaking HTTP/1.1 as the WebUI does.
+ * <p>
+ * The credentials, when authentication is enabled, are sent with every request rather than after
+ * a challenge. A multipart body is streamed as it is written, with its length when every part
+ * knows its own.
+ * The JDK client keeps its connection pool to itself: the transport neither reports its stats
+ * nor opens connections ahead.
+ */
+@Slf4j
+@Getter
+class JdkHttpTransport implements HttpTransport {
+
+    private static final String AUTHORIZATION_HEADER = "Authorization";
+    private static final String CONTENT_TYPE_HEADER = "Content-Type";
+    private static final String CRLF = "\r\n";
+
+    private final HttpClient client;
+    private final ConnectionParams connectionParams;
+    private final URI serverURI;
+    private final CompressionStats compressionStats;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final BufferPool bufferPool;
+    private final String authorization;
+    private final Duration responseTimeout;
+
+    JdkHttpTransport(final ConnectionParams params) throws URISyntaxException {
+        this(createClient(params), params);
+    }
+
+    JdkHttpTransport(final HttpClient client, final ConnectionParams params) throws URISyntaxException {
+        requireNonNull(params, "Connection Parameters cannot be null");
+        this.client = requireNonNull(client, "Client cannot be null");
+        this.connectionParams = params;
+        this.serverURI = RESTClient.createServerURI(params);
+        this.compressionStats = new CompressionStats();
+        this.concurrencyLimiter = params.isAdaptiveConcurrencyEnabled()
+            ? new AdaptiveConcurrencyLimiter(params.getMaxConcurrency(), params.getMaxQueuedRequests(), params.getMaxQueueWait())
+            : null;
+        this.bufferPool = BufferPool.shared();
+        this.authorization = params.isAuthenticationEnabled() && nonNull(params.getCredentials())
+            ? params.getCredentials().asBasicAuthorization()
+            : null;
+        this.responseTimeout = responseTimeout(params);
+    }
+
+    private static HttpClient createClient(final ConnectionParams params) {
+        final HttpClient.Builder builder = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .followRedirects(HttpClient.Redirect.NEVER);
+        if (nonNull(params.getPoolParams()) && params.getPoolParams().getConnectTimeout() > 0) {
+            builder.connectTimeout(Duration.ofMillis(params.getPoolParams().getConnectTimeout()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * As for Apache HttpClient, the general timeout bounds the wait for the response unless
+     * a response timeout is set.
+     */
+    private static Duration responseTimeout(final ConnectionParams params) {
+        if (nonNull(params.getPoolParams()) && params.getPoolParams().getResponseTimeout() > 0) {
+            return Duration.ofMillis(params.getPoolParams().getResponseTimeout());
+        }
+        return params.getTimeout() > 0 ? Duration.ofMillis(params.getTimeout()) : null;
+    }
+
+    @Override
+    public Optional<AdaptiveConcurrencyLimiter> getConcurrencyLimiter() {
+        return Optional.ofNullable(concurrencyLimiter);
+    }
+
+    @Override
+    public String get(final Request request) {
+        requireNonNull(request, "Request cannot be null");
+        return execute(HttpRequest.newBuilder(withParams(request.getUri(), request.getParams())).GET(), request);
+    }
+
+    @Override
+    public String post(final Request request) {
+        requireNonNull(request, "Request cannot be null");
+        final String boundary = "utorrent-" + Long.toHexString(ThreadLocalRandom.current().nextLong());
+        final HttpRequest.BodyPublisher body = StreamedBodies.publisher(
+            multipartLength(request, boundary), out -> writeMultipart(request, boundary, out, true));
+        return execute(HttpRequest
+            .newBuilder(request.getUri())
+            .header(CONTENT_TYPE_HEADER, "multipart/form-data; boundary=" + boundary)
+            .POST(body), request);
+    }
+
+    @Override
+    public AuthorizationData authenticate() {
+        final HttpRequest.Builder builder = HttpRequest.newBuilder(serverURI.resolve("token.html")).GET();
+        if (nonNull(authorization)) {
+            builder.header(AUTHORIZATION_HEADER, authorization);
+        }
+        return executeVerb(builder, RequestPriority.INTERACTIVE, (response, body) -> {
+            try {
+                ResponseHandler.validateStatus(response.statusCode(), reasonPhrase(response.statusCode()));
+                final String setCookieValue = response.headers().firstValue("Set-Cookie")
+                    .orElseThrow(() -> new IllegalStateException("The token page was sent without a Set-Cookie header"));
+                return RESTClient.toAuthorizationData(setCookieValue, IOUtils.toString(body, -1, StandardCharsets.UTF_8, bufferPool));
+            } catch (final Exception e) {
+                log.error("Response was: {}", response);
+                log.error(e.getMessage(), e);
+                return new AuthorizationData(null, null, AuthorizationData.Status.INVALID);
+            }
+        });
+    }
+
+    /**
+     * Asks for a compressed response when compression is enabled and decodes the response as it
+     * is read, recording its sizes under the request name. A request with a success marker has
+     * its body scanned for the marker rather than read.
+     */
+    private String execute(final HttpRequest.Builder builder, final Request request) {
+        request.getHeaders().forEach(builder::header);
+        if (nonNull(authorization)) {
+            builder.header(AUTHORIZATION_HEADER, authorization);
+        }
+        if (connectionParams.isCompressionEnabled()) {
+            builder.header(ContentDecoding.ACCEPT_ENCODING_HEADER, ContentDecoding.ACCEPTED_ENCODINGS);
+        }
+        final String name = nonNull(request.getName()) ? request.getName() : request.getUri().getPath();
+        final String successMarker = request.getSuccessMarker();
+        return executeVerb(builder, request.getPriority(), (response, body) -> {
+            ResponseHandler.validateStatus(response.statusCode(), reasonPhrase(response.statusCode()));
+            final Optional<String> contentEncoding = response.headers().firstValue("Content-Encoding");
+            final InputStream content = ContentDecoding.decode(body, contentEncoding.orElse(null), compressionStats, name);
+            if (nonNull(successMarker)) {
+                return IOUtils.contains(content, successMarker.getBytes(StandardCharsets.UTF_8), bufferPool) ? successMarker : "";
+            }
+            final long contentLength = contentEncoding.isPresent() ? -1 : response.headers().firstValueAsLong("Content-Length").orElse(-1);
+            return IOUtils.toString(content, contentLength, charsetOf(response), bufferPool);
+        });
+    }
+
+    /**
+     * Sends the request within the concurrency limit when there is one, as {@link RESTClient} does.
+     */
+    private <T> T executeVerb(final HttpRequest.Builder builder, final RequestPriority priority, final BodyReader<T> reader) {
+        final CallContext context = CallContext.current().orElse(null);
+        if (context != null) {
+            context.check();
+        }
+        if (concurrencyLimiter == null) {
+            return send(builder, context, reader);
+        }
+        return concurrencyLimiter.execute(priority, () -> send(builder, context, reader));
+    }
+
+    /**
+     * Within a call context, the wait for the response is bounded by the time left and the
+     * exchange is abandoned when the context is cancelled or its deadline passes, until its
+     * body is read.
+     */
+    private <T> T send(final HttpRequest.Builder builder, final CallContext context, final BodyReader<T> reader) {
+        final Duration timeout = context == null ? responseTimeout : context.getRemaining()
+            .map(remaining -> responseTimeout == null || remaining.compareTo(responseTimeout) < 0 ? remaining : responseTimeout)
+            .orElse(responseTimeout);
+        if (nonNull(timeout)) {
+            builder.timeout(timeout.isZero() ? Duration.ofMillis(1) : timeout);
+        }
+        final HttpRequest httpRequest = builder.build();
+        try {
+            if (context != null) {
+                return sendWithin(httpRequest, context, reader);
+            }
+            final HttpResponse<InputStream> response = client.send(httpRequest, BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                return reader.read(response, body);
+            }
+        } catch (final IOException e) {
+            if (context != null) {
+                context.check();
+            }
+            throw new RESTException("Impossible to execute request " + httpRequest.method(), e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CallCancelledException("The call was interrupted while waiting for the response");
+        }
+    }
+
+    /**
+     * Aborting the exchange once the response arrived closes its body, which ends the read in
+     * progress. What was read of the body is then discarded.
+     */
+    private <T> T sendWithin(final HttpRequest httpRequest, final CallContext context, final BodyReader<T> reader)
+        throws IOException, InterruptedException {
+        final CompletableFuture<HttpResponse<InputStream>> exchange = client.sendAsync(httpRequest, BodyHandlers.ofInputStream());
+        final AtomicBoolean aborted = new AtomicBoolean();
+        final Cancellable abort = () -> {
+            aborted.set(true);
+            exchange.cancel(true);
+            exchange.thenAccept(JdkHttpTransport::closeBody);
+            return true;
+        };
+        try (CallContext.Registration ignored = context.register(abort)) {
+            final HttpResponse<InputStream> response = exchange.get();
+            final T result;
+            try (InputStream body = response.body()) {
+                result = reader.read(response, body);
+            }
+            if (aborted.get()) {
+                context.check();
+                throw new CallCancelledException("The exchange was aborted");
+            }
+            return result;
+        } catch (final CancellationException e) {
+            context.check();
+            throw new CallCancelledException("The exchange was aborted");
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RESTException("Impossible to execute request " + httpRequest.method(), e);
+        }
+    }
+
+    private static void closeBody(final HttpResponse<InputStream> response) {
+        try {
+            response.body().close();
+        } catch (final IOException e) {
+            log.debug("Impossible to close the body of an aborted exchange", e);
+        }
+    }
+
+    /**
+     * @return the URI with the parameters appended to its query
+     */
+    static URI withParams(final URI uri, final Set<Request.QueryParam> params) {
+        if (params.isEmpty()) {
+            return uri;
+        }
+        final StringBuilder query = new StringBuilder(uri.toString());
+        char separator = uri.getRawQuery() == null ? '?' : '&';
+        for (Request.QueryParam param : params) {
+            query.append(separator)
+                .append(URLEncoder.encode(param.getName(), StandardCharsets.UTF_8))
+                .append('=')
+                .append(URLEncoder.encode(param.getValue(), StandardCharsets.UTF_8));
+            separator = '&';
+        }
+        return URI.create(query.toString());
+    }
+
+    /**
+     * @return the length of the multipart body, -1 when a part does not know its length
+     */
+    private static long multipartLength(final Request request, final String boundary) {
+        final long[] length = {0};
+        for (Request.FilePart file : request.getFiles()) {
+            final long partLength = file.getBody().getContentLength();
+            if (partLength < 0) {
+                return -1;
+            }
+            length[0] += partLength;
+        }
+        try {
+            writeMultipart(request, boundary, new OutputStream() {
+                @Override
+                public void write(final int b) {
+                    length[0]++;
+                }
+
+                @Override
+                public void write(final byte[] bytes, final int offset, final int count) {
+                    length[0] += count;
+                }
+            }, false);
+        } catch (final IOException e) {
+            throw new RESTException("Impossible to execute request POST", e);
+        }
+        return length[0];
+    }
+
+    /**
+     * Writes the parameters as text parts and the files as binary parts, as browsers do.
+     *
+     * @param withContent false to write the framing of the parts only
+     */
+    private static void writeMultipart(final Request request, final String boundary, final OutputStream body, final boolean withContent)
+        throws IOException {
+        for (Request.QueryParam param : request.getParams()) {
+            writeAscii(body, "--" + boundary + CRLF + "Content-Disposition: form-data; name=\"" + param.getName() + "\"" + CRLF + CRLF);
+            body.write(param.getValue().getBytes(StandardCharsets.UTF_8));
+            writeAscii(body, CRLF);
+        }
+        for (Request.FilePart file : request.getFiles()) {
+            final ContentBody part = file.getBody();
+            writeAscii(body, "--" + boundary + CRLF + "Content-Disposition: form-data; name=\"" + file.getName() + "\"");
+            if (nonNull(part.getFilename())) {
+                body.write(("; filename=\"" + part.getFilename() + "\"").getBytes(StandardCharsets.UTF_8));
+            }
+            writeAscii(body, CRLF + CONTENT_TYPE_HEADER + ": " + part.getMimeType() + CRLF + CRLF);
+            if (withContent) {
+                part.writeTo(body);
+            }
+            writeAscii(body, CRLF);
+        }
+        writeAscii(body, "--" + boundary + "--" + CRLF);
+    }
+
+    private static void writeAscii(final OutputStream body, final String text) throws IOException {
+        body.write(text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static Charset charsetOf(final HttpResponse<?> response) {
+        return response.headers().firstValue(CONTENT_TYPE_HEADER)
+            .flatMap(contentType -> {
+                final int charsetIndex = contentType.toLowerCase(Locale.ROOT).indexOf("charset=");
+                if (charsetIndex < 0) {
+                    return Optional.empty();
+                }
+                final String charset = contentType.substring(charsetIndex + "charset=".length()).split(";")[0].trim().replace("\"", "");
+                try {
+                    return Optional.of(Charset.forName(charset));
+                } catch (final IllegalCharsetNameException | UnsupportedCharsetException e) {
+                    return Optional.empty();
+                }
+            })
+            .orElse(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The JDK client does not keep the reason phrase of the status line, the standard one is used.
+     */
+    private static String reasonPhrase(final int statusCode) {
+        switch (statusCode) {
+            case 400:
+                return "Bad Request";
+            case 401:
+                return "Unauthorized";
+            case 403:
+                return "Forbidden";
+            case 404:
+                return "Not Found";
+            case 406:
+                return "Not Acceptable";
+            default:
+                return statusCode >= 500 ? "Server Error" : "";
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (client instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) client).close();
+            } catch (final IOException | RuntimeException e) {
+                throw e;
+            } catch (final Exception e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface BodyReader<T> {
+        T read(HttpResponse<InputStream> response, InputStream body) throws IOException;
+    }
+}
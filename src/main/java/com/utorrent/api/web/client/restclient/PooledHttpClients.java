@@ -0,0 +1,122 @@
+package com.utorrent.api.web.client.restclient;
+
+import com.utorrent.api.web.client.restclient.ConnectionParams.PoolParams;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the pooled HTTP clients of {@link RESTClient} and {@link AsyncRESTClient}
+ * out of the {@link PoolParams} of the connection parameters. The transparent content
+ * decompression of the classic client is disabled: responses are decoded by the REST
+ * clients themselves, which measure them.
+ */
+final class PooledHttpClients {
+
+    private PooledHttpClients() {
+    }
+
+    static PoolingHttpClientConnectionManager createConnectionManager(PoolParams poolParams) {
+        SocketConfig.Builder socketConfig = SocketConfig.custom()
+                .setTcpNoDelay(poolParams.isTcpNoDelay());
+        if (poolParams.getSocketTimeout() > 0) {
+            socketConfig.setSoTimeout(poolParams.getSocketTimeout(), TimeUnit.MILLISECONDS);
+        }
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(poolParams.getMaxConnections())
+                .setMaxConnPerRoute(poolParams.getMaxConnectionsPerRoute())
+                .setDefaultSocketConfig(socketConfig.build())
+                .setDefaultConnectionConfig(createConnectionConfig(poolParams))
+                .build();
+    }
+
+    static CloseableHttpClient createClient(PoolParams poolParams, PoolingHttpClientConnectionManager connectionManager) {
+        HttpClientBuilder builder = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .disableContentCompression();
+        if (poolParams.getIdleConnectionEviction() > 0) {
+            builder.evictExpiredConnections()
+                    .evictIdleConnections(TimeValue.ofMilliseconds(poolParams.getIdleConnectionEviction()));
+        }
+        return builder.build();
+    }
+
+    static PoolingAsyncClientConnectionManager createAsyncConnectionManager(PoolParams poolParams) {
+        return PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(poolParams.getMaxConnections())
+                .setMaxConnPerRoute(poolParams.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(createConnectionConfig(poolParams))
+                .build();
+    }
+
+    static CloseableHttpAsyncClient createAsyncClient(PoolParams poolParams, PoolingAsyncClientConnectionManager connectionManager) {
+        IOReactorConfig.Builder ioReactorConfig = IOReactorConfig.custom()
+                .setTcpNoDelay(poolParams.isTcpNoDelay());
+        if (poolParams.getSocketTimeout() > 0) {
+            ioReactorConfig.setSoTimeout(poolParams.getSocketTimeout(), TimeUnit.MILLISECONDS);
+        }
+        HttpAsyncClientBuilder builder = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setIOReactorConfig(ioReactorConfig.build())
+                .disableCookieManagement();
+        if (poolParams.getIdleConnectionEviction() > 0) {
+            builder.evictExpiredConnections()
+                    .evictIdleConnections(TimeValue.ofMilliseconds(poolParams.getIdleConnectionEviction()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * The general timeout bounds the wait for a pooled connection and, unless a response
+     * timeout is set, the wait for the response.
+     */
+    static RequestConfig createRequestConfig(ConnectionParams params) {
+        RequestConfig.Builder requestConfigBuilder = RequestConfig.custom()
+                .setAuthenticationEnabled(params.isAuthenticationEnabled());
+
+        if (params.getTimeout() > 0) {
+            requestConfigBuilder
+                .setResponseTimeout(params.getTimeout(), TimeUnit.MILLISECONDS)
+                .setConnectionRequestTimeout(params.getTimeout(), TimeUnit.MILLISECONDS);
+        }
+
+        PoolParams poolParams = params.getPoolParams();
+        if (poolParams != null) {
+            if (poolParams.getResponseTimeout() > 0) {
+                requestConfigBuilder.setResponseTimeout(poolParams.getResponseTimeout(), TimeUnit.MILLISECONDS);
+            }
+            if (poolParams.getKeepAlive() > 0) {
+                requestConfigBuilder.setConnectionKeepAlive(TimeValue.ofMilliseconds(poolParams.getKeepAlive()));
+            }
+        }
+        return requestConfigBuilder.build();
+    }
+
+    private static ConnectionConfig createConnectionConfig(PoolParams poolParams) {
+        ConnectionConfig.Builder connectionConfig = ConnectionConfig.custom();
+        if (poolParams.getConnectTimeout() > 0) {
+            connectionConfig.setConnectTimeout(poolParams.getConnectTimeout(), TimeUnit.MILLISECONDS);
+        }
+        if (poolParams.getSocketTimeout() > 0) {
+            connectionConfig.setSocketTimeout(poolParams.getSocketTimeout(), TimeUnit.MILLISECONDS);
+        }
+        if (poolParams.getValidateAfterInactivity() > 0) {
+            connectionConfig.setValidateAfterInactivity(poolParams.getValidateAfterInactivity(), TimeUnit.MILLISECONDS);
+        }
+        return connectionConfig.build();
+    }
+}
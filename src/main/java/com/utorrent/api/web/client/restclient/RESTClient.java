@@ -2,138 +2,345 @@ package com.utorrent.api.web.client.restclient;
 
 import com.utorrent.api.web.client.restclient.exceptions.ClientRequestException;
 import com.utorrent.api.web.client.restclient.exceptions.RESTException;
+import com.utorrent.api.web.client.restclient.response.ContentDecoding;
 import com.utorrent.api.web.client.restclient.response.ResponseHandler;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.auth.AuthCache;
 import org.apache.hc.client5.http.auth.AuthScope;
 import org.apache.hc.client5.http.auth.UsernamePasswordCredentials;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
 import org.apache.hc.client5.http.config.RequestConfig;
-import org.apache.hc.client5.http.entity.mime.FileBody;
 import org.apache.hc.client5.http.entity.mime.HttpMultipartMode;
 import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
+import org.apache.hc.client5.http.cookie.BasicCookieStore;
+import org.apache.hc.client5.http.cookie.CookieStore;
+import org.apache.hc.client5.http.impl.auth.BasicAuthCache;
 import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
 import org.apache.hc.client5.http.protocol.HttpClientContext;
 import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.URIScheme;
 import org.apache.hc.core5.http.io.HttpClientResponseHandler;
 import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
 import org.apache.hc.core5.net.URIBuilder;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 
-import java.io.Closeable;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.concurrent.TimeUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 import static java.util.Objects.nonNull;
 import static java.util.Objects.requireNonNull;
 
 @Slf4j
 @Getter
-public class RESTClient implements Closeable {
+public class RESTClient implements HttpTransport {
     private final HttpClientResponseHandler<String> standardResponseHandler;
     private final CloseableHttpClient client;
-    private final HttpClientContext httpClientContext;
+    private final BasicCredentialsProvider credentialsProvider;
+    private final RequestConfig requestConfig;
+    private volatile CookieStore cookieStore;
+    private volatile AuthCache authCache;
     private final ConnectionParams connectionParams;
     private final URI serverURI;
+    private final ConnPoolControl<HttpRoute> connectionManager;
+    private final CompressionStats compressionStats;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
 
     public RESTClient(
         final CloseableHttpClient client,
         final ConnectionParams params,
         final URI serverURI,
         final HttpClientResponseHandler<String> responseHandler
+    ) {
+        this(client, null, params, serverURI, responseHandler);
+    }
+
+    /**
+     * @param connectionManager the connection pool of the client, to report its stats, null when unknown
+     */
+    public RESTClient(
+        final CloseableHttpClient client,
+        final ConnPoolControl<HttpRoute> connectionManager,
+        final ConnectionParams params,
+        final URI serverURI,
+        final HttpClientResponseHandler<String> responseHandler
     ) {
         requireNonNull(params, "Connection Parameters cannot be null");
         requireNonNull(client, "Client cannot be null");
 
         this.client = client;
+        this.connectionManager = connectionManager;
+        this.compressionStats = new CompressionStats();
         this.serverURI = serverURI;
         this.connectionParams = params;
+        this.concurrencyLimiter = params.isAdaptiveConcurrencyEnabled()
+            ? new AdaptiveConcurrencyLimiter(params.getMaxConcurrency(), params.getMaxQueuedRequests(), params.getMaxQueueWait())
+            : null;
 
-        this.httpClientContext = HttpClientContext.create();
         if (nonNull(params.getCredentials())) {
             ConnectionParams.Credentials credentials = params.getCredentials();
-            BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+            this.credentialsProvider = new BasicCredentialsProvider();
             credentialsProvider.setCredentials(
                 new AuthScope(null, -1),
                 new UsernamePasswordCredentials(credentials.getUsername(), credentials.getPassword().toCharArray())
             );
-            httpClientContext.setCredentialsProvider(credentialsProvider);
-        }
-
-        RequestConfig.Builder requestConfigBuilder = RequestConfig.custom()
-                .setAuthenticationEnabled(params.isAuthenticationEnabled());
-
-        if (params.getTimeout() > 0) {
-            requestConfigBuilder
-                .setResponseTimeout(params.getTimeout(), TimeUnit.MILLISECONDS)
-                .setConnectionRequestTimeout(params.getTimeout(), TimeUnit.MILLISECONDS);
+        } else {
+            this.credentialsProvider = null;
         }
 
-        httpClientContext.setRequestConfig(requestConfigBuilder.build());
+        this.requestConfig = PooledHttpClients.createRequestConfig(params);
+        resetSession();
         this.standardResponseHandler = responseHandler;
     }
 
+    /**
+     * Drops the cookies and the cached authentication of the session with the server, so that the
+     * next authentication starts a new session over the connections of the pool, which are kept.
+     */
+    @Override
+    public void resetSession() {
+        this.cookieStore = new BasicCookieStore();
+        this.authCache = new BasicAuthCache();
+    }
+
     public RESTClient(
         final CloseableHttpClient client,
         final ConnectionParams params,
         final HttpClientResponseHandler<String> responseHandler
     ) throws URISyntaxException {
+        this(client, null, params, responseHandler);
+    }
+
+    private RESTClient(
+        final CloseableHttpClient client,
+        final ConnPoolControl<HttpRoute> connectionManager,
+        final ConnectionParams params,
+        final HttpClientResponseHandler<String> responseHandler
+    ) throws URISyntaxException {
+        this(client, connectionManager, params, createServerURI(params), responseHandler);
+    }
+
+    public RESTClient(final ConnectionParams params) throws URISyntaxException {
+        this(PooledHttpClients.createConnectionManager(params.getPoolParams()), params);
+    }
+
+    private RESTClient(final PoolingHttpClientConnectionManager connectionManager, final ConnectionParams params) throws URISyntaxException {
         this(
-            client,
+            PooledHttpClients.createClient(params.getPoolParams(), connectionManager),
+            connectionManager,
             params,
-            new URIBuilder()
-                .setScheme(params.getScheme())
-                .setHost(params.getHost())
-                .setPort(params.getPort())
-                .setPath("/gui/")
-                .build(),
-            responseHandler
+            new ResponseHandler()
         );
     }
 
-    public RESTClient(final ConnectionParams params) throws URISyntaxException {
-        this(HttpClients.createDefault(), params, new ResponseHandler());
+    static URI createServerURI(final ConnectionParams params) throws URISyntaxException {
+        return new URIBuilder()
+            .setScheme(params.getScheme())
+            .setHost(params.getHost())
+            .setPort(params.getPort())
+            .setPath("/gui/")
+            .build();
+    }
+
+    /**
+     * @return the stats of the connection pool, empty when the client was given without its pool
+     */
+    @Override
+    public Optional<ConnectionPoolStats> getConnectionPoolStats() {
+        return Optional.ofNullable(connectionManager).map(pool -> ConnectionPoolStats.of(pool.getTotalStats()));
+    }
+
+    /**
+     * @return the limiter of the requests in flight, empty when adaptive concurrency is disabled
+     */
+    @Override
+    public Optional<AdaptiveConcurrencyLimiter> getConcurrencyLimiter() {
+        return Optional.ofNullable(concurrencyLimiter);
     }
 
+    /**
+     * Opens connections to the server ahead of the first requests and leaves them idle in the pool,
+     * for the requests to skip the TCP, and TLS, handshakes.
+     *
+     * @param count the connections to open, at most the connections allowed per route
+     * @return the connections opened, 0 when the client was given without its pool
+     */
+    @Override
+    public int openConnections(int count) {
+        if (!(connectionManager instanceof HttpClientConnectionManager)) {
+            return 0;
+        }
+        final HttpClientConnectionManager manager = (HttpClientConnectionManager) connectionManager;
+        final HttpHost target = new HttpHost(serverURI.getScheme(), serverURI.getHost(), serverURI.getPort());
+        final HttpRoute route = new HttpRoute(target, null, URIScheme.HTTPS.same(target.getSchemeName()));
+        final Timeout leaseTimeout = requestConfig.getConnectionRequestTimeout();
+        final TimeValue keepAlive = requestConfig.getConnectionKeepAlive();
+        final List<ConnectionEndpoint> endpoints = new ArrayList<>();
+        int opened = 0;
+        try {
+            for (int i = 0; i < count; i++) {
+                final ConnectionEndpoint endpoint = manager.lease("warm-up-" + i, route, leaseTimeout, null).get(leaseTimeout);
+                endpoints.add(endpoint);
+                if (!endpoint.isConnected()) {
+                    manager.connect(endpoint, null, HttpClientContext.create());
+                    opened++;
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RESTException("Interrupted while opening connections to " + serverURI, e);
+        } catch (final ExecutionException | TimeoutException | IOException e) {
+            throw new RESTException("Impossible to open connections to " + serverURI, e);
+        } finally {
+            endpoints.forEach(endpoint -> manager.release(endpoint, null, keepAlive));
+        }
+        return opened;
+    }
+
+    @Override
     public String post(Request request) {
         requireNonNull(request, "Request cannot be null");
 
         MultipartEntityBuilder httpEntityBuilder = MultipartEntityBuilder.create()
                 .setMode(HttpMultipartMode.LEGACY);
 
-        request.getFiles().forEach(file -> httpEntityBuilder.addPart(file.getName(), new FileBody(file.getFile(), file.getContentType())));
+        request.getFiles().forEach(file -> httpEntityBuilder.addPart(file.getName(), file.getBody()));
         request.getParams().forEach(param -> httpEntityBuilder.addTextBody(param.getName(), param.getValue()));
 
-        final ClassicHttpRequest postRequest = ClassicRequestBuilder.post(request.getUri())
-                .setEntity(httpEntityBuilder.build())
-                .build();
+        final ClassicRequestBuilder requestBuilder = ClassicRequestBuilder.post(request.getUri())
+                .setEntity(httpEntityBuilder.build());
+        request.getHeaders().forEach(requestBuilder::addHeader);
 
-        return executeVerb(postRequest);
+        return executeVerb(requestBuilder.build(), request);
     }
 
+    @Override
     public String get(Request request) {
-        final URIBuilder uriBuilder = new URIBuilder(request.getUri());
         final ClassicRequestBuilder requestBuilder = ClassicRequestBuilder.get();
-        request.getParams().forEach(param -> uriBuilder.addParameter(param.getName(), param.getValue()));
         request.getHeaders().forEach(requestBuilder::addHeader);
 
         try {
-            final ClassicHttpRequest httpUriRequest = requestBuilder.setUri(uriBuilder.build()).build();
-            return executeVerb(httpUriRequest);
+            final ClassicHttpRequest httpUriRequest = requestBuilder.setUri(toURI(request)).build();
+            return executeVerb(httpUriRequest, request);
         } catch (final URISyntaxException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * @return the URI of the request with its parameters, the URI as it is when they are already in its query
+     */
+    static URI toURI(final Request request) throws URISyntaxException {
+        if (request.getParams().isEmpty()) {
+            return request.getUri();
+        }
+        final URIBuilder uriBuilder = new URIBuilder(request.getUri());
+        request.getParams().forEach(param -> uriBuilder.addParameter(param.getName(), param.getValue()));
+        return uriBuilder.build();
+    }
+
+    /**
+     * Sends the request within the concurrency limit when there is one, dispatched by its priority
+     * while it waits for the limit. A response of any status feeds the limit with its latency,
+     * a request left unanswered lowers it.
+     */
     private <T> T executeVerb(
+        final ClassicHttpRequest httpRequest,
+        final RequestPriority priority,
+        final HttpClientResponseHandler<T> responseHandler
+    ) {
+        final CallContext context = CallContext.current().orElse(null);
+        if (context != null) {
+            context.check();
+        }
+        if (concurrencyLimiter == null) {
+            return send(httpRequest, context, responseHandler);
+        }
+        return concurrencyLimiter.execute(priority, () -> send(httpRequest, context, responseHandler));
+    }
+
+    /**
+     * Within a call context, the exchange is aborted when the context is cancelled or its
+     * deadline passes and the waits for a connection and for the response are bounded by
+     * the time left.
+     */
+    private <T> T send(
+        final ClassicHttpRequest httpRequest,
+        final CallContext context,
+        final HttpClientResponseHandler<T> responseHandler
+    ) {
+        if (context == null) {
+            return send(httpRequest, responseHandler);
+        }
+        final HttpUriRequestBase exchange = toExchange(httpRequest, context);
+        try (CallContext.Registration ignored = context.register(exchange)) {
+            return send(exchange, responseHandler);
+        } catch (final RESTException e) {
+            context.check();
+            throw e;
+        }
+    }
+
+    private HttpUriRequestBase toExchange(final ClassicHttpRequest httpRequest, final CallContext context) {
+        final HttpUriRequestBase exchange;
+        try {
+            exchange = new HttpUriRequestBase(httpRequest.getMethod(), httpRequest.getUri());
+        } catch (final URISyntaxException e) {
+            throw new RESTException("Impossible to execute request " + httpRequest.getMethod(), e);
+        }
+        exchange.setHeaders(httpRequest.getHeaders());
+        exchange.setEntity(httpRequest.getEntity());
+        context.getRemaining().ifPresent(remaining -> {
+            final Timeout timeout = Timeout.ofMilliseconds(Math.max(1, remaining.toMillis()));
+            exchange.setConfig(RequestConfig
+                .copy(requestConfig)
+                .setConnectionRequestTimeout(min(requestConfig.getConnectionRequestTimeout(), timeout))
+                .setResponseTimeout(min(requestConfig.getResponseTimeout(), timeout))
+                .build());
+        });
+        return exchange;
+    }
+
+    /**
+     * @return a context of its own for one exchange, sharing the credentials and the cookies and the
+     * cached authentication of the current session
+     */
+    private HttpClientContext createContext() {
+        final HttpClientContext context = HttpClientContext.create();
+        if (nonNull(credentialsProvider)) {
+            context.setCredentialsProvider(credentialsProvider);
+        }
+        context.setRequestConfig(requestConfig);
+        context.setCookieStore(cookieStore);
+        context.setAuthCache(authCache);
+        return context;
+    }
+
+    private static Timeout min(final Timeout configured, final Timeout remaining) {
+        return configured == null || configured.isDisabled() || configured.compareTo(remaining) > 0 ? remaining : configured;
+    }
+
+    private <T> T send(
         final ClassicHttpRequest httpRequest,
         final HttpClientResponseHandler<T> responseHandler
     ) {
         try {
-            return client.execute(httpRequest, httpClientContext, responseHandler);
+            return client.execute(httpRequest, createContext(), responseHandler);
         } catch (final ClientRequestException e) {
             throw e;
         } catch (final Exception e) {
@@ -141,8 +348,30 @@ public class RESTClient implements Closeable {
         }
     }
 
-    private String executeVerb(final ClassicHttpRequest httpRequest) {
-        return executeVerb(httpRequest, standardResponseHandler);
+    /**
+     * Asks for a compressed response when compression is enabled and decodes the response
+     * as the standard response handler reads it, recording its sizes under the request name.
+     * A request with a success marker has its body scanned for the marker rather than read.
+     */
+    private String executeVerb(final ClassicHttpRequest httpRequest, final Request request) {
+        if (connectionParams.isCompressionEnabled()) {
+            httpRequest.setHeader(ContentDecoding.ACCEPT_ENCODING_HEADER, ContentDecoding.ACCEPTED_ENCODINGS);
+        }
+        final String name = nonNull(request.getName()) ? request.getName() : request.getUri().getPath();
+        final HttpClientResponseHandler<String> responseHandler = responseHandlerFor(request);
+        return executeVerb(httpRequest, request.getPriority(), response -> {
+            if (nonNull(response.getEntity())) {
+                response.setEntity(ContentDecoding.decode(response.getEntity(), compressionStats, name));
+            }
+            return responseHandler.handleResponse(response);
+        });
+    }
+
+    private HttpClientResponseHandler<String> responseHandlerFor(final Request request) {
+        if (nonNull(request.getSuccessMarker()) && standardResponseHandler instanceof ResponseHandler) {
+            return ((ResponseHandler) standardResponseHandler).scanningFor(request.getSuccessMarker());
+        }
+        return standardResponseHandler;
     }
 
     @Override
@@ -150,6 +379,7 @@ public class RESTClient implements Closeable {
         client.close();
     }
 
+    @Override
     public AuthorizationData authenticate() {
         final ClassicHttpRequest httpUriRequest = ClassicRequestBuilder
             .get()
@@ -157,17 +387,11 @@ public class RESTClient implements Closeable {
             .build();
         return executeVerb(
             httpUriRequest,
+            RequestPriority.INTERACTIVE,
             response -> {
                 try {
                     final String setCookieValue = response.getHeader("Set-Cookie").getValue();
-                    final String guid = Arrays
-                        .stream(setCookieValue.split(";\\s*"))
-                        .filter(headerElement -> headerElement.startsWith("GUID"))
-                        .map(headerElement -> headerElement.split("=")[1])
-                        .findFirst()
-                        .orElse(null);
-                    final String token = standardResponseHandler.handleResponse(response).replaceAll("<[^>]*>", "");
-                    return new AuthorizationData(token, "GUID=" + guid, AuthorizationData.Status.OK);
+                    return toAuthorizationData(setCookieValue, standardResponseHandler.handleResponse(response));
                 } catch (final Exception e) {
                     log.error("Response was: {}", response);
                     log.error(e.getMessage(), e);
@@ -177,4 +401,18 @@ public class RESTClient implements Closeable {
         );
 
     }
+
+    /**
+     * Builds the authorization data out of the Set-Cookie header and the body of the token page.
+     */
+    static AuthorizationData toAuthorizationData(final String setCookieValue, final String tokenPage) {
+        final String guid = Arrays
+            .stream(setCookieValue.split(";\\s*"))
+            .filter(headerElement -> headerElement.startsWith("GUID"))
+            .map(headerElement -> headerElement.split("=")[1])
+            .findFirst()
+            .orElse(null);
+        final String token = tokenPage.replaceAll("<[^>]*>", "");
+        return new AuthorizationData(token, "GUID=" + guid, AuthorizationData.Status.OK);
+    }
 }
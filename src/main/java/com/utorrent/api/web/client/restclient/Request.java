@@ -2,18 +2,41 @@ package com.utorrent.api.web.client.restclient;
 
 import lombok.Builder;
 import lombok.Data;
-import lombok.RequiredArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.Singular;
+import lombok.ToString;
+import org.apache.hc.client5.http.entity.mime.ByteArrayBody;
+import org.apache.hc.client5.http.entity.mime.ContentBody;
+import org.apache.hc.client5.http.entity.mime.InputStreamBody;
 import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.net.URIBuilder;
 
 import java.io.File;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class Request {
     private final URI uri;
+    /**
+     * The name the request is accounted under in the client stats, such as the uTorrent action,
+     * the path of the URI when not set.
+     */
+    private final String name;
+    /**
+     * The class the request is dispatched by while waiting for the concurrency limit.
+     */
+    @Builder.Default
+    private final RequestPriority priority = RequestPriority.NORMAL;
+    /**
+     * The text acknowledging the request, such as the build number answered to a uTorrent action.
+     * When set, the body is only scanned for it and the response is the marker when found and
+     * an empty string otherwise, the rest of the body being drained unread.
+     */
+    private final String successMarker;
     @Singular
     private final Set<QueryParam> params;
     @Singular
@@ -21,12 +44,63 @@ public class Request {
     @Singular
     private final Set<FilePart> files;
 
+    /**
+     * @return the parameters already in the query of the URI followed by the parameters of the request
+     */
+    public List<QueryParam> getAllParams() {
+        final List<QueryParam> allParams = new ArrayList<>();
+        new URIBuilder(uri).getQueryParams().forEach(param -> allParams.add(new QueryParam(param.getName(), param.getValue())));
+        allParams.addAll(params);
+        return allParams;
+    }
+
+    /**
+     * A part of a multipart request, streamed from its source as the request is sent.
+     */
     @Data
-    @RequiredArgsConstructor
     public static class FilePart {
         private final String name;
+        /**
+         * The local file of the part, null when the part is read from memory or from a stream.
+         */
         private final File file;
         private final ContentType contentType;
+        @EqualsAndHashCode.Exclude
+        @ToString.Exclude
+        private final ContentBody body;
+        private final boolean repeatable;
+
+        public FilePart(String name, File file, ContentType contentType) {
+            this(name, file, contentType, new FileChannelBody(file, contentType), true);
+        }
+
+        private FilePart(String name, File file, ContentType contentType, ContentBody body, boolean repeatable) {
+            this.name = name;
+            this.file = file;
+            this.contentType = contentType;
+            this.body = body;
+            this.repeatable = repeatable;
+        }
+
+        public static FilePart ofBytes(String name, String filename, byte[] content, ContentType contentType) {
+            return new FilePart(name, null, contentType, new ByteArrayBody(content, contentType, filename), true);
+        }
+
+        /**
+         * @param content the buffer whose remaining bytes are sent, its position is left unchanged
+         */
+        public static FilePart ofBuffer(String name, String filename, ByteBuffer content, ContentType contentType) {
+            return new FilePart(name, null, contentType, new ByteBufferBody(content, contentType, filename), true);
+        }
+
+        /**
+         * @param content the stream of the part, read once when the request is sent, a request
+         *                with such a part cannot be sent again
+         * @param length  the number of bytes of the stream
+         */
+        public static FilePart ofStream(String name, String filename, InputStream content, long length, ContentType contentType) {
+            return new FilePart(name, null, contentType, new InputStreamBody(content, contentType, filename, length), false);
+        }
     }
 
     @Data
@@ -0,0 +1,20 @@
+package com.utorrent.api.web.client.restclient;
+
+/**
+ * The class a request is dispatched by when requests wait for the concurrency limit,
+ * from the most urgent to the least.
+ */
+public enum RequestPriority {
+    /**
+     * Calls a user waits on, such as a torrent action.
+     */
+    INTERACTIVE,
+    /**
+     * Calls made on behalf of the client, such as the polls of the torrent list.
+     */
+    NORMAL,
+    /**
+     * Sweeps over many torrents, such as the files or properties of a list of torrents.
+     */
+    BULK
+}
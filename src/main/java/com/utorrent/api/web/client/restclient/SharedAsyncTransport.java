@@ -0,0 +1,49 @@
+package com.utorrent.api.web.client.restclient;
+
+import com.utorrent.api.web.client.restclient.ConnectionParams.PoolParams;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.core5.io.CloseMode;
+
+import java.io.Closeable;
+import java.net.URISyntaxException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * One async HTTP client, with its I/O reactor and connection pool, shared by the
+ * {@link AsyncRESTClient}s of many uTorrent servers. The REST clients created out of it
+ * leave the transport open when they are closed, the transport is closed on its own.
+ */
+public class SharedAsyncTransport implements Closeable {
+    private final PoolingAsyncClientConnectionManager connectionManager;
+    private final CloseableHttpAsyncClient client;
+
+    /**
+     * @param poolParams the settings of the shared pool, the maximum number of connections
+     *                   per route bounds the connections to each server
+     */
+    public SharedAsyncTransport(final PoolParams poolParams) {
+        requireNonNull(poolParams, "Pool parameters cannot be null");
+        this.connectionManager = PooledHttpClients.createAsyncConnectionManager(poolParams);
+        this.client = PooledHttpClients.createAsyncClient(poolParams, connectionManager);
+        this.client.start();
+    }
+
+    /**
+     * @param params the parameters of the server, their pool parameters are ignored
+     * @return a REST client for the server sending its requests through the shared transport
+     */
+    public AsyncRESTClient createClient(final ConnectionParams params) throws URISyntaxException {
+        return new AsyncRESTClient(client, connectionManager, params, RESTClient.createServerURI(params), false);
+    }
+
+    public ConnectionPoolStats getConnectionPoolStats() {
+        return ConnectionPoolStats.of(connectionManager.getTotalStats());
+    }
+
+    @Override
+    public void close() {
+        client.close(CloseMode.GRACEFUL);
+    }
+}
@@ -0,0 +1,172 @@
+package com.utorrent.api.web.client.restclient;
+
+import com.utorrent.api.web.client.utils.ExecutionBackend;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.support.classic.AbstractClassicEntityProducer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streams request bodies written to an {@link OutputStream} to the non-blocking clients, so that a
+ * multipart upload is not staged in memory before it is sent.
+ * <p>
+ * The body is written by a thread of its own once the exchange asks for it, and the writer blocks
+ * while the client is behind, a few buffers being held at a time.
+ */
+final class StreamedBodies {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_BUFFERED_CHUNKS = 16;
+
+    /**
+     * Writes a body, on the thread the body is streamed from.
+     */
+    interface BodyWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private StreamedBodies() {
+    }
+
+    /**
+     * @return a producer of the content of the entity, sent with its length when the entity knows it
+     */
+    static AsyncEntityProducer producer(final HttpEntity entity) {
+        final AbstractClassicEntityProducer producer = new AbstractClassicEntityProducer(
+            BUFFER_SIZE, ContentType.parseLenient(entity.getContentType()), Writers.INSTANCE) {
+            @Override
+            protected void produceData(final ContentType contentType, final OutputStream out) throws IOException {
+                entity.writeTo(out);
+            }
+        };
+        return new AsyncEntityProducer() {
+            @Override
+            public boolean isRepeatable() {
+                return false;
+            }
+
+            @Override
+            public void failed(final Exception cause) {
+                producer.failed(cause);
+            }
+
+            @Override
+            public long getContentLength() {
+                return entity.getContentLength();
+            }
+
+            @Override
+            public String getContentType() {
+                return entity.getContentType();
+            }
+
+            @Override
+            public String getContentEncoding() {
+                return null;
+            }
+
+            @Override
+            public boolean isChunked() {
+                return entity.getContentLength() < 0;
+            }
+
+            @Override
+            public Set<String> getTrailerNames() {
+                return Set.of();
+            }
+
+            @Override
+            public int available() {
+                return producer.available();
+            }
+
+            @Override
+            public void produce(final DataStreamChannel channel) throws IOException {
+                producer.produce(channel);
+            }
+
+            @Override
+            public void releaseResources() {
+                producer.releaseResources();
+            }
+        };
+    }
+
+    /**
+     * @param contentLength the length of the body, negative when unknown
+     * @return a publisher of what the writer writes, which can be subscribed to once
+     */
+    static HttpRequest.BodyPublisher publisher(final long contentLength, final BodyWriter writer) {
+        final Flow.Publisher<ByteBuffer> publisher = new PipedPublisher(writer);
+        return contentLength < 0
+            ? HttpRequest.BodyPublishers.fromPublisher(publisher)
+            : HttpRequest.BodyPublishers.fromPublisher(publisher, contentLength);
+    }
+
+    /**
+     * Starts the writer when subscribed to, each write being published as a chunk of its own.
+     */
+    private static final class PipedPublisher implements Flow.Publisher<ByteBuffer> {
+        private final BodyWriter writer;
+        private final AtomicBoolean subscribed;
+
+        private PipedPublisher(final BodyWriter writer) {
+            this.writer = writer;
+            this.subscribed = new AtomicBoolean();
+        }
+
+        @Override
+        public void subscribe(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+            final SubmissionPublisher<ByteBuffer> chunks = new SubmissionPublisher<>(Runnable::run, MAX_BUFFERED_CHUNKS);
+            if (!subscribed.compareAndSet(false, true)) {
+                chunks.subscribe(subscriber);
+                chunks.closeExceptionally(new IllegalStateException("The body was already sent"));
+                return;
+            }
+            chunks.subscribe(subscriber);
+            Writers.INSTANCE.execute(() -> {
+                try (OutputStream out = new OutputStream() {
+                    @Override
+                    public void write(final int b) throws IOException {
+                        write(new byte[]{(byte) b}, 0, 1);
+                    }
+
+                    @Override
+                    public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+                        if (!chunks.hasSubscribers()) {
+                            throw new IOException("The exchange stopped reading the body");
+                        }
+                        if (length > 0) {
+                            chunks.submit(ByteBuffer.wrap(Arrays.copyOfRange(bytes, offset, offset + length)));
+                        }
+                    }
+                }) {
+                    writer.writeTo(out);
+                    chunks.close();
+                } catch (final IOException | RuntimeException e) {
+                    chunks.closeExceptionally(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * The threads writing the bodies, started by the first upload. A writer holds its thread until
+     * the body is sent, the pool is sized for the uploads a client makes at the same time.
+     */
+    private static final class Writers {
+        private static final ExecutorService INSTANCE = ExecutionBackend.newTaskExecutor("utorrent-body-writer", 16);
+    }
+}
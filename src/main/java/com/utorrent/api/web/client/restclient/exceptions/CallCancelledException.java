@@ -0,0 +1,10 @@
+package com.utorrent.api.web.client.restclient.exceptions;
+
+/**
+ * Thrown when a call is given up because its caller cancelled it.
+ */
+public class CallCancelledException extends RESTException {
+    public CallCancelledException(String message) {
+        super(message, null);
+    }
+}
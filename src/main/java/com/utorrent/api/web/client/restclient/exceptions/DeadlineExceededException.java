@@ -0,0 +1,10 @@
+package com.utorrent.api.web.client.restclient.exceptions;
+
+/**
+ * Thrown when a call is given up because its deadline passed.
+ */
+public class DeadlineExceededException extends CallCancelledException {
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.utorrent.api.web.client.restclient.exceptions;
+
+/**
+ * Thrown when a request is shed by the client before being sent, the server being
+ * too slow to take it in time.
+ */
+public class RequestRejectedException extends RESTException {
+    public RequestRejectedException(String message) {
+        super(message, null);
+    }
+}
@@ -0,0 +1,137 @@
+package com.utorrent.api.web.client.restclient.response;
+
+import com.utorrent.api.web.client.restclient.CompressionStats;
+import com.utorrent.api.web.client.utils.CountingInputStream;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Decodes gzip and deflate response bodies while counting the bytes received and decoded.
+ */
+public final class ContentDecoding {
+
+    public static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+    public static final String ACCEPTED_ENCODINGS = "gzip, deflate";
+
+    private ContentDecoding() {
+    }
+
+    /**
+     * Wraps an entity so that its content is decoded as it is read. The decoded content is
+     * created once, later calls of {@link HttpEntity#getContent()} return the same stream, and
+     * the sizes are recorded once when it is closed.
+     */
+    public static HttpEntity decode(HttpEntity entity, CompressionStats stats, String name) {
+        return new HttpEntityWrapper(entity) {
+            private InputStream content;
+
+            @Override
+            public InputStream getContent() throws IOException {
+                if (content == null) {
+                    content = decode(super.getContent(), super.getContentEncoding(), stats, name);
+                }
+                return content;
+            }
+
+            @Override
+            public boolean isRepeatable() {
+                return false;
+            }
+
+            @Override
+            public void writeTo(OutputStream outStream) throws IOException {
+                try (InputStream in = getContent()) {
+                    in.transferTo(outStream);
+                }
+            }
+
+            @Override
+            public String getContentEncoding() {
+                return null;
+            }
+
+            @Override
+            public long getContentLength() {
+                return isEncoded(super.getContentEncoding()) ? -1 : super.getContentLength();
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    if (content != null) {
+                        content.close();
+                    }
+                } finally {
+                    super.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps a body so that it is decoded as it is read. The sizes are recorded when the
+     * body is closed.
+     */
+    public static InputStream decode(InputStream content, String contentEncoding, CompressionStats stats, String name) throws IOException {
+        CountingInputStream received = new CountingInputStream(content);
+        CountingInputStream decoded = new CountingInputStream(decoder(received, contentEncoding));
+        return new FilterInputStream(decoded) {
+            private boolean recorded;
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    if (!recorded) {
+                        recorded = true;
+                        stats.record(name, received.getCount(), decoded.getCount());
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Decodes a body already received in full.
+     */
+    public static byte[] decode(byte[] body, String contentEncoding, CompressionStats stats, String name) throws IOException {
+        byte[] decoded = body;
+        if (isEncoded(contentEncoding)) {
+            try (InputStream in = decoder(new ByteArrayInputStream(body), contentEncoding)) {
+                decoded = in.readAllBytes();
+            }
+        }
+        stats.record(name, body.length, decoded.length);
+        return decoded;
+    }
+
+    private static boolean isEncoded(String contentEncoding) {
+        return contentEncoding != null && !contentEncoding.isBlank() && !"identity".equalsIgnoreCase(contentEncoding.trim());
+    }
+
+    private static InputStream decoder(InputStream in, String contentEncoding) throws IOException {
+        if (!isEncoded(contentEncoding)) {
+            return in;
+        }
+        String encoding = contentEncoding.trim().toLowerCase(Locale.ROOT);
+        switch (encoding) {
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(in);
+            case "deflate":
+                return new InflaterInputStream(in);
+            default:
+                throw new IOException("Unsupported content encoding " + contentEncoding);
+        }
+    }
+}
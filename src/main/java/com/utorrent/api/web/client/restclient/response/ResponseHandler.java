@@ -6,37 +6,93 @@ import com.utorrent.api.web.client.restclient.exceptions.ForbiddenException;
 import com.utorrent.api.web.client.restclient.exceptions.NotAcceptableException;
 import com.utorrent.api.web.client.restclient.exceptions.NotFoundException;
 import com.utorrent.api.web.client.restclient.exceptions.UnauthorizedException;
+import com.utorrent.api.web.client.utils.BufferPool;
 import com.utorrent.api.web.client.utils.IOUtils;
 import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpResponse;
 import org.apache.hc.core5.http.io.HttpClientResponseHandler;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 import static java.util.Objects.requireNonNull;
 
 public class ResponseHandler implements HttpClientResponseHandler<String> {
+
+    private final BufferPool bufferPool;
+
+    public ResponseHandler() {
+        this(BufferPool.shared());
+    }
+
+    public ResponseHandler(BufferPool bufferPool) {
+        this.bufferPool = requireNonNull(bufferPool, "Buffer pool cannot be null");
+    }
+
+    /**
+     * Reads the body into a pooled buffer sized from its Content-Length, decoded with the charset
+     * of its content type, UTF-8 when it has none.
+     */
     @Override
     public String handleResponse(final ClassicHttpResponse httpResponse) throws IOException {
         validateResponse(httpResponse);
-        return IOUtils.toString(httpResponse.getEntity().getContent());
+        final HttpEntity entity = httpResponse.getEntity();
+        if (entity == null) {
+            return "";
+        }
+        return IOUtils.toString(entity.getContent(), entity.getContentLength(), charsetOf(entity), bufferPool);
     }
 
-    void validateResponse(ClassicHttpResponse response) {
+    /**
+     * @return a handler reading no more of the body than needed to find the marker, answering the
+     * marker when the body contains it and an empty string otherwise
+     */
+    public HttpClientResponseHandler<String> scanningFor(final String marker) {
+        final byte[] markerBytes = marker.getBytes(StandardCharsets.UTF_8);
+        return httpResponse -> {
+            validateResponse(httpResponse);
+            final HttpEntity entity = httpResponse.getEntity();
+            return entity != null && IOUtils.contains(entity.getContent(), markerBytes, bufferPool) ? marker : "";
+        };
+    }
+
+    private static Charset charsetOf(final HttpEntity entity) {
+        final ContentType contentType = entity.getContentType() == null ? null : ContentType.parseLenient(entity.getContentType());
+        final Charset charset = contentType == null ? null : contentType.getCharset();
+        return charset == null ? StandardCharsets.UTF_8 : charset;
+    }
+
+    /**
+     * Throws the {@link ClientRequestException} matching the status of an unsuccessful response,
+     * whether the response was received by a classic or an async client.
+     */
+    public void validateResponse(HttpResponse response) {
         requireNonNull(response, "Response from server is null");
-        if (response.getCode() > 299) {
-            switch (response.getCode()) {
+        validateStatus(response.getCode(), response.getReasonPhrase());
+    }
+
+    /**
+     * Throws the {@link ClientRequestException} matching an unsuccessful status, whatever the
+     * HTTP client the response was received by.
+     */
+    public static void validateStatus(int code, String reasonPhrase) {
+        if (code > 299) {
+            switch (code) {
                 case 400:
-                    throw new BadRequestException(response.getCode(), response.getReasonPhrase());
+                    throw new BadRequestException(code, reasonPhrase);
                 case 401:
-                    throw new UnauthorizedException(response.getCode(), response.getReasonPhrase());
+                    throw new UnauthorizedException(code, reasonPhrase);
                 case 403:
-                    throw new ForbiddenException(response.getCode(), response.getReasonPhrase());
+                    throw new ForbiddenException(code, reasonPhrase);
                 case 404:
-                    throw new NotFoundException(response.getCode(), response.getReasonPhrase());
+                    throw new NotFoundException(code, reasonPhrase);
                 case 406:
-                    throw new NotAcceptableException(response.getCode(), response.getReasonPhrase());
+                    throw new NotAcceptableException(code, reasonPhrase);
                 default:
-                    throw new ClientRequestException(response.getCode(), response.getReasonPhrase());
+                    throw new ClientRequestException(code, reasonPhrase);
             }
         }
     }
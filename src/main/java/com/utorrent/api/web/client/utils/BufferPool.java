@@ -0,0 +1,72 @@
+package com.utorrent.api.web.client.utils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A bounded pool of byte arrays the response bodies are read into, so that reading a body does
+ * not allocate a new array each time.
+ * <p>
+ * A buffer is taken out of the pool for one read and given back once the read is done. A buffer
+ * too small for the read is replaced by a larger one, which is the one given back, buffers larger
+ * than the largest pooled size are left to the garbage collector.
+ */
+public final class BufferPool {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+    public static final int DEFAULT_MAX_BUFFER_SIZE = 1024 * 1024;
+    public static final int DEFAULT_MAX_BUFFERS = 32;
+
+    private static final BufferPool SHARED = new BufferPool(DEFAULT_MAX_BUFFERS, DEFAULT_BUFFER_SIZE, DEFAULT_MAX_BUFFER_SIZE);
+
+    private final BlockingQueue<byte[]> buffers;
+    private final int bufferSize;
+    private final int maxBufferSize;
+
+    /**
+     * @param maxBuffers    the number of buffers kept in the pool
+     * @param bufferSize    the size of a new buffer when no size is asked
+     * @param maxBufferSize the size of the largest buffer kept in the pool
+     */
+    public BufferPool(int maxBuffers, int bufferSize, int maxBufferSize) {
+        if (maxBuffers < 1 || bufferSize < 1 || maxBufferSize < bufferSize) {
+            throw new IllegalArgumentException("The pool must hold at least one buffer of a positive size");
+        }
+        this.buffers = new ArrayBlockingQueue<>(maxBuffers);
+        this.bufferSize = bufferSize;
+        this.maxBufferSize = maxBufferSize;
+    }
+
+    /**
+     * @return the pool shared by the clients of the process
+     */
+    public static BufferPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * @param size the size expected to be read, negative when unknown
+     * @return a buffer of at least the size, or of the default size when the size is unknown
+     */
+    public byte[] acquire(long size) {
+        final int length = size < 0 ? bufferSize : (int) Math.min(Math.max(size, 1), Integer.MAX_VALUE - 8);
+        final byte[] buffer = buffers.poll();
+        if (buffer == null || buffer.length < length) {
+            return new byte[Math.max(length, buffer == null ? 0 : buffer.length)];
+        }
+        return buffer;
+    }
+
+    /**
+     * Gives a buffer back to the pool, a buffer too large or finding the pool full is dropped.
+     */
+    public void release(byte[] buffer) {
+        if (buffer != null && buffer.length <= maxBufferSize) {
+            buffers.offer(buffer);
+        }
+    }
+
+    int size() {
+        return buffers.size();
+    }
+}
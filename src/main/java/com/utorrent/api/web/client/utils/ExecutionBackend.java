@@ -0,0 +1,57 @@
+package com.utorrent.api.web.client.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the threads the clients block on, outside of the HTTP client threads.
+ * This version runs them on pools of daemon platform threads, the multi-release JAR
+ * replaces it on Java 21 with a version running them on virtual threads.
+ */
+public final class ExecutionBackend {
+
+    /**
+     * The system property which, when true, keeps the Java 21 version on platform threads.
+     * This version always runs on platform threads.
+     */
+    public static final String PLATFORM_THREADS_PROPERTY = "utorrent.client.platformThreads";
+
+    private ExecutionBackend() {
+    }
+
+    /**
+     * @return whether the threads created are virtual threads
+     */
+    public static boolean isVirtual() {
+        return false;
+    }
+
+    /**
+     * @param name       the prefix of the names of the threads
+     * @param maxThreads the maximum number of tasks run at the same time
+     * @return an executor running each task on a thread of its own, up to the maximum
+     */
+    public static ExecutorService newTaskExecutor(String name, int maxThreads) {
+        return Executors.newFixedThreadPool(maxThreads, threadFactory(name));
+    }
+
+    /**
+     * @param name the name of the thread
+     * @return a scheduler running its tasks on a single thread
+     */
+    public static ScheduledExecutorService newScheduler(String name) {
+        return Executors.newSingleThreadScheduledExecutor(threadFactory(name));
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
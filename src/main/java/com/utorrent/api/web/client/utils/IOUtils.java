@@ -2,6 +2,8 @@ package com.utorrent.api.web.client.utils;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Scanner;
 
 
@@ -12,6 +14,79 @@ public class IOUtils {
         }
     }
 
+    /**
+     * Reads the stream into a buffer of the pool, sized from the expected length when known,
+     * and decodes it once read.
+     *
+     * @param expectedLength the length of the stream, negative when unknown
+     */
+    public static String toString(InputStream stream, long expectedLength, Charset charset, BufferPool pool) throws IOException {
+        byte[] buffer = pool.acquire(expectedLength < 0 ? -1 : expectedLength + 1);
+        try (InputStream in = stream) {
+            int length = 0;
+            int read;
+            while ((read = in.read(buffer, length, buffer.length - length)) != -1) {
+                length += read;
+                if (length == buffer.length) {
+                    final byte[] grown = Arrays.copyOf(buffer, buffer.length * 2);
+                    pool.release(buffer);
+                    buffer = grown;
+                }
+            }
+            return new String(buffer, 0, length, charset);
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    /**
+     * Scans the stream for the marker without keeping what was read, then reads the rest of the
+     * stream to its end so that the connection it comes from can be reused.
+     *
+     * @return whether the stream contains the marker
+     */
+    public static boolean contains(InputStream stream, byte[] marker, BufferPool pool) throws IOException {
+        final int[] fallback = fallbackTable(marker);
+        final byte[] buffer = pool.acquire(-1);
+        try (InputStream in = stream) {
+            int matched = 0;
+            int read;
+            while (matched < marker.length && (read = in.read(buffer)) != -1) {
+                for (int i = 0; i < read && matched < marker.length; i++) {
+                    while (matched > 0 && buffer[i] != marker[matched]) {
+                        matched = fallback[matched - 1];
+                    }
+                    if (buffer[i] == marker[matched]) {
+                        matched++;
+                    }
+                }
+            }
+            while (in.read(buffer) != -1) {
+                // drained
+            }
+            return matched == marker.length;
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    /**
+     * @return for each prefix of the marker, the length of its longest proper prefix which is also its suffix
+     */
+    private static int[] fallbackTable(byte[] marker) {
+        final int[] fallback = new int[marker.length];
+        for (int i = 1, length = 0; i < marker.length; i++) {
+            while (length > 0 && marker[i] != marker[length]) {
+                length = fallback[length - 1];
+            }
+            if (marker[i] == marker[length]) {
+                length++;
+            }
+            fallback[i] = length;
+        }
+        return fallback;
+    }
+
     public static String readFileFully(InputStream stream) throws IOException {
         StringBuilder stringBuilder = new StringBuilder();
 
@@ -0,0 +1,52 @@
+package com.utorrent.api.web.client.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the threads the clients block on, outside of the HTTP client threads.
+ * This version, loaded from the multi-release JAR on Java 21 and later, runs them on
+ * virtual threads, unless the {@value #PLATFORM_THREADS_PROPERTY} system property is true.
+ */
+public final class ExecutionBackend {
+
+    public static final String PLATFORM_THREADS_PROPERTY = "utorrent.client.platformThreads";
+
+    private static final boolean VIRTUAL = !Boolean.getBoolean(PLATFORM_THREADS_PROPERTY);
+
+    private ExecutionBackend() {
+    }
+
+    public static boolean isVirtual() {
+        return VIRTUAL;
+    }
+
+    /**
+     * On virtual threads the tasks are not pooled, the maximum is enforced by the callers.
+     */
+    public static ExecutorService newTaskExecutor(String name, int maxThreads) {
+        if (VIRTUAL) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+        }
+        return Executors.newFixedThreadPool(maxThreads, platformThreadFactory(name));
+    }
+
+    public static ScheduledExecutorService newScheduler(String name) {
+        if (VIRTUAL) {
+            return Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+        }
+        return Executors.newSingleThreadScheduledExecutor(platformThreadFactory(name));
+    }
+
+    private static ThreadFactory platformThreadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,109 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.core.entities.RequestResult;
+import lombok.Value;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ActionBatcherTest {
+
+    private static final URI SERVER_URI = URI.create("http://host.com:8080/gui/");
+    private static final long WINDOW = TimeUnit.HOURS.toMillis(1);
+
+    private final List<SentRequest> sentRequests = Collections.synchronizedList(new ArrayList<>());
+    private ActionBatcher batcher;
+
+    @AfterEach
+    void afterEach() {
+        batcher.close();
+    }
+
+    @Test
+    void testActionsOfAWindowAreSentTogetherAndCoalesced() throws Exception {
+        batcher = new ActionBatcher(this::send, WINDOW, 2048, SERVER_URI);
+
+        CompletableFuture<RequestResult> startA = batcher.submit(Action.START, List.of("a"));
+        CompletableFuture<RequestResult> startB = batcher.submit(Action.START, List.of("b"));
+        CompletableFuture<RequestResult> startBAgain = batcher.submit(Action.START, List.of("b"));
+        CompletableFuture<RequestResult> stopA = batcher.submit(Action.STOP, List.of("a"));
+        CompletableFuture<RequestResult> recheck = batcher.submit(Action.RECHECK, List.of("c", "d"));
+        batcher.flush();
+
+        assertThat(stopA.get(5, TimeUnit.SECONDS)).isEqualTo(RequestResult.SUCCESS);
+        assertThat(startA.get(5, TimeUnit.SECONDS)).isEqualTo(RequestResult.SUCCESS);
+        assertThat(startB.get(5, TimeUnit.SECONDS)).isEqualTo(RequestResult.SUCCESS);
+        assertThat(startBAgain.get(5, TimeUnit.SECONDS)).isEqualTo(RequestResult.SUCCESS);
+        assertThat(startBAgain).isNotSameAs(startB);
+        assertThat(recheck.get(5, TimeUnit.SECONDS)).isEqualTo(RequestResult.SUCCESS);
+        assertThat(sentRequests).containsExactlyInAnyOrder(
+            new SentRequest(Action.START, List.of("b")),
+            new SentRequest(Action.STOP, List.of("a")),
+            new SentRequest(Action.RECHECK, List.of("c", "d"))
+        );
+    }
+
+    @Test
+    void testConflictingActionsAreSentInOrder() throws Exception {
+        CompletableFuture<RequestResult> firstResponse = new CompletableFuture<>();
+        batcher = new ActionBatcher((action, hashes) -> {
+            sentRequests.add(new SentRequest(action, hashes));
+            return sentRequests.size() == 1 ? firstResponse : CompletableFuture.completedFuture(RequestResult.FAIL);
+        }, WINDOW, 2048, SERVER_URI);
+
+        CompletableFuture<RequestResult> first = batcher.submit(Action.QUEUE_UP, List.of("a"));
+        CompletableFuture<RequestResult> second = batcher.submit(Action.QUEUE_UP, List.of("a"));
+        batcher.flush();
+
+        Thread.sleep(100);
+        assertThat(sentRequests).containsExactly(new SentRequest(Action.QUEUE_UP, List.of("a")));
+        assertThat(second).isNotDone();
+
+        firstResponse.complete(RequestResult.SUCCESS);
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(RequestResult.SUCCESS);
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(RequestResult.FAIL);
+        assertThat(sentRequests).hasSize(2);
+    }
+
+    @Test
+    void testBatchesAreSplitByUrlLength() throws Exception {
+        int maxUrlLength = 400;
+        batcher = new ActionBatcher(this::send, WINDOW, maxUrlLength, SERVER_URI);
+        List<String> hashes = IntStream.range(0, 30)
+            .mapToObj(index -> String.format("%040d", index))
+            .collect(Collectors.toList());
+
+        CompletableFuture<RequestResult> result = batcher.submit(Action.FORCE_START, hashes);
+        batcher.flush();
+
+        assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(RequestResult.SUCCESS);
+        assertThat(sentRequests).hasSizeGreaterThan(1);
+        assertThat(sentRequests).allSatisfy(request -> {
+            int urlLength = SERVER_URI.toString().length() + "?action=forcestart".length() + HashChunker.RESERVED_URL_LENGTH
+                + request.hashes.stream().mapToInt(hash -> "&hash=".length() + hash.length()).sum();
+            assertThat(urlLength).isLessThanOrEqualTo(maxUrlLength);
+        });
+        assertThat(sentRequests.stream().flatMap(request -> request.hashes.stream())).containsExactlyElementsOf(hashes);
+    }
+
+    private CompletableFuture<RequestResult> send(Action action, List<String> hashes) {
+        sentRequests.add(new SentRequest(action, hashes));
+        return CompletableFuture.completedFuture(RequestResult.SUCCESS);
+    }
+
+    @Value
+    private static class SentRequest {
+        Action action;
+        List<String> hashes;
+    }
+}
@@ -0,0 +1,94 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.restclient.Request;
+import com.utorrent.api.web.client.restclient.Request.QueryParam;
+import org.apache.hc.core5.net.URIBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compares the URL of an action built by a {@link Request} with its parameters and a
+ * {@link URIBuilder}, as sent before the templates, to the URL appended to an {@link ActionRequestTemplate}.
+ * The GC profiler reports the bytes allocated per request as {@code gc.alloc.rate.norm}.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=com.utorrent.api.web.client.core.ActionRequestTemplateBenchmark
+ * -Dexec.classpathScope=test}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActionRequestTemplateBenchmark {
+
+    private static final URI SERVER_URI = URI.create("http://192.168.1.10:8080/gui/");
+    private static final String TOKEN = "Xk3dHQ0Ah1LS9S8qrj2iYbTnCGtdtgUu2nm5ljVI4hTXeKQ1pjuQDx5HYmEAAAAA";
+    private static final String COOKIE = "GUID=2Xkn1CWlVAHK4GYs1rgd";
+
+    @Param({"1", "20"})
+    private int hashCount;
+
+    private List<String> hashes;
+    private ActionRequestTemplate template;
+
+    @Setup
+    public void setUp() {
+        hashes = IntStream.range(0, hashCount).mapToObj(index -> String.format("%040X", index)).collect(Collectors.toList());
+        template = new ActionRequestTemplate(SERVER_URI, Action.GET_FILES);
+    }
+
+    @Benchmark
+    public URI requestWithURIBuilder() throws URISyntaxException {
+        final Request.RequestBuilder requestBuilder = Request.builder()
+            .uri(SERVER_URI)
+            .name(Action.GET_FILES.getName())
+            .param(new QueryParam(UTorrentWebAPIClientImpl.ACTION_QUERY_PARAM_NAME, Action.GET_FILES.getName()));
+        hashes.forEach(hash -> requestBuilder.param(new QueryParam(UTorrentWebAPIClientImpl.HASH_QUERY_PARAM_NAME, hash)));
+        final Request request = requestBuilder.build().toBuilder()
+            .param(new QueryParam(UTorrentWebAPIClientImpl.TOKEN_PARAM_NAME, TOKEN))
+            .header("Cookie", COOKIE)
+            .build();
+
+        final URIBuilder uriBuilder = new URIBuilder(request.getUri());
+        request.getParams().forEach(param -> uriBuilder.addParameter(param.getName(), param.getValue()));
+        return uriBuilder.build();
+    }
+
+    @Benchmark
+    public URI requestWithTemplate() {
+        final Request request = Request.builder()
+            .uri(template.toURI(TOKEN, hashes, List.of()))
+            .name(Action.GET_FILES.getName())
+            .header("Cookie", COOKIE)
+            .build();
+        return request.getUri();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(ActionRequestTemplateBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+    }
+}
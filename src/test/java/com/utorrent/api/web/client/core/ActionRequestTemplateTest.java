@@ -0,0 +1,47 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.restclient.Request.QueryParam;
+import org.apache.hc.core5.http.NameValuePair;
+import org.apache.hc.core5.net.URIBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ActionRequestTemplateTest {
+
+    private static final URI SERVER_URI = URI.create("http://host.com:8080/gui/");
+
+    @Test
+    void testHashesAndTokenAreAppendedAsTheyAre() {
+        ActionRequestTemplate template = ActionRequestTemplate.forActions(SERVER_URI).get(Action.START);
+
+        URI uri = template.toURI("tok-EN_1", List.of("0123456789ABCDEF0123456789ABCDEF01234567", "abc"), List.of());
+
+        assertThat(uri).hasToString("http://host.com:8080/gui/?action=start"
+            + "&hash=0123456789ABCDEF0123456789ABCDEF01234567&hash=abc&token=tok-EN_1");
+    }
+
+    @Test
+    void testParamsAreEncodedAsTheURIBuilderDecodesThem() throws Exception {
+        ActionRequestTemplate template = ActionRequestTemplate.forActions(SERVER_URI).get(Action.ADD_URL);
+        String magnetLink = "magnet:?xt=urn:btih:0123&dn=Ubuntu 24.04 Desktop – amd64&tr=udp://tracker.example.com:80";
+
+        URI uri = template.toURI("a+b/c=", List.of(), List.of(new QueryParam("s", magnetLink)));
+
+        assertThat(new URIBuilder(uri).getQueryParams().stream().map(ActionRequestTemplateTest::toQueryParam).collect(Collectors.toList()))
+            .containsExactly(
+                new QueryParam("action", "add-url"),
+                new QueryParam("s", magnetLink),
+                new QueryParam("token", "a+b/c=")
+            );
+        assertThat(uri.getRawQuery()).doesNotContain(" ", "–");
+    }
+
+    private static QueryParam toQueryParam(NameValuePair pair) {
+        return new QueryParam(pair.getName(), pair.getValue());
+    }
+}
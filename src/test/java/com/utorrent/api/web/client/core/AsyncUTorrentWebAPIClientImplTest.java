@@ -0,0 +1,146 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.core.entities.RequestResult;
+import com.utorrent.api.web.client.core.entities.Torrent;
+import com.utorrent.api.web.client.core.entities.TorrentListSnapshot;
+import com.utorrent.api.web.client.restclient.AsyncRESTClient;
+import com.utorrent.api.web.client.restclient.AuthorizationData;
+import com.utorrent.api.web.client.restclient.Request;
+import com.utorrent.api.web.client.restclient.Request.QueryParam;
+import com.utorrent.api.web.client.restclient.exceptions.BadRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+import static com.utorrent.api.web.client.core.UTorrentWebAPIClientImplTest.BUILD_STRING;
+import static com.utorrent.api.web.client.core.UTorrentWebAPIClientImplTest.HASH_1;
+import static com.utorrent.api.web.client.core.UTorrentWebAPIClientImplTest.TOKEN_VALUE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith({
+    MockitoExtension.class
+})
+class AsyncUTorrentWebAPIClientImplTest {
+
+    @Mock
+    private AsyncRESTClient restClient;
+    @Mock
+    private MessageParser parser;
+
+    private AsyncUTorrentWebAPIClientImpl client;
+
+    @BeforeEach
+    void beforeEach() {
+        when(restClient.getServerURI()).thenReturn(URI.create("http://host.com:8080/gui/"));
+        client = new AsyncUTorrentWebAPIClientImpl(parser, restClient, new TorrentsCache());
+    }
+
+    @Test
+    void testConcurrentRequestsShareOneAuthentication() throws Exception {
+        CompletableFuture<AuthorizationData> authentication = new CompletableFuture<>();
+        when(restClient.authenticate()).thenReturn(authentication);
+        ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
+        when(restClient.get(requestCaptor.capture())).thenReturn(CompletableFuture.completedFuture(BUILD_STRING));
+
+        CompletableFuture<RequestResult> start = client.startTorrent(HASH_1);
+        CompletableFuture<RequestResult> stop = client.stopTorrent(HASH_1);
+        CompletableFuture<RequestResult> pause = client.pauseTorrent(HASH_1);
+        assertThat(start).isNotDone();
+
+        authentication.complete(new AuthorizationData(TOKEN_VALUE, "GUID=guid", AuthorizationData.Status.OK));
+
+        assertThat(start.get()).isEqualTo(RequestResult.SUCCESS);
+        assertThat(stop.get()).isEqualTo(RequestResult.SUCCESS);
+        assertThat(pause.get()).isEqualTo(RequestResult.SUCCESS);
+        verify(restClient, times(1)).authenticate();
+        assertThat(requestCaptor.getAllValues()).allSatisfy(request -> {
+            assertThat(request.getAllParams()).contains(new QueryParam(UTorrentWebAPIClientImpl.TOKEN_PARAM_NAME, TOKEN_VALUE));
+            assertThat(request.getHeaders()).containsEntry("Cookie", "GUID=guid");
+        });
+    }
+
+    @Test
+    void testExpiredTokenIsRenewedOnceBeforeFailing() {
+        when(restClient.authenticate())
+            .thenReturn(CompletableFuture.completedFuture(new AuthorizationData("old", "GUID=old", AuthorizationData.Status.OK)))
+            .thenReturn(CompletableFuture.completedFuture(new AuthorizationData("new", "GUID=new", AuthorizationData.Status.OK)));
+        ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
+        when(restClient.get(requestCaptor.capture()))
+            .thenReturn(CompletableFuture.failedFuture(new BadRequestException(400, "Bad Request")))
+            .thenReturn(CompletableFuture.completedFuture(BUILD_STRING));
+
+        assertThat(client.recheckTorrent(HASH_1).join()).isEqualTo(RequestResult.SUCCESS);
+        assertThat(requestCaptor.getAllValues().get(1).getAllParams())
+            .contains(new QueryParam(UTorrentWebAPIClientImpl.TOKEN_PARAM_NAME, "new"))
+            .doesNotContain(new QueryParam(UTorrentWebAPIClientImpl.TOKEN_PARAM_NAME, "old"));
+
+        when(restClient.get(any(Request.class))).thenReturn(CompletableFuture.failedFuture(new BadRequestException(400, "Bad Request")));
+        assertThatThrownBy(() -> client.recheckTorrent(HASH_1).get())
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(UTorrentAuthException.class)
+            .hasRootCauseInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void testGetAllTorrentsUpdatesTheCache() {
+        when(restClient.authenticate())
+            .thenReturn(CompletableFuture.completedFuture(new AuthorizationData(TOKEN_VALUE, "GUID=guid", AuthorizationData.Status.OK)));
+        when(restClient.get(any(Request.class))).thenReturn(CompletableFuture.completedFuture(BUILD_STRING));
+        TorrentListSnapshot snapshot = new TorrentListSnapshot();
+        snapshot.addTorrentToAdd(Torrent.builder().hash(HASH_1).build());
+        snapshot.setCacheID("cache");
+        when(parser.parseAsTorrentListSnapshot(BUILD_STRING)).thenReturn(snapshot);
+
+        assertThat(client.getAllTorrents().join()).extracting(Torrent::getHash).containsExactly(HASH_1);
+        assertThat(client.getTorrentsCache().getCachedID()).isEqualTo("cache");
+        assertThat(client.getTorrents(TorrentQuery.builder().build()).join()).hasSize(1);
+    }
+
+    @Test
+    void testCacheUpdatesAreSentInTurnAndParsedOffTheIoThread() {
+        when(restClient.authenticate())
+            .thenReturn(CompletableFuture.completedFuture(new AuthorizationData(TOKEN_VALUE, "GUID=guid", AuthorizationData.Status.OK)));
+        CompletableFuture<String> firstResponse = new CompletableFuture<>();
+        ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
+        when(restClient.get(requestCaptor.capture()))
+            .thenReturn(firstResponse)
+            .thenReturn(CompletableFuture.completedFuture(BUILD_STRING));
+        List<String> parsingThreads = new CopyOnWriteArrayList<>();
+        when(parser.parseAsTorrentListSnapshot(BUILD_STRING)).thenAnswer(invocation -> {
+            parsingThreads.add(Thread.currentThread().getName());
+            TorrentListSnapshot snapshot = new TorrentListSnapshot();
+            snapshot.setCacheID("cache-" + parsingThreads.size());
+            return snapshot;
+        });
+
+        CompletableFuture<Set<Torrent>> first = client.getAllTorrents();
+        CompletableFuture<Set<Torrent>> second = client.getAllTorrents();
+        assertThat(requestCaptor.getAllValues()).hasSize(1);
+        assertThat(requestCaptor.getValue().getAllParams()).noneMatch(param -> param.getName().equals(UTorrentWebAPIClientImpl.CACHE_ID_QUERY_PARAM));
+
+        firstResponse.complete(BUILD_STRING);
+        first.join();
+        second.join();
+
+        assertThat(requestCaptor.getAllValues()).hasSize(2);
+        assertThat(requestCaptor.getAllValues().get(1).getAllParams())
+            .contains(new QueryParam(UTorrentWebAPIClientImpl.CACHE_ID_QUERY_PARAM, "cache-1"));
+        assertThat(parsingThreads).hasSize(2).allMatch(name -> name.startsWith("utorrent-cache-update"));
+        assertThat(client.getTorrentsCache().getCachedID()).isEqualTo("cache-2");
+    }
+}
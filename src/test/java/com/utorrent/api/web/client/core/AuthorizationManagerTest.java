@@ -0,0 +1,115 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.restclient.AuthorizationData;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AuthorizationManagerTest {
+
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final AtomicInteger authentications = new AtomicInteger();
+
+    @Test
+    void testConcurrentThreadsShareOneAuthentication() throws Exception {
+        CountDownLatch authenticating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AuthorizationManager manager = new AuthorizationManager(() -> {
+            authenticating.countDown();
+            await(release);
+            return authenticate();
+        }, Duration.ZERO);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<AuthorizationManager.Session>> sessions = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                sessions.add(executor.submit(manager::acquire));
+            }
+            assertThat(authenticating.await(5, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<AuthorizationManager.Session> session : sessions) {
+                assertThat(session.get(5, TimeUnit.SECONDS).getVersion()).isEqualTo(1);
+            }
+            assertThat(authentications).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testOnlyTheRejectedSessionIsDropped() {
+        AuthorizationManager manager = new AuthorizationManager(this::authenticate, Duration.ZERO);
+
+        AuthorizationManager.Session first = manager.acquire();
+        manager.invalidate(first);
+        AuthorizationManager.Session second = manager.acquire();
+        manager.invalidate(first);
+
+        assertThat(second.getVersion()).isEqualTo(2);
+        assertThat(second.getAuthorizationData().getToken()).isEqualTo("token-2");
+        assertThat(manager.acquire()).isSameAs(second);
+        assertThat(authentications).hasValue(2);
+    }
+
+    @Test
+    void testSessionsAreRenewedBeforeTheyExpireAndFailedRenewalsBackOff() {
+        Clock clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(START);
+        AuthorizationManager manager = new AuthorizationManager(() -> {
+            if (authentications.get() == 1) {
+                authentications.incrementAndGet();
+                throw new IllegalStateException("Connection refused");
+            }
+            return authenticate();
+        }, Duration.ofMinutes(20), clock);
+
+        AuthorizationManager.Session first = manager.acquire();
+        when(clock.instant()).thenReturn(START.plus(Duration.ofMinutes(10)));
+        assertThat(manager.acquire()).isSameAs(first);
+
+        when(clock.instant()).thenReturn(START.plus(Duration.ofMinutes(20)));
+        assertThat(manager.acquire()).isSameAs(first);
+        assertThat(authentications).hasValue(2);
+
+        when(clock.instant()).thenReturn(START.plus(Duration.ofMinutes(21)));
+        assertThat(manager.acquire()).isSameAs(first);
+        assertThat(manager.acquire()).isSameAs(first);
+        assertThat(authentications).hasValue(2);
+
+        when(clock.instant()).thenReturn(START.plus(Duration.ofMinutes(22)));
+        AuthorizationManager.Session renewed = manager.acquire();
+        assertThat(renewed).isNotSameAs(first);
+        assertThat(renewed.getAuthorizationData().getToken()).isEqualTo("token-3");
+    }
+
+    private AuthorizationData authenticate() {
+        int authentication = authentications.incrementAndGet();
+        return new AuthorizationData("token-" + authentication, "GUID=" + authentication, AuthorizationData.Status.OK);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.core.entities.Torrent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LabelThroughputRollupTest {
+
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    private Clock clock;
+    private TorrentsCache cache;
+    private LabelThroughputRollup rollup;
+
+    @BeforeEach
+    void beforeEach() {
+        clock = mock(Clock.class);
+        at(START);
+        cache = new TorrentsCache();
+        rollup = new LabelThroughputRollup(60, 48, clock);
+        cache.addListener(rollup);
+    }
+
+    @Test
+    void testIncreasesAreSummedPerLabelAndMinute() {
+        cache.addTorrent(torrent("a", "team-a", 1_000, 50));
+        cache.addTorrent(torrent("b", null, 0, 0));
+        at(START.plusSeconds(30));
+        cache.addTorrent(torrent("a", "team-a", 1_500, 80));
+        cache.addTorrent(torrent("b", null, 10, 0));
+        at(START.plusSeconds(90));
+        cache.addTorrent(torrent("a", "team-b", 1_700, 80));
+        cache.addTorrent(torrent("a", "team-b", 100, 90));
+        at(START.plusSeconds(400));
+        cache.addTorrent(torrent("a", "team-b", 200, 90));
+
+        assertThat(rollup.getLabels()).containsExactlyInAnyOrder("team-a", "team-b", "");
+        LabelThroughput firstMinute = rollup.getThroughput("team-a", START, START.plusSeconds(60));
+        assertThat(firstMinute.getDownloaded()).isEqualTo(500);
+        assertThat(firstMinute.getUploaded()).isEqualTo(30);
+        assertThat(rollup.getThroughput("team-b", START, START.plusSeconds(120)).getDownloaded()).isEqualTo(200);
+        assertThat(rollup.getThroughput("team-b", START.plusSeconds(120), START.plusSeconds(600)).getDownloaded()).isEqualTo(100);
+        assertThat(rollup.getThroughput("team-b", START.plusSeconds(120), START.plusSeconds(360)).getDownloaded()).isZero();
+        assertThat(rollup.getThroughputByLabel(START, START.plusSeconds(3600)).get("").getDownloaded()).isEqualTo(10);
+        assertThat(rollup.getThroughput("unknown", START, START.plusSeconds(60)).getDownloaded()).isZero();
+    }
+
+    @Test
+    void testOldWindowsAreAnsweredFromHourlyBuckets() {
+        cache.addTorrent(torrent("a", "label", 0, 0));
+        at(START.plus(Duration.ofMinutes(10)));
+        cache.addTorrent(torrent("a", "label", 100, 0));
+        at(START.plus(Duration.ofMinutes(70)));
+        cache.addTorrent(torrent("a", "label", 300, 0));
+        at(START.plus(Duration.ofMinutes(190)));
+        cache.addTorrent(torrent("a", "label", 600, 0));
+
+        LabelThroughput old = rollup.getThroughput("label", START.plus(Duration.ofMinutes(5)), START.plus(Duration.ofMinutes(15)));
+        assertThat(old.getDownloaded()).isEqualTo(100);
+        assertThat(old.getFrom()).isEqualTo(START);
+        assertThat(old.getTo()).isEqualTo(START.plus(Duration.ofHours(1)));
+
+        LabelThroughput recent = rollup.getThroughput("label", START.plus(Duration.ofMinutes(180)), START.plus(Duration.ofMinutes(200)));
+        assertThat(recent.getDownloaded()).isEqualTo(300);
+        assertThat(recent.getFrom()).isEqualTo(START.plus(Duration.ofMinutes(180)));
+
+        at(START.plus(Duration.ofHours(100)));
+        cache.addTorrent(torrent("a", "label", 700, 0));
+        LabelThroughput expired = rollup.getThroughput("label", START, START.plus(Duration.ofHours(101)));
+        assertThat(expired.getDownloaded()).isEqualTo(100);
+        assertThat(expired.getFrom()).isEqualTo(START.plus(Duration.ofHours(54)));
+    }
+
+    private void at(Instant instant) {
+        when(clock.millis()).thenReturn(instant.toEpochMilli());
+    }
+
+    private static Torrent torrent(String hash, String label, long downloaded, long uploaded) {
+        return Torrent.builder().hash(hash).label(label).downloaded(downloaded).uploaded(uploaded).build();
+    }
+}
@@ -138,6 +138,13 @@ class MessageParserTest {
         });
     }
 
+    @Test
+    void whenTrackerListIsSplitThenItBehavesLikeStringSplit() {
+        for (String trackers : List.of("", "a", "a\r\nb", "a\r\n\r\nb\r\n", "\r\n", "a\nb\r\n\r\n")) {
+            assertThat(MessageParser.splitLines(trackers)).containsExactly(trackers.split("\\r\\n"));
+        }
+    }
+
     private String getTestMessage(String fileName) throws Exception {
         InputStream resource = getClass().getClassLoader().getResourceAsStream(fileName);
         requireNonNull(resource);
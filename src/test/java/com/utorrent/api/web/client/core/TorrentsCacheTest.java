@@ -0,0 +1,284 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.core.TorrentQuery.Operator;
+import com.utorrent.api.web.client.core.entities.Torrent;
+import com.utorrent.api.web.client.core.entities.Torrent.TorrentStatus;
+import com.utorrent.api.web.client.core.entities.TorrentListSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static com.utorrent.api.web.client.core.TorrentSnapshotField.TORRENT_DATE_ADDED;
+import static com.utorrent.api.web.client.core.TorrentSnapshotField.TORRENT_NAME;
+import static com.utorrent.api.web.client.core.TorrentSnapshotField.TORRENT_RATIO;
+import static com.utorrent.api.web.client.core.TorrentSnapshotField.TORRENT_SAVE_PATH;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TorrentsCacheTest {
+
+    private TorrentsCache cache;
+
+    @BeforeEach
+    void beforeEach() {
+        cache = new TorrentsCache();
+    }
+
+    @Test
+    void testQueryUsesLabelStatusAndFieldConditions() {
+        TorrentListSnapshot snapshot = new TorrentListSnapshot();
+        snapshot.addTorrentToAdd(torrent("a", "movies", 3.0f, 30, TorrentStatus.PAUSED));
+        snapshot.addTorrentToAdd(torrent("b", "movies", 1.0f, 20, TorrentStatus.PAUSED));
+        snapshot.addTorrentToAdd(torrent("c", "movies", 2.5f, 10, TorrentStatus.PAUSED, TorrentStatus.LOADED));
+        snapshot.addTorrentToAdd(torrent("d", "music", 5.0f, 5, TorrentStatus.PAUSED));
+        snapshot.addTorrentToAdd(torrent("e", "movies", 4.0f, 1, TorrentStatus.STARTED));
+        snapshot.setCacheID("1");
+        cache.updateCache(snapshot);
+
+        TorrentQuery query = TorrentQuery.builder()
+                .labelEquals("movies")
+                .hasStatus(TorrentStatus.PAUSED)
+                .where(TORRENT_RATIO, Operator.GREATER_THAN, 2.0)
+                .orderBy(TORRENT_DATE_ADDED)
+                .build();
+
+        assertThat(cache.query(query)).extracting(Torrent::getHash).containsExactly("c", "a");
+    }
+
+    @Test
+    void testQueryLimitKeepsTheFirstTorrentsInOrder() {
+        for (int i = 0; i < 20; i++) {
+            cache.addTorrent(torrent("hash_" + i, "label", i, 100 - i, TorrentStatus.STARTED));
+        }
+
+        TorrentQuery query = TorrentQuery.builder()
+                .orderBy(TORRENT_RATIO, true)
+                .limit(3)
+                .build();
+
+        assertThat(cache.query(query)).extracting(Torrent::getHash).containsExactly("hash_19", "hash_18", "hash_17");
+    }
+
+    @Test
+    void testIndexesFollowUpdatesAndRemovals() {
+        cache.addTorrent(torrent("a", "movies", 1, 1, TorrentStatus.PAUSED));
+        cache.addTorrent(torrent("a", "music", 1, 1, TorrentStatus.STARTED));
+
+        assertThat(cache.query(TorrentQuery.builder().labelEquals("movies").build())).isEmpty();
+        assertThat(cache.query(TorrentQuery.builder().hasStatus(TorrentStatus.STARTED).build()))
+                .extracting(Torrent::getHash)
+                .containsExactly("a");
+
+        cache.removeTorrent("a");
+        assertThat(cache.query(TorrentQuery.builder().labelEquals("music").build())).isEmpty();
+    }
+
+    @Test
+    void testQueryRejectsNonNumericValueForNumericField() {
+        assertThatThrownBy(() -> TorrentQuery.builder().where(TORRENT_RATIO, Operator.EQUALS, "2"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testQueryRejectsValueOfAnotherTypeForNonNumericField() {
+        assertThatThrownBy(() -> TorrentQuery.builder().where(TORRENT_NAME, Operator.EQUALS, 2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("TORRENT_NAME can only be compared with a String");
+        assertThatThrownBy(() -> TorrentQuery.builder().where(TORRENT_SAVE_PATH, Operator.EQUALS, "/downloads"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        cache.addTorrent(named("a", "ubuntu"));
+        assertThat(cache.query(TorrentQuery.builder().where(TORRENT_NAME, Operator.EQUALS, "ubuntu").build()))
+                .extracting(Torrent::getHash)
+                .containsExactly("a");
+        assertThat(cache.query(TorrentQuery.builder().where(TORRENT_SAVE_PATH, Operator.EQUALS, Path.of("/downloads")).build())).isEmpty();
+    }
+
+    @Test
+    void testSortedViewPagesFollowCacheChanges() {
+        SortedTorrentView view = cache.registerSortedView(TORRENT_DATE_ADDED, false);
+        for (int i = 0; i < 250; i++) {
+            cache.addTorrent(torrent(String.format("hash_%03d", i), "label", 1, 1000 - i, TorrentStatus.STARTED));
+        }
+
+        assertThat(view.size()).isEqualTo(250);
+        assertThat(view.getPage(0, 100)).hasSize(100).first().extracting(Torrent::getHash).isEqualTo("hash_249");
+        assertThat(view.getPage(2, 100)).hasSize(50).last().extracting(Torrent::getHash).isEqualTo("hash_000");
+        assertThat(view.getPage(3, 100)).isEmpty();
+
+        cache.addTorrent(torrent("hash_000", "label", 1, 0, TorrentStatus.STARTED));
+        cache.removeTorrent("hash_249");
+
+        assertThat(view.getTop(2)).extracting(Torrent::getHash).containsExactly("hash_000", "hash_248");
+        assertThat(view.getPosition("hash_247")).isEqualTo(2);
+        assertThat(view.getPosition("hash_249")).isEqualTo(-1);
+    }
+
+    @Test
+    void testSortedViewIsInitialisedWithCachedTorrents() {
+        cache.addTorrent(torrent("a", "label", 1.0f, 1, TorrentStatus.STARTED));
+        cache.addTorrent(torrent("b", "label", 3.0f, 1, TorrentStatus.STARTED));
+        cache.addTorrent(torrent("c", "label", 2.0f, 1, TorrentStatus.STARTED));
+
+        SortedTorrentView view = cache.registerSortedView(TORRENT_RATIO, true);
+
+        assertThat(view.getTop(10)).extracting(Torrent::getHash).containsExactly("b", "c", "a");
+    }
+
+    @Test
+    void testNameIndexFindsSubstringsAndPrefixes() {
+        cache.addTorrent(named("a", "Ubuntu 24.04 Desktop"));
+        cache.addTorrent(named("b", "Debian 12 netinst"));
+        cache.enableNameIndex();
+        cache.addTorrent(named("c", "ubuntu-server"));
+
+        assertThat(cache.searchByName("UBUNTU")).containsExactlyInAnyOrder("a", "c");
+        assertThat(cache.searchByName("desk")).containsExactly("a");
+        assertThat(cache.searchByName("12")).containsExactly("b");
+        assertThat(cache.searchByName("missing")).isEmpty();
+        assertThat(cache.searchByNamePrefix("ubuntu")).containsExactlyInAnyOrder("a", "c");
+
+        cache.addTorrent(named("c", "Fedora Server"));
+        cache.removeTorrent("a");
+
+        assertThat(cache.searchByName("ubuntu")).isEmpty();
+        assertThat(cache.searchByName("server")).containsExactly("c");
+        assertThat(cache.searchByNamePrefix("fed")).containsExactly("c");
+    }
+
+    @Test
+    void testInPlaceModeUpdatesCachedEntriesAndCopiesOnlySnapshots() {
+        TorrentsCache inPlaceCache = new TorrentsCache(TorrentsCache.UpdateMode.IN_PLACE);
+        MessageParser parser = new MessageParser();
+        List<Torrent> notified = new ArrayList<>();
+        inPlaceCache.addListener(new TorrentsCacheListener() {
+            @Override
+            public void onTorrentUpdated(Torrent torrent) {
+                notified.add(torrent);
+            }
+
+            @Override
+            public void onTorrentRemoved(String hash) {
+            }
+        });
+
+        inPlaceCache.updateCache(parser.parseAsRawTorrentListSnapshot(listMessage("torrents", "1", row("a", 100, "movies", 0))), parser);
+        Torrent firstRead = inPlaceCache.getTorrent("a");
+        Torrent snapshot = inPlaceCache.getTorrentSnapshot("a");
+        inPlaceCache.updateCache(parser.parseAsRawTorrentListSnapshot(listMessage("torrentp", "2", row("a", 250, "music", 0))), parser);
+
+        assertThat(notified).hasSize(2);
+        assertThat(notified.get(1)).isSameAs(notified.get(0));
+        assertThat(firstRead).isSameAs(notified.get(0));
+        assertThat(firstRead.getDownloaded()).isEqualTo(250);
+        assertThat(snapshot).isNotSameAs(firstRead);
+        assertThat(snapshot.getDownloaded()).isEqualTo(100);
+        assertThat(snapshot.getLabel()).isEqualTo("movies");
+        assertThat(snapshot.getStatuses()).isEqualTo(firstRead.getStatuses()).isNotSameAs(firstRead.getStatuses());
+        assertThat(inPlaceCache.getTorrentListSnapshot()).singleElement()
+                .isNotSameAs(firstRead)
+                .extracting(Torrent::getDownloaded).isEqualTo(250L);
+        assertThat(inPlaceCache.query(TorrentQuery.builder().labelEquals("music").build()))
+                .singleElement()
+                .isSameAs(firstRead);
+        assertThat(inPlaceCache.getCachedID()).isEqualTo("2");
+
+        inPlaceCache.updateCache(parser.parseAsRawTorrentListSnapshot(listMessage("torrentp", "3", row("a", 300, "music", 1437212481))), parser);
+
+        assertThat(notified).hasSize(3);
+        assertThat(notified.get(2)).isNotSameAs(notified.get(0));
+        assertThat(inPlaceCache.getTorrent("a").getDateCompleted()).isEqualTo(Instant.ofEpochSecond(1437212481));
+    }
+
+    @Test
+    void testChangesSinceMergesTheChangesOfEachVersion() {
+        cache.addTorrent(named("a", "a"));
+        long firstVersion = cache.getVersion();
+        cache.addTorrent(named("b", "b"));
+        cache.addTorrent(named("a", "a renamed"));
+        cache.addTorrent(named("c", "c"));
+        cache.removeTorrent("c");
+        cache.removeTorrent("b");
+
+        TorrentChanges changes = cache.changesSince(firstVersion);
+        assertThat(changes.isFullSnapshot()).isFalse();
+        assertThat(changes.getAddedHashes()).isEmpty();
+        assertThat(changes.getUpdatedHashes()).containsExactly("a");
+        assertThat(changes.getRemovedHashes()).isEmpty();
+        assertThat(changes.getToVersion()).isEqualTo(cache.getVersion());
+
+        TorrentChanges fromStart = cache.changesSince(0);
+        assertThat(fromStart.getAddedHashes()).containsExactly("a");
+        assertThat(fromStart.getRemovedHashes()).isEmpty();
+
+        assertThat(cache.changesSince(cache.getVersion()).isEmpty()).isTrue();
+    }
+
+    @Test
+    void testChangesSinceFallsBackToFullSnapshotWhenTooOld() {
+        TorrentsCache smallLogCache = new TorrentsCache(TorrentsCache.UpdateMode.REPLACE, 2);
+        smallLogCache.addTorrent(named("a", "a"));
+        smallLogCache.addTorrent(named("b", "b"));
+        smallLogCache.addTorrent(named("c", "c"));
+        smallLogCache.removeTorrent("a");
+
+        TorrentChanges changes = smallLogCache.changesSince(1);
+        assertThat(changes.isFullSnapshot()).isTrue();
+        assertThat(changes.getAddedHashes()).containsExactlyInAnyOrder("b", "c");
+
+        TorrentChanges recentChanges = smallLogCache.changesSince(2);
+        assertThat(recentChanges.isFullSnapshot()).isFalse();
+        assertThat(recentChanges.getAddedHashes()).containsExactly("c");
+        assertThat(recentChanges.getRemovedHashes()).containsExactly("a");
+    }
+
+    @Test
+    void testPollsWithoutChangesKeepTheVersion() {
+        TorrentsCache smallLogCache = new TorrentsCache(TorrentsCache.UpdateMode.REPLACE, 2);
+        smallLogCache.addTorrent(named("a", "a"));
+        smallLogCache.addTorrent(named("b", "b"));
+        long version = smallLogCache.getVersion();
+
+        for (int i = 0; i < 3; i++) {
+            TorrentListSnapshot emptyPoll = new TorrentListSnapshot();
+            emptyPoll.setCacheID("cache-" + i);
+            smallLogCache.updateCache(emptyPoll);
+        }
+        smallLogCache.removeTorrent("missing");
+
+        assertThat(smallLogCache.getVersion()).isEqualTo(version);
+        assertThat(smallLogCache.getCachedID()).isEqualTo("cache-2");
+        TorrentChanges changes = smallLogCache.changesSince(version - 1);
+        assertThat(changes.isFullSnapshot()).isFalse();
+        assertThat(changes.getAddedHashes()).containsExactly("b");
+    }
+
+    private static String listMessage(String rowsName, String cacheID, String row) {
+        return "{\"build\": 40633, \"" + rowsName + "\": [" + row + "], \"torrentm\": [], \"torrentc\": \"" + cacheID + "\"}";
+    }
+
+    private static String row(String hash, long downloaded, String label, long dateCompleted) {
+        return "[\"" + hash + "\", 201, \"name\", 1000, 1000, " + downloaded + ", 10, 80, 1, 2, -1, \"" + label + "\", "
+                + "1, 2, 3, 4, 5, 6, 7, \"\", \"\", \"Seeding\", \"1\", 1437210837, " + dateCompleted + ", \"\", \"downloads\"]";
+    }
+
+    private static Torrent named(String hash, String name) {
+        return Torrent.builder().hash(hash).name(name).build();
+    }
+
+    static Torrent torrent(String hash, String label, float ratio, long dateAdded, TorrentStatus... statuses) {
+        return Torrent.builder()
+                .hash(hash)
+                .name("name " + hash)
+                .label(label)
+                .ratio(ratio)
+                .dateAdded(Instant.ofEpochSecond(dateAdded))
+                .statuses(Set.of(statuses))
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.utorrent.api.web.client.core;
+
+import com.utorrent.api.web.client.core.entities.Torrent;
+import com.utorrent.api.web.client.core.entities.Torrent.TorrentStatus;
+import com.utorrent.api.web.client.core.entities.TorrentListSnapshot;
+import com.utorrent.api.web.client.restclient.exceptions.RESTException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith({
+    MockitoExtension.class
+})
+class UTorrentFleetClientTest {
+
+    @Mock
+    private AsyncUTorrentWebAPIClient firstClient;
+    @Mock
+    private AsyncUTorrentWebAPIClient secondClient;
+
+    private final TorrentsCache firstCache = new TorrentsCache();
+    private final TorrentsCache secondCache = new TorrentsCache();
+    private UTorrentFleetClient fleet;
+
+    @BeforeEach
+    void beforeEach() {
+        when(firstClient.getTorrentsCache()).thenReturn(firstCache);
+        when(secondClient.getTorrentsCache()).thenReturn(secondCache);
+        Map<String, AsyncUTorrentWebAPIClient> clients = new LinkedHashMap<>();
+        clients.put("box-1", firstClient);
+        clients.put("box-2", secondClient);
+        fleet = new UTorrentFleetClient(null, clients, Duration.ofMinutes(1), 0.2);
+    }
+
+    @AfterEach
+    void afterEach() throws IOException {
+        fleet.close();
+    }
+
+    @Test
+    void testCachesAreQueriedTogether() {
+        when(firstClient.getAllTorrents()).thenAnswer(invocation -> update(firstCache, "1",
+            torrent("shared", 100, TorrentStatus.STARTED), torrent("only-first", 50, TorrentStatus.PAUSED)));
+        when(secondClient.getAllTorrents()).thenAnswer(invocation -> update(secondCache, "1",
+            torrent("shared", 10, TorrentStatus.STARTED)));
+
+        fleet.pollAll().join();
+
+        assertThat(fleet.findTorrent("shared")).containsOnlyKeys("box-1", "box-2");
+        assertThat(fleet.findTorrent("only-first")).containsOnlyKeys("box-1");
+        assertThat(fleet.findTorrent("unknown")).isEmpty();
+        assertThat(fleet.query(TorrentQuery.builder().hasStatus(TorrentStatus.PAUSED).build())).containsOnlyKeys("box-1");
+
+        FleetStats stats = fleet.getStats();
+        assertThat(stats.getInstances()).isEqualTo(2);
+        assertThat(stats.getFailingInstances()).isZero();
+        assertThat(stats.getTorrents()).isEqualTo(3);
+        assertThat(stats.getDownloadSpeed()).isEqualTo(160);
+        assertThat(stats.getTorrentsByStatus()).containsEntry(TorrentStatus.STARTED, 2).containsEntry(TorrentStatus.PAUSED, 1);
+
+        TorrentListSnapshot removal = new TorrentListSnapshot();
+        removal.addTorrentToDelete("shared");
+        removal.setCacheID("2");
+        secondCache.updateCache(removal);
+        assertThat(fleet.findTorrent("shared")).containsOnlyKeys("box-1");
+    }
+
+    @Test
+    void testFailingPollsAreReportedAndConcurrentPollsShared() {
+        CompletableFuture<Set<Torrent>> firstPoll = new CompletableFuture<>();
+        when(firstClient.getAllTorrents()).thenReturn(firstPoll);
+
+        CompletableFuture<Void> poll = fleet.poll("box-1");
+        assertThat(fleet.poll("box-1")).isSameAs(poll);
+        verify(firstClient, times(1)).getAllTorrents();
+
+        firstPoll.completeExceptionally(new RESTException("Impossible to execute request GET", new IOException("Connection refused")));
+        assertThat(poll).isCompletedExceptionally();
+        assertThat(fleet.getFailingInstances()).containsExactly("box-1");
+        assertThatThrownBy(() -> fleet.getInstance("box-3")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static CompletableFuture<Set<Torrent>> update(TorrentsCache cache, String cacheID, Torrent... torrents) {
+        TorrentListSnapshot snapshot = new TorrentListSnapshot();
+        for (Torrent torrent : torrents) {
+            snapshot.addTorrentToAdd(torrent);
+        }
+        snapshot.setCacheID(cacheID);
+        cache.updateCache(snapshot);
+        return CompletableFuture.completedFuture(cache.getTorrentList());
+    }
+
+    private static Torrent torrent(String hash, long downloadSpeed, TorrentStatus status) {
+        return Torrent.builder().hash(hash).downloadSpeed(downloadSpeed).statuses(Set.of(status)).build();
+    }
+}
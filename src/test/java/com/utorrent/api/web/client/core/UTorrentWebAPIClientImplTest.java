@@ -13,6 +13,7 @@ import com.utorrent.api.web.client.restclient.ConnectionParams;
 import com.utorrent.api.web.client.restclient.RESTClient;
 import com.utorrent.api.web.client.restclient.Request;
 import com.utorrent.api.web.client.restclient.exceptions.BadRequestException;
+import com.utorrent.api.web.client.restclient.exceptions.RESTException;
 import org.apache.hc.core5.net.URIBuilder;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,12 +23,18 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static com.utorrent.api.web.client.core.UTorrentWebAPIClientImpl.URL_PARAM_NAME;
@@ -217,6 +224,183 @@ class UTorrentWebAPIClientImplTest {
 
     }
 
+    @Test
+    void testStreamTorrentFilesInChunksIsolatesFailures() {
+        ConnectionParams connectionParams = ConnectionParams.builder()
+                .withAddress("host.com", 8080)
+                .withMaxUrlLength(serverURI.toString().length() + "?action=getfiles".length() + HashChunker.RESERVED_URL_LENGTH
+                    + 3 * "&hash=".length() + 3 * 40)
+                .withFetchParallelism(2)
+                .create();
+        when(restClient.getConnectionParams()).thenReturn(connectionParams);
+        List<String> hashes = IntStream.range(0, 8).mapToObj(index -> String.format("%040d", index)).collect(Collectors.toList());
+        String failingHash = hashes.get(4);
+        Set<Thread> fetchThreads = ConcurrentHashMap.newKeySet();
+        when(restClient.get(any(Request.class))).thenAnswer(invocation -> {
+            fetchThreads.add(Thread.currentThread());
+            Request request = invocation.getArgument(0);
+            if (request.getAllParams().contains(new QueryParam(UTorrentWebAPIClientImpl.HASH_QUERY_PARAM_NAME, failingHash))) {
+                throw new RESTException("Impossible to execute request GET", new IOException("Connection reset"));
+            }
+            return request.getAllParams().stream()
+                .filter(param -> param.getName().equals(UTorrentWebAPIClientImpl.HASH_QUERY_PARAM_NAME))
+                .map(QueryParam::getValue)
+                .collect(Collectors.joining(","));
+        });
+        when(parser.parseAsTorrentFileList(anyString())).thenAnswer(invocation -> Stream
+            .of(invocation.getArgument(0, String.class).split(","))
+            .map(hash -> {
+                TorrentFileList fileList = new TorrentFileList();
+                fileList.setHash(hash);
+                return fileList;
+            })
+            .collect(Collectors.toSet()));
+
+        List<ChunkResult<Set<TorrentFileList>>> results = new ArrayList<>();
+        client.streamTorrentFiles(hashes, results::add);
+
+        assertThat(results).hasSize(3);
+        assertThat(results).flatExtracting(ChunkResult::getHashes).containsExactlyInAnyOrderElementsOf(hashes);
+        assertThat(results).filteredOn(result -> !result.isSuccessful()).singleElement().satisfies(result -> {
+            assertThat(result.getHashes()).containsExactly(hashes.get(3), hashes.get(4), hashes.get(5));
+            assertThat(result.getError()).containsInstanceOf(RESTException.class);
+        });
+        assertThat(results).filteredOn(ChunkResult::isSuccessful)
+            .flatExtracting(result -> result.getValue().get())
+            .extracting(TorrentFileList::getHash)
+            .containsExactlyInAnyOrder(hashes.get(0), hashes.get(1), hashes.get(2), hashes.get(6), hashes.get(7));
+
+        client.streamTorrentFiles(hashes, results::add);
+        assertThat(results).hasSize(6);
+        assertThat(fetchThreads).hasSizeLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void testGetTorrentHashesByTrackerFetchesPropertiesOfNewTorrentsInChunks() {
+        String hash2 = "hash_2";
+        String hash3 = "hash_3";
+        when(restClient.getConnectionParams()).thenReturn(ConnectionParams.builder()
+            .withAddress("host.com", 8080)
+            .withMaxUrlLength(serverURI.toString().length() + "?action=getprops".length() + HashChunker.RESERVED_URL_LENGTH
+                + "&hash=".length() + HASH_1.length())
+            .create());
+        TorrentListSnapshot firstSnapshot = new TorrentListSnapshot();
+        firstSnapshot.addTorrentToAdd(Torrent.builder().hash(HASH_1).build());
+        firstSnapshot.addTorrentToAdd(Torrent.builder().hash(hash2).build());
+        firstSnapshot.setCacheID("1");
+        TorrentListSnapshot secondSnapshot = new TorrentListSnapshot();
+        secondSnapshot.setCacheID("2");
+        TorrentListSnapshot thirdSnapshot = new TorrentListSnapshot();
+        thirdSnapshot.addTorrentToAdd(Torrent.builder().hash(HASH_1).build());
+        thirdSnapshot.addTorrentToAdd(Torrent.builder().hash(hash3).build());
+        thirdSnapshot.setCacheID("3");
+        TorrentProperties properties = TorrentProperties.builder()
+            .hash(HASH_1)
+            .trackers(new String[]{"udp://tracker.one", "", "udp://tracker.two"})
+            .build();
+        TorrentProperties newProperties = TorrentProperties.builder()
+            .hash(hash3)
+            .trackers(new String[]{"udp://tracker.three"})
+            .build();
+
+        List<List<String>> propertiesRequests = new ArrayList<>();
+        when(restClient.get(any(Request.class))).thenAnswer(invocation -> {
+            Request request = invocation.getArgument(0);
+            List<String> hashes = request.getAllParams().stream()
+                .filter(param -> param.getName().equals(UTorrentWebAPIClientImpl.HASH_QUERY_PARAM_NAME))
+                .map(QueryParam::getValue)
+                .collect(Collectors.toList());
+            if (hashes.isEmpty()) {
+                return BUILD_STRING;
+            }
+            propertiesRequests.add(hashes);
+            return "props-" + String.join(",", hashes);
+        });
+        when(parser.parseAsTorrentListSnapshot(BUILD_STRING)).thenReturn(firstSnapshot, secondSnapshot, thirdSnapshot);
+        when(parser.parseAsTorrentProperties("props-" + HASH_1)).thenReturn(Set.of(properties));
+        when(parser.parseAsTorrentProperties("props-" + hash2)).thenReturn(Set.of());
+        when(parser.parseAsTorrentProperties("props-" + hash3)).thenReturn(Set.of(newProperties));
+
+        assertThat(client.getTorrentHashesByTracker("udp://tracker.one")).containsExactly(HASH_1);
+        assertThat(propertiesRequests).containsExactlyInAnyOrder(List.of(HASH_1), List.of(hash2));
+
+        assertThat(client.getTrackers()).containsExactlyInAnyOrder("udp://tracker.one", "udp://tracker.two");
+        assertThat(propertiesRequests).hasSize(2);
+
+        assertThat(client.getTrackers()).containsExactlyInAnyOrder("udp://tracker.one", "udp://tracker.two", "udp://tracker.three");
+        assertThat(propertiesRequests).hasSize(3).endsWith(List.of(hash3));
+        assertThat(client.getTorrentHashesByTracker("udp://tracker.one")).containsExactly(HASH_1);
+    }
+
+    @Test
+    void testExpiredSessionsAreResetOverTheSameRestClient() throws Exception {
+        AuthorizationData expired = new AuthorizationData(null, null, AuthorizationData.Status.EXPIRED);
+        AuthorizationData renewed = new AuthorizationData(TOKEN_VALUE, "GUID", AuthorizationData.Status.OK);
+        when(restClient.authenticate()).thenReturn(expired, renewed);
+        when(restClient.get(any(Request.class))).thenThrow(new BadRequestException(400, "Invalid token")).thenReturn(BUILD_STRING);
+
+        assertThat(client.startTorrent(HASH_1)).isEqualTo(RequestResult.SUCCESS);
+
+        verify(restClient, times(1)).resetSession();
+        verify(restClient, never()).close();
+        assertThat(client.getSessionStats()).isEqualTo(new SessionStats(3, 1, 1));
+    }
+
+    @Test
+    void testWarmUpRunsEachPhaseOnceAndReportsItsTime() throws Exception {
+        when(restClient.getConnectionParams()).thenReturn(ConnectionParams.builder()
+            .withAddress("host.com", 8080)
+            .withFetchParallelism(3)
+            .withWarmUp(2)
+            .create());
+        TorrentListSnapshot snapshot = new TorrentListSnapshot();
+        snapshot.setCacheID("1");
+        when(restClient.openConnections(3)).thenReturn(3);
+        when(restClient.get(any(Request.class))).thenReturn(BUILD_STRING);
+        when(parser.parseAsTorrentListSnapshot(anyString())).thenReturn(snapshot);
+        when(parser.parseAsClientSettings(anyString())).thenReturn(new ClientSettings());
+
+        CompletableFuture<WarmUpReport> warmUp = client.warmUp();
+        WarmUpReport report = warmUp.get(5, TimeUnit.SECONDS);
+
+        assertThat(client.warmUp()).isSameAs(warmUp);
+        assertThat(report.isSuccessful()).isTrue();
+        assertThat(report.getPhaseDurations()).containsOnlyKeys(WarmUpReport.Phase.values());
+        assertThat(report.getTotal()).isGreaterThanOrEqualTo(report.getPhaseDurations().get(WarmUpReport.Phase.AUTHENTICATE));
+        assertThat(client.getTorrentsCache().getCachedID()).isEqualTo("1");
+        verify(restClient, times(1)).authenticate();
+        verify(restClient, times(1)).openConnections(3);
+    }
+
+    @Test
+    void testWarmUpUsesTheDefaultParametersOfATransportGivenWithoutParameters() throws Exception {
+        TorrentListSnapshot snapshot = new TorrentListSnapshot();
+        snapshot.setCacheID("1");
+        when(restClient.openConnections(4)).thenReturn(4);
+        when(restClient.get(any(Request.class))).thenReturn(BUILD_STRING);
+        when(parser.parseAsTorrentListSnapshot(anyString())).thenReturn(snapshot);
+        when(parser.parseAsClientSettings(anyString())).thenReturn(new ClientSettings());
+
+        WarmUpReport report = client.warmUp().get(5, TimeUnit.SECONDS);
+
+        assertThat(report.isSuccessful()).isTrue();
+        assertThat(report.getPhaseDurations()).doesNotContainKey(WarmUpReport.Phase.PARSING);
+        verify(restClient, times(1)).openConnections(4);
+    }
+
+    @Test
+    void testWarmUpSkipsThePhasesWaitingForAFailedAuthentication() throws Exception {
+        when(restClient.getConnectionParams()).thenReturn(ConnectionParams.builder().withAddress("host.com", 8080).create());
+        when(restClient.authenticate()).thenThrow(new RESTException("Impossible to execute request GET", new IOException("Connection refused")));
+
+        WarmUpReport report = client.warmUp().get(5, TimeUnit.SECONDS);
+
+        assertThat(report.isSuccessful()).isFalse();
+        assertThat(report.getFailures()).containsOnlyKeys(WarmUpReport.Phase.AUTHENTICATE);
+        assertThat(report.getPhaseDurations()).containsOnlyKeys(WarmUpReport.Phase.CONNECT);
+        verify(restClient, never()).get(any());
+    }
+
     @Test
     void testStartTorrent() throws Exception {
         testSimpleTorrentAction(Action.START, client::startTorrent);
@@ -369,8 +553,8 @@ class UTorrentWebAPIClientImplTest {
             queryParams.stream()
         ).collect(Collectors.toList());
 
-        assertThat(requestToValidate.getUri()).isEqualTo(serverURI);
-        assertThat(requestToValidate.getParams()).hasSameElementsAs(queryParamsToCompare);
+        assertThat(requestToValidate.getUri().resolve(serverURI.getRawPath())).isEqualTo(serverURI);
+        assertThat(requestToValidate.getAllParams()).hasSameElementsAs(queryParamsToCompare);
         assertThat(requestToValidate.getFiles()).hasSameElementsAs(fileList);
     }
 
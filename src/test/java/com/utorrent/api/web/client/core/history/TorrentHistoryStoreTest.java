@@ -0,0 +1,221 @@
+package com.utorrent.api.web.client.core.history;
+
+import com.utorrent.api.web.client.core.TorrentsCache;
+import com.utorrent.api.web.client.core.TorrentsCacheListener;
+import com.utorrent.api.web.client.core.entities.Torrent;
+import com.utorrent.api.web.client.core.entities.Torrent.TorrentStatus;
+import com.utorrent.api.web.client.core.entities.TorrentListSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TorrentHistoryStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private MutableClock clock;
+    private TorrentsCache cache;
+
+    @BeforeEach
+    void beforeEach() {
+        clock = new MutableClock(Instant.ofEpochSecond(1_000));
+        cache = new TorrentsCache();
+    }
+
+    @Test
+    void testTorrentsCanBeReadAtAnyPointInTime() throws Exception {
+        try (TorrentHistoryStore store = new TorrentHistoryStore(directory, Duration.ofMinutes(10), Duration.ofDays(1), clock)) {
+            cache.addListener(store);
+
+            apply(torrent("a", "movies", 100, 0.5f, TorrentStatus.STARTED), torrent("b", null, 10, 1f, TorrentStatus.PAUSED));
+            clock.advance(Duration.ofSeconds(5));
+            apply(torrent("a", "movies", 250, 0.75f, TorrentStatus.STARTED));
+            clock.advance(Duration.ofSeconds(5));
+            removeAndApply("b");
+
+            Instant start = Instant.ofEpochSecond(1_000);
+            assertThat(store.getTorrentAt("a", start.minusSeconds(1))).isEmpty();
+            assertThat(store.getTorrentAt("a", start.plusSeconds(4)).get().getDownloaded()).isEqualTo(100);
+            Torrent later = store.getTorrentAt("a", start.plusSeconds(5)).get();
+            assertThat(later.getDownloaded()).isEqualTo(250);
+            assertThat(later.getProgress()).isEqualTo(0.75f);
+            assertThat(later.getLabel()).isEqualTo("movies");
+            assertThat(later.getName()).isEqualTo("name a");
+            assertThat(later.getStatuses()).containsExactly(TorrentStatus.STARTED);
+
+            assertThat(store.getTorrentsAt(start.plusSeconds(9)).keySet()).containsExactlyInAnyOrder("a", "b");
+            assertThat(store.getTorrentsAt(start.plusSeconds(9)).get("b").getLabel()).isNull();
+            assertThat(store.getTorrentsAt(start.plusSeconds(10)).keySet()).containsExactly("a");
+            assertThat(store.findTorrentsWithStatus(TorrentStatus.PAUSED, start, start.plusSeconds(60))).containsExactly("b");
+            assertThat(store.findTorrentsWithStatus(TorrentStatus.PAUSED, start.plusSeconds(10), start.plusSeconds(60))).isEmpty();
+        }
+    }
+
+    @Test
+    void testSealedSegmentsAreReloadedAndExpired() throws Exception {
+        try (TorrentHistoryStore store = new TorrentHistoryStore(directory, Duration.ofMinutes(1), Duration.ofMinutes(5), clock)) {
+            cache.addListener(store);
+            apply(torrent("a", "movies", 100, 0.5f, TorrentStatus.STARTED));
+            clock.advance(Duration.ofMinutes(2));
+            apply(torrent("b", "music", 1, 0f, TorrentStatus.QUEUED));
+        }
+
+        assertThat(segmentFiles()).isEqualTo(2);
+        Instant afterRoll = Instant.ofEpochSecond(1_000).plus(Duration.ofMinutes(2));
+        try (TorrentHistoryStore store = new TorrentHistoryStore(directory, Duration.ofMinutes(1), Duration.ofMinutes(5), clock)) {
+            assertThat(store.getTorrentAt("a", Instant.ofEpochSecond(1_000)).get().getDownloaded()).isEqualTo(100);
+            assertThat(store.getTorrentsAt(afterRoll).keySet()).containsExactlyInAnyOrder("a", "b");
+
+            cache = new TorrentsCache();
+            cache.addListener(store);
+            clock.advance(Duration.ofMinutes(10));
+            apply(torrent("c", "music", 1, 0f, TorrentStatus.QUEUED));
+
+            assertThat(store.getTorrentAt("a", Instant.ofEpochSecond(1_000))).isEmpty();
+        }
+        assertThat(segmentFiles()).isEqualTo(1);
+    }
+
+    @Test
+    void testSegmentsWhichCannotBeSealedAreKeptInMemory() throws Exception {
+        Path storeDirectory = directory.resolve("history");
+        TorrentHistoryStore store = new TorrentHistoryStore(storeDirectory, Duration.ofMinutes(1), Duration.ofDays(1), clock);
+        AtomicInteger updatesSeenAfterTheStore = new AtomicInteger();
+        cache.addListener(store);
+        cache.addListener(new TorrentsCacheListener() {
+            @Override
+            public void onTorrentUpdated(Torrent torrent) {
+            }
+
+            @Override
+            public void onTorrentRemoved(String hash) {
+            }
+
+            @Override
+            public void onCacheUpdated(String cacheID) {
+                updatesSeenAfterTheStore.incrementAndGet();
+            }
+        });
+        Files.delete(storeDirectory);
+        Files.createFile(storeDirectory);
+
+        apply(torrent("a", "movies", 100, 0.5f, TorrentStatus.STARTED));
+        clock.advance(Duration.ofMinutes(2));
+        apply(torrent("a", "movies", 200, 0.5f, TorrentStatus.STARTED));
+        clock.advance(Duration.ofMinutes(2));
+        apply(torrent("a", "movies", 300, 0.5f, TorrentStatus.STARTED));
+
+        assertThat(updatesSeenAfterTheStore).hasValue(3);
+        assertThatThrownBy(store::close).isInstanceOf(IOException.class);
+        Instant start = Instant.ofEpochSecond(1_000);
+        assertThat(store.getTorrentAt("a", start).get().getDownloaded()).isEqualTo(100);
+        assertThat(store.getTorrentAt("a", start.plus(Duration.ofMinutes(2))).get().getDownloaded()).isEqualTo(200);
+        assertThat(store.getTorrentAt("a", start.plus(Duration.ofMinutes(4))).get().getDownloaded()).isEqualTo(300);
+    }
+
+    @Test
+    void testCodecsRoundTrip() {
+        long[] longs = {0, 1_700_000_000_000L, 1_700_000_001_000L, 1_700_000_002_000L, 1_700_000_002_500L, -3, Long.MIN_VALUE, Long.MAX_VALUE};
+        float[] floats = {0f, 0.5f, 0.5f, 0.501f, Float.NaN, -1f, Float.MAX_VALUE};
+
+        BitWriter longWriter = new BitWriter();
+        DeltaOfDeltaCodec.Encoder longEncoder = new DeltaOfDeltaCodec.Encoder(longWriter);
+        for (long value : longs) {
+            longEncoder.add(value);
+        }
+        BitWriter floatWriter = new BitWriter();
+        XorFloatCodec.Encoder floatEncoder = new XorFloatCodec.Encoder(floatWriter);
+        for (float value : floats) {
+            floatEncoder.add(value);
+        }
+
+        DeltaOfDeltaCodec.Decoder longDecoder = new DeltaOfDeltaCodec.Decoder(
+                new BitReader(ByteBuffer.wrap(longWriter.getBuffer(), 0, longWriter.getByteLength())));
+        for (long value : longs) {
+            assertThat(longDecoder.next()).isEqualTo(value);
+        }
+        XorFloatCodec.Decoder floatDecoder = new XorFloatCodec.Decoder(
+                new BitReader(ByteBuffer.wrap(floatWriter.getBuffer(), 0, floatWriter.getByteLength())));
+        for (float value : floats) {
+            assertThat(Float.floatToRawIntBits(floatDecoder.next())).isEqualTo(Float.floatToRawIntBits(value));
+        }
+    }
+
+    private void apply(Torrent... torrents) {
+        TorrentListSnapshot snapshot = new TorrentListSnapshot();
+        for (Torrent torrent : torrents) {
+            snapshot.addTorrentToAdd(torrent);
+        }
+        snapshot.setCacheID(String.valueOf(clock.millis()));
+        cache.updateCache(snapshot);
+    }
+
+    private void removeAndApply(String hash) {
+        TorrentListSnapshot snapshot = new TorrentListSnapshot();
+        snapshot.addTorrentToDelete(hash);
+        snapshot.setCacheID(String.valueOf(clock.millis()));
+        cache.updateCache(snapshot);
+    }
+
+    private long segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static Torrent torrent(String hash, String label, long downloaded, float progress, TorrentStatus... statuses) {
+        return Torrent.builder()
+                .hash(hash)
+                .name("name " + hash)
+                .label(label)
+                .downloaded(downloaded)
+                .progress(progress)
+                .eta(Duration.ofSeconds(60))
+                .statuses(Set.of(statuses))
+                .build();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        private void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
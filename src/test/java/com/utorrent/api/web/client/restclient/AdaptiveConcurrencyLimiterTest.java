@@ -0,0 +1,138 @@
+package com.utorrent.api.web.client.restclient;
+
+import com.utorrent.api.web.client.restclient.exceptions.BadRequestException;
+import com.utorrent.api.web.client.restclient.exceptions.CallCancelledException;
+import com.utorrent.api.web.client.restclient.exceptions.RESTException;
+import com.utorrent.api.web.client.restclient.exceptions.RequestRejectedException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    @Test
+    void testLimitShrinksOnErrorsAndSlowResponsesAndGrowsBack() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 0, 0, 2.0, nanoTime::get);
+        assertThat(limiter.getLimit()).isEqualTo(10);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire().onDropped();
+        }
+        assertThat(limiter.getLimit()).isEqualTo(3);
+
+        respond(limiter.acquire(), 10);
+        respond(limiter.acquire(), 50);
+        assertThat(limiter.getLimit()).isEqualTo(3);
+        respond(limiter.acquire(), 50);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+
+        respond(limiter.acquire(), 12);
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        for (int i = 0; i < 100; i++) {
+            List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+            while (permits.size() < limiter.getLimit()) {
+                permits.add(limiter.acquire());
+            }
+            nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(12));
+            permits.forEach(AdaptiveConcurrencyLimiter.Permit::onResponse);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(10);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void testExecutedRequestsCompleteTheirPermitByOutcome() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 0, 0, 2.0, nanoTime::get);
+
+        assertThat(limiter.execute(RequestPriority.NORMAL, () -> "build")).isEqualTo("build");
+        assertThatThrownBy(() -> limiter.execute(RequestPriority.NORMAL, () -> {
+            throw new BadRequestException(400, "Bad Request");
+        })).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> limiter.execute(RequestPriority.NORMAL, () -> {
+            throw new CallCancelledException("The call was cancelled");
+        })).isInstanceOf(CallCancelledException.class);
+        assertThat(limiter.getLimit()).isEqualTo(10);
+
+        assertThatThrownBy(() -> limiter.execute(RequestPriority.NORMAL, () -> {
+            throw new RESTException("Impossible to execute request GET", new IOException("Connection reset"));
+        })).isInstanceOf(RESTException.class);
+        assertThat(limiter.getLimit()).isEqualTo(9);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    private void respond(AdaptiveConcurrencyLimiter.Permit permit, long latencyMillis) {
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+        permit.onResponse();
+    }
+
+    @Test
+    void testRequestsOverTheLimitAreQueuedThenShed() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 5000);
+        AdaptiveConcurrencyLimiter.Permit inFlight = limiter.acquire();
+
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> queued = CompletableFuture.supplyAsync(limiter::acquire);
+        while (limiter.getQueued() == 0) {
+            Thread.sleep(10);
+        }
+        assertThatThrownBy(limiter::acquire).isInstanceOf(RequestRejectedException.class);
+        assertThat(limiter.getRejected()).isEqualTo(1);
+
+        inFlight.onResponse();
+        queued.get(5, TimeUnit.SECONDS).onResponse();
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.getQueued()).isZero();
+
+        AdaptiveConcurrencyLimiter timedOut = new AdaptiveConcurrencyLimiter(1, 1, 20);
+        timedOut.acquire();
+        assertThatThrownBy(timedOut::acquire).isInstanceOf(RequestRejectedException.class);
+    }
+
+    @Test
+    void testWaitingRequestsAreDispatchedByAgedPriority() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 10, 0, 2.0, nanoTime::get);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            AdaptiveConcurrencyLimiter.Permit inFlight = limiter.acquire();
+            CompletableFuture<AdaptiveConcurrencyLimiter.Permit> bulk = enqueue(limiter, RequestPriority.BULK, executor);
+            CompletableFuture<AdaptiveConcurrencyLimiter.Permit> interactive = enqueue(limiter, RequestPriority.INTERACTIVE, executor);
+
+            inFlight.onResponse();
+            AdaptiveConcurrencyLimiter.Permit first = interactive.get(5, TimeUnit.SECONDS);
+            assertThat(bulk).isNotDone();
+
+            nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(3 * AdaptiveConcurrencyLimiter.DEFAULT_AGING_INTERVAL));
+            interactive = enqueue(limiter, RequestPriority.INTERACTIVE, executor);
+            first.onDropped();
+            bulk.get(5, TimeUnit.SECONDS).onResponse();
+            interactive.get(5, TimeUnit.SECONDS).onResponse();
+            assertThat(limiter.getQueued()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static CompletableFuture<AdaptiveConcurrencyLimiter.Permit> enqueue(
+        AdaptiveConcurrencyLimiter limiter,
+        RequestPriority priority,
+        ExecutorService executor
+    ) throws InterruptedException {
+        int queued = limiter.getQueued();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> permit = CompletableFuture.supplyAsync(() -> limiter.acquire(priority), executor);
+        while (limiter.getQueued() == queued) {
+            Thread.sleep(10);
+        }
+        return permit;
+    }
+}
@@ -0,0 +1,155 @@
+package com.utorrent.api.web.client.restclient;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link HttpTransport} implementations against a local server answering a list
+ * of 100 torrents: the latency of one request, the requests per second sent by 4 threads, and
+ * the time a fresh JVM takes to create a transport, authenticate and send its first request,
+ * class loading included.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=com.utorrent.api.web.client.restclient.HttpTransportBenchmark
+ * -Dexec.classpathScope=test}.
+ */
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpTransportBenchmark {
+
+    private static final byte[] TOKEN_PAGE = "<html><div id='token' style='display:none;'>token</div></html>".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LIST = ("{\"build\": 44994, \"torrents\": ["
+        + "[\"1B1C06C35E76108149FEAE1072C71CD0E5712D71\", 201, \"name\", 2199961712, 1000],".repeat(100)
+        + "[]], \"torrentc\": \"1\"}").getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * The server and the parameters of the transports, set up without creating a transport so
+     * that the startup benchmark loads the classes of its transport itself. The server sends
+     * without delay, else its responses wait for the delayed acknowledgements of the client.
+     */
+    @State(Scope.Benchmark)
+    public static class Server {
+        @Param({"APACHE", "JDK"})
+        private HttpTransport.Implementation implementation;
+
+        private HttpServer server;
+        private ExecutorService executor;
+        private ConnectionParams connectionParams;
+        private URI listURI;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+            executor = Executors.newFixedThreadPool(8);
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 64);
+            server.createContext("/gui/", HttpTransportBenchmark::handle);
+            server.setExecutor(executor);
+            server.start();
+            final String host = InetAddress.getLoopbackAddress().getHostAddress();
+            connectionParams = ConnectionParams.builder()
+                .withAddress(host, server.getAddress().getPort())
+                .withMaxConnections(8, 8)
+                .withTransport(implementation)
+                .create();
+            listURI = URI.create("http://" + host + ":" + server.getAddress().getPort() + "/gui/?list=1&token=token");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Transport {
+        private HttpTransport transport;
+        private Request listRequest;
+
+        @Setup(Level.Trial)
+        public void setUp(Server server) throws URISyntaxException {
+            transport = HttpTransport.create(server.connectionParams);
+            listRequest = Request.builder().uri(server.listURI).name("list").header("Cookie", "GUID=guid").build();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            transport.close();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String latency(Transport transport) {
+        return transport.transport.get(transport.listRequest);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(4)
+    public String throughput(Transport transport) {
+        return transport.transport.get(transport.listRequest);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public String startup(Server server) throws IOException, URISyntaxException {
+        try (HttpTransport transport = HttpTransport.create(server.connectionParams)) {
+            final AuthorizationData authorizationData = transport.authenticate();
+            return transport.get(Request.builder().uri(server.listURI).name("list").header("Cookie", authorizationData.getGuidCookie()).build());
+        }
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        final boolean token = exchange.getRequestURI().getPath().endsWith("token.html");
+        if (token) {
+            exchange.getResponseHeaders().add("Set-Cookie", "GUID=guid; path=/");
+        }
+        final byte[] body = token ? TOKEN_PAGE : LIST;
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(HttpTransportBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,172 @@
+package com.utorrent.api.web.client.restclient;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.utorrent.api.web.client.restclient.exceptions.BadRequestException;
+import com.utorrent.api.web.client.restclient.exceptions.CallCancelledException;
+import com.utorrent.api.web.client.restclient.exceptions.DeadlineExceededException;
+import org.apache.hc.core5.http.ContentType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JdkHttpTransportTest {
+
+    private static final String LIST_BODY = "{\"build\": 44994, \"torrents\": [" + "[\"hash\", 201, \"name\"],".repeat(50) + "[]]}";
+
+    private final Map<String, String> received = new ConcurrentHashMap<>();
+    private final CountDownLatch stalledBodies = new CountDownLatch(1);
+    private ExecutorService serverExecutor;
+    private HttpServer server;
+    private HttpTransport transport;
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/gui/", this::handle);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+        transport = HttpTransport.create(ConnectionParams.builder()
+            .withAddress(InetAddress.getLoopbackAddress().getHostAddress(), server.getAddress().getPort())
+            .withCredentials("username", "password")
+            .enableAuthentication(true)
+            .enableCompression(true)
+            .withTimeout(2000)
+            .withTransport(HttpTransport.Implementation.JDK)
+            .create());
+    }
+
+    @AfterEach
+    void afterEach() throws IOException {
+        stalledBodies.countDown();
+        transport.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void testRequestsAreAuthenticatedDecodedAndScanned() {
+        assertThat(transport).isInstanceOf(JdkHttpTransport.class);
+        assertThat(transport.authenticate()).isEqualTo(new AuthorizationData("secret-token", "GUID=abc123", AuthorizationData.Status.OK));
+        assertThat(received.get("authorization")).isEqualTo("Basic dXNlcm5hbWU6cGFzc3dvcmQ=");
+
+        URI serverURI = transport.getServerURI();
+        String list = transport.get(Request.builder().uri(serverURI).name("list").param(new Request.QueryParam("list", "1"))
+            .header("Cookie", "GUID=abc123").build());
+        assertThat(list).isEqualTo(LIST_BODY);
+        assertThat(received.get("query")).isEqualTo("list=1");
+        assertThat(received.get("cookie")).isEqualTo("GUID=abc123");
+        CompressionStats.Counters counters = transport.getCompressionStats().getCounters().get("list");
+        assertThat(counters.getDecodedBytes()).isEqualTo(LIST_BODY.length());
+        assertThat(counters.getSavedBytes()).isPositive();
+
+        assertThat(transport.get(Request.builder().uri(serverURI.resolve("?action=start&hash=A")).successMarker("build").build()))
+            .isEqualTo("build");
+        assertThatThrownBy(() -> transport.get(Request.builder().uri(serverURI.resolve("?action=fail")).build()))
+            .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void testPostsAreSentAsMultipartForms() {
+        byte[] torrent = ("d8:announce35:udp://tracker.example.com:80/announce4:info" + "x".repeat(256 * 1024) + "e")
+            .getBytes(StandardCharsets.US_ASCII);
+        String response = transport.post(Request.builder()
+            .uri(transport.getServerURI().resolve("?action=add-file"))
+            .file(Request.FilePart.ofBytes("torrent_file", "a.torrent", torrent, ContentType.create("application/x-bittorrent")))
+            .build());
+
+        assertThat(response).contains("build");
+        assertThat(received.get("contentType")).startsWith("multipart/form-data; boundary=");
+        assertThat(received.get("body"))
+            .contains("Content-Disposition: form-data; name=\"torrent_file\"; filename=\"a.torrent\"")
+            .contains("Content-Type: application/x-bittorrent")
+            .contains(new String(torrent, StandardCharsets.US_ASCII))
+            .endsWith("--" + received.get("contentType").split("boundary=")[1] + "--\r\n");
+        assertThat(received.get("content-length")).isEqualTo(String.valueOf(received.get("body").length()));
+    }
+
+    @Test
+    void testBodiesAreReadWithinTheCallContext() throws Exception {
+        Request request = Request.builder().uri(transport.getServerURI().resolve("?action=stall")).build();
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> CallContext.withTimeout(Duration.ofMillis(300)).call(() -> transport.get(request)))
+            .isInstanceOf(DeadlineExceededException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+
+        CallContext context = CallContext.create();
+        CompletableFuture<String> call = CompletableFuture.supplyAsync(() -> context.call(() -> transport.get(request)));
+        Thread.sleep(200);
+        assertThat(call).isNotDone();
+        context.cancel();
+        assertThatThrownBy(() -> call.get(5, TimeUnit.SECONDS)).hasCauseExactlyInstanceOf(CallCancelledException.class);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        received.put("query", String.valueOf(query));
+        List.of("Authorization", "Cookie", "Content-Type", "Content-Length").forEach(header -> {
+            String value = exchange.getRequestHeaders().getFirst(header);
+            if (value != null) {
+                received.put(header.equals("Content-Type") ? "contentType" : header.toLowerCase(), value);
+            }
+        });
+        received.put("body", new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.ISO_8859_1));
+
+        if (exchange.getRequestURI().getPath().endsWith("token.html")) {
+            exchange.getResponseHeaders().add("Set-Cookie", "GUID=abc123; path=/");
+            respond(exchange, 200, "<html><div id='token' style='display:none;'>secret-token</div></html>".getBytes(StandardCharsets.UTF_8));
+        } else if (query != null && query.contains("stall")) {
+            exchange.sendResponseHeaders(200, 1000);
+            OutputStream out = exchange.getResponseBody();
+            out.write("{\"build\": ".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            try {
+                stalledBodies.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        } else if (query != null && query.contains("fail")) {
+            respond(exchange, 400, "invalid request".getBytes(StandardCharsets.UTF_8));
+        } else if (query != null && query.contains("list")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(LIST_BODY.getBytes(StandardCharsets.UTF_8));
+            }
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            respond(exchange, 200, compressed.toByteArray());
+        } else {
+            respond(exchange, 200, "{\"build\": 44994}".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package com.utorrent.api.web.client.restclient;
+
+import com.sun.net.httpserver.HttpServer;
+import com.utorrent.api.web.client.restclient.exceptions.CallCancelledException;
+import com.utorrent.api.web.client.restclient.exceptions.DeadlineExceededException;
+import com.utorrent.api.web.client.restclient.response.ResponseHandler;
+import com.utorrent.api.web.client.utils.BufferPool;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.http.io.entity.InputStreamEntity;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RESTClientTest {
+
+    @Test
+    void testConnectionPoolIsConfiguredFromConnectionParams() throws Exception {
+        ConnectionParams connectionParams = ConnectionParams.builder()
+                .withAddress("host.com", 8080)
+                .withTimeout(1000)
+                .withMaxConnections(8, 4)
+                .withConnectTimeout(500)
+                .withResponseTimeout(2000)
+                .withIdleConnectionEviction(30000)
+                .create();
+
+        try (RESTClient client = new RESTClient(connectionParams)) {
+            assertThat(client.getConnectionPoolStats()).contains(new ConnectionPoolStats(0, 0, 0, 8));
+
+            RequestConfig requestConfig = client.getRequestConfig();
+            assertThat(requestConfig.getResponseTimeout()).isEqualTo(Timeout.ofMilliseconds(2000));
+            assertThat(requestConfig.getConnectionRequestTimeout()).isEqualTo(Timeout.ofMilliseconds(1000));
+        }
+        try (AsyncRESTClient client = new AsyncRESTClient(connectionParams)) {
+            assertThat(client.getConnectionPoolStats()).contains(new ConnectionPoolStats(0, 0, 0, 8));
+        }
+    }
+
+    @Test
+    void testCompressedResponsesAreDecodedAndMeasured() throws Exception {
+        String json = "{\"build\": 44994, \"torrents\": [" + "[\"hash\", 201, \"name\"],".repeat(100) + "[]]}";
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        }
+        List<String> acceptedEncodings = new CopyOnWriteArrayList<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/gui/", exchange -> {
+            acceptedEncodings.add(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            boolean gzip = exchange.getRequestURI().getQuery().startsWith("list");
+            if (gzip) {
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+            byte[] response = gzip ? compressed.toByteArray() : body;
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+        ConnectionParams connectionParams = ConnectionParams.builder()
+                .withAddress(InetAddress.getLoopbackAddress().getHostAddress(), server.getAddress().getPort())
+                .withTimeout(2000)
+                .enableCompression(true)
+                .create();
+
+        try (RESTClient client = new RESTClient(connectionParams)) {
+            URI serverURI = client.getServerURI();
+            for (int i = 0; i < 2; i++) {
+                assertThat(client.get(Request.builder().uri(serverURI).name("list").param(new Request.QueryParam("list", "1")).build()))
+                        .isEqualTo(json);
+                assertThat(client.get(Request.builder().uri(serverURI).name("props").param(new Request.QueryParam("action", "getprops")).build()))
+                        .isEqualTo(json);
+            }
+
+            assertThat(acceptedEncodings).hasSize(4).containsOnly("gzip, deflate");
+            CompressionStats.Counters list = client.getCompressionStats().getCounters().get("list");
+            assertThat(list.getResponses()).isEqualTo(2);
+            assertThat(list.getReceivedBytes()).isEqualTo(2L * compressed.size());
+            assertThat(list.getDecodedBytes()).isEqualTo(2L * body.length);
+            assertThat(list.getSavedBytes()).isPositive();
+            CompressionStats.Counters props = client.getCompressionStats().getCounters().get("props");
+            assertThat(props.getResponses()).isEqualTo(2);
+            assertThat(props.getReceivedBytes()).isEqualTo(2L * body.length);
+            assertThat(props.getDecodedBytes()).isEqualTo(2L * body.length);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testExchangesAreAbortedAtTheDeadlineOrOnCancellation() throws Exception {
+        CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+        ArgumentCaptor<ClassicHttpRequest> requestCaptor = ArgumentCaptor.forClass(ClassicHttpRequest.class);
+        when(httpClient.execute(requestCaptor.capture(), any(HttpContext.class), any(HttpClientResponseHandler.class))).thenAnswer(invocation -> {
+            HttpUriRequestBase exchange = invocation.getArgument(0, HttpUriRequestBase.class);
+            while (!exchange.isCancelled()) {
+                Thread.sleep(10);
+            }
+            throw new IOException("Request aborted");
+        });
+        ConnectionParams connectionParams = ConnectionParams.builder()
+                .withAddress("host.com", 8080)
+                .withTimeout(60000)
+                .create();
+        URI serverURI = URI.create("http://host.com:8080/gui/");
+        RESTClient client = new RESTClient(httpClient, connectionParams, serverURI, new ResponseHandler());
+        Request request = Request.builder().uri(serverURI).param(new Request.QueryParam("list", "1")).build();
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> CallContext.withTimeout(Duration.ofMillis(200)).call(() -> client.get(request)))
+                .isInstanceOf(DeadlineExceededException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+        RequestConfig requestConfig = ((HttpUriRequestBase) requestCaptor.getValue()).getConfig();
+        assertThat(requestConfig.getResponseTimeout().toMilliseconds()).isBetween(1L, 200L);
+        assertThat(requestConfig.getConnectionRequestTimeout().toMilliseconds()).isBetween(1L, 200L);
+
+        CallContext context = CallContext.create();
+        CompletableFuture<String> call = CompletableFuture.supplyAsync(() -> context.call(() -> client.get(request)));
+        Thread.sleep(100);
+        assertThat(call).isNotDone();
+        context.cancel();
+        assertThatThrownBy(() -> call.get(5, TimeUnit.SECONDS)).hasCauseExactlyInstanceOf(CallCancelledException.class);
+        assertThatThrownBy(() -> context.call(() -> client.get(request))).isInstanceOf(CallCancelledException.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testUploadsAreStreamedFromEachSourceWithTheirLength(@TempDir Path directory) throws Exception {
+        byte[] torrent = "d8:announce35:udp://tracker.example.com:80/announcee".getBytes(StandardCharsets.US_ASCII);
+        Path torrentFile = Files.write(directory.resolve("file.torrent"), torrent);
+        ByteBuffer directBuffer = ByteBuffer.allocateDirect(torrent.length).put(torrent).flip();
+
+        CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+        List<String> bodies = new ArrayList<>();
+        when(httpClient.execute(any(ClassicHttpRequest.class), any(HttpContext.class), any(HttpClientResponseHandler.class))).thenAnswer(invocation -> {
+            HttpEntity entity = invocation.getArgument(0, ClassicHttpRequest.class).getEntity();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            entity.writeTo(body);
+            assertThat(entity.getContentLength()).isEqualTo(body.size());
+            bodies.add(body.toString(StandardCharsets.US_ASCII));
+            return "{\"build\": 1}";
+        });
+        ConnectionParams connectionParams = ConnectionParams.builder().withAddress("host.com", 8080).create();
+        URI serverURI = URI.create("http://host.com:8080/gui/");
+        RESTClient client = new RESTClient(httpClient, connectionParams, serverURI, new ResponseHandler());
+        ContentType contentType = ContentType.create("application/x-bittorrent");
+
+        for (Request.FilePart part : List.of(
+                new Request.FilePart("torrent_file", torrentFile.toFile(), contentType),
+                Request.FilePart.ofBytes("torrent_file", "a.torrent", torrent, contentType),
+                Request.FilePart.ofBuffer("torrent_file", "a.torrent", ByteBuffer.wrap(torrent), contentType),
+                Request.FilePart.ofBuffer("torrent_file", "a.torrent", directBuffer, contentType),
+                Request.FilePart.ofStream("torrent_file", "a.torrent", new ByteArrayInputStream(torrent), torrent.length, contentType))) {
+            client.post(Request.builder().uri(serverURI).file(part).build());
+        }
+
+        assertThat(bodies).hasSize(5).allSatisfy(body -> assertThat(body).contains(new String(torrent, StandardCharsets.US_ASCII)));
+        assertThat(directBuffer.remaining()).isEqualTo(torrent.length);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBodiesAreReadIntoPooledBuffersOrOnlyScannedForTheSuccessMarker() throws Exception {
+        String listBody = "{\"build\": 44994, \"label\": [[\"f\u00e9e\", 1]]}";
+        String actionBody = "{\"build\": 44994}" + " ".repeat(100);
+        AtomicBoolean drained = new AtomicBoolean();
+        CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+        when(httpClient.execute(any(ClassicHttpRequest.class), any(HttpContext.class), any(HttpClientResponseHandler.class))).thenAnswer(invocation -> {
+            String query = invocation.getArgument(0, ClassicHttpRequest.class).getUri().getQuery();
+            BasicClassicHttpResponse response = new BasicClassicHttpResponse(200);
+            if (query.contains("list")) {
+                response.setEntity(new InputStreamEntity(new ByteArrayInputStream(listBody.getBytes(StandardCharsets.UTF_8)), -1,
+                    ContentType.APPLICATION_JSON.withCharset(StandardCharsets.UTF_8)));
+            } else {
+                String body = query.contains("fail") ? actionBody.replace("build", "error") : actionBody;
+                response.setEntity(new InputStreamEntity(drainTracked(body, drained), body.length(), ContentType.TEXT_PLAIN));
+            }
+            return invocation.getArgument(2, HttpClientResponseHandler.class).handleResponse(response);
+        });
+        ConnectionParams connectionParams = ConnectionParams.builder().withAddress("host.com", 8080).create();
+        URI serverURI = URI.create("http://host.com:8080/gui/");
+        RESTClient client = new RESTClient(httpClient, connectionParams, serverURI, new ResponseHandler(new BufferPool(1, 4, 64)));
+
+        assertThat(client.get(Request.builder().uri(serverURI.resolve("?list=1")).build())).isEqualTo(listBody);
+        assertThat(client.get(Request.builder().uri(serverURI.resolve("?action=start")).successMarker("build").build())).isEqualTo("build");
+        assertThat(drained).isTrue();
+        drained.set(false);
+        assertThat(client.get(Request.builder().uri(serverURI.resolve("?action=fail")).successMarker("build").build())).isEmpty();
+        assertThat(drained).isTrue();
+    }
+
+    private static InputStream drainTracked(String body, AtomicBoolean drained) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.US_ASCII)) {
+            @Override
+            public synchronized int read(byte[] buffer, int offset, int length) {
+                int read = super.read(buffer, offset, length);
+                drained.compareAndSet(false, read == -1);
+                return read;
+            }
+        };
+    }
+
+    @Test
+    void testConnectionsAreOpenedAheadAndLeftIdleInThePool() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 8, InetAddress.getLoopbackAddress())) {
+            ConnectionParams connectionParams = ConnectionParams.builder()
+                    .withAddress(InetAddress.getLoopbackAddress().getHostAddress(), server.getLocalPort())
+                    .withMaxConnections(4, 4)
+                    .withTimeout(2000)
+                    .create();
+            try (RESTClient client = new RESTClient(connectionParams)) {
+                assertThat(client.openConnections(3)).isEqualTo(3);
+                assertThat(client.getConnectionPoolStats()).contains(new ConnectionPoolStats(0, 3, 0, 4));
+                assertThat(client.openConnections(2)).isZero();
+            }
+        }
+    }
+
+    @Test
+    void testConcurrentExchangesShareTheSessionUntilItIsReset() throws Exception {
+        List<String> cookies = new CopyOnWriteArrayList<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext("/gui/", exchange -> {
+            String cookie = exchange.getRequestHeaders().getFirst("Cookie");
+            cookies.add(cookie == null ? "" : cookie);
+            if (cookie == null) {
+                exchange.getResponseHeaders().add("Set-Cookie", "GUID=abc123; Path=/gui/");
+            }
+            byte[] response = "{\"build\": 44994}".getBytes(StandardCharsets.US_ASCII);
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+        ConnectionParams connectionParams = ConnectionParams.builder()
+                .withAddress(InetAddress.getLoopbackAddress().getHostAddress(), server.getAddress().getPort())
+                .withMaxConnections(4, 4)
+                .withTimeout(2000)
+                .create();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (RESTClient client = new RESTClient(connectionParams)) {
+            Request request = Request.builder().uri(client.getServerURI()).param(new Request.QueryParam("list", "1")).build();
+            client.get(request);
+            List<CompletableFuture<String>> responses = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                responses.add(CompletableFuture.supplyAsync(() -> client.get(request), executor));
+            }
+            CompletableFuture.allOf(responses.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+            assertThat(cookies).hasSize(17).startsWith("").containsOnly("", "GUID=abc123").containsOnlyOnce("");
+
+            client.resetSession();
+            client.get(request);
+            assertThat(cookies).hasSize(18).endsWith("");
+        } finally {
+            executor.shutdownNow();
+            server.stop(0);
+            ((ExecutorService) server.getExecutor()).shutdownNow();
+        }
+    }
+
+    @Test
+    void testAsyncUploadsAreStreamedWithTheirLength() throws Exception {
+        Map<String, String> received = new ConcurrentHashMap<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/gui/", exchange -> {
+            received.put("contentLength", String.valueOf(exchange.getRequestHeaders().getFirst("Content-Length")));
+            received.put("transferEncoding", String.valueOf(exchange.getRequestHeaders().getFirst("Transfer-Encoding")));
+            received.put("body", new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.ISO_8859_1));
+            byte[] response = "{\"build\": 44994}".getBytes(StandardCharsets.US_ASCII);
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+        ConnectionParams connectionParams = ConnectionParams.builder()
+                .withAddress(InetAddress.getLoopbackAddress().getHostAddress(), server.getAddress().getPort())
+                .withTimeout(2000)
+                .create();
+        String torrent = "d8:announce35:udp://tracker.example.com:80/announce4:info" + "x".repeat(256 * 1024) + "e";
+
+        try (AsyncRESTClient client = new AsyncRESTClient(connectionParams)) {
+            String response = client.post(Request.builder()
+                    .uri(client.getServerURI().resolve("?action=add-file"))
+                    .param(new Request.QueryParam("download_dir", "0"))
+                    .file(Request.FilePart.ofStream("torrent_file", "a.torrent",
+                        new ByteArrayInputStream(torrent.getBytes(StandardCharsets.US_ASCII)), torrent.length(), ContentType.create("application/x-bittorrent")))
+                    .build()).get(10, TimeUnit.SECONDS);
+
+            assertThat(response).contains("build");
+            assertThat(received.get("body"))
+                    .contains("name=\"download_dir\"")
+                    .contains("Content-Disposition: form-data; name=\"torrent_file\"; filename=\"a.torrent\"")
+                    .contains(torrent);
+            assertThat(received.get("contentLength")).isEqualTo(String.valueOf(received.get("body").length()));
+            assertThat(received.get("transferEncoding")).isEqualTo("null");
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void testFleetClientsOnOneHostKeepTheirOwnSession() throws Exception {
+        Map<String, List<String>> cookies = Map.of("box-1", new CopyOnWriteArrayList<>(), "box-2", new CopyOnWriteArrayList<>());
+        HttpServer firstServer = cookieServer("box-1", cookies);
+        HttpServer secondServer = cookieServer("box-2", cookies);
+        ConnectionParams firstParams = ConnectionParams.builder()
+                .withAddress("localhost", firstServer.getAddress().getPort())
+                .withTimeout(2000)
+                .create();
+        ConnectionParams secondParams = ConnectionParams.builder()
+                .withAddress("localhost", secondServer.getAddress().getPort())
+                .withTimeout(2000)
+                .create();
+
+        try (SharedAsyncTransport transport = new SharedAsyncTransport(firstParams.getPoolParams());
+             AsyncRESTClient first = transport.createClient(firstParams);
+             AsyncRESTClient second = transport.createClient(secondParams)) {
+            AuthorizationData firstSession = first.authenticate().get(10, TimeUnit.SECONDS);
+            AuthorizationData secondSession = second.authenticate().get(10, TimeUnit.SECONDS);
+            assertThat(firstSession.getGuidCookie()).isEqualTo("GUID=box-1");
+            assertThat(secondSession.getGuidCookie()).isEqualTo("GUID=box-2");
+            first.authenticate().get(10, TimeUnit.SECONDS);
+
+            first.get(Request.builder().uri(first.getServerURI()).param(new Request.QueryParam("list", "1"))
+                    .header("Cookie", firstSession.getGuidCookie()).build()).get(10, TimeUnit.SECONDS);
+            second.get(Request.builder().uri(second.getServerURI()).param(new Request.QueryParam("list", "1"))
+                    .header("Cookie", secondSession.getGuidCookie()).build()).get(10, TimeUnit.SECONDS);
+
+            assertThat(cookies.get("box-1")).containsExactly("", "", "GUID=box-1");
+            assertThat(cookies.get("box-2")).containsExactly("", "GUID=box-2");
+        } finally {
+            firstServer.stop(0);
+            secondServer.stop(0);
+        }
+    }
+
+    /**
+     * @return a server starting a session named after it on its token page and recording the
+     * cookies sent with each request
+     */
+    private static HttpServer cookieServer(String name, Map<String, List<String>> cookies) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/gui/", exchange -> {
+            List<String> sent = exchange.getRequestHeaders().get("Cookie");
+            cookies.get(name).add(sent == null ? "" : String.join("; ", sent));
+            byte[] response;
+            if (exchange.getRequestURI().getPath().endsWith("token.html")) {
+                exchange.getResponseHeaders().add("Set-Cookie", "GUID=" + name + "; path=/");
+                response = "<html><div id='token' style='display:none;'>token</div></html>".getBytes(StandardCharsets.US_ASCII);
+            } else {
+                response = "{\"build\": 44994}".getBytes(StandardCharsets.US_ASCII);
+            }
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+        return server;
+    }
+}